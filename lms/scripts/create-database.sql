@@ -117,6 +117,28 @@ IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'idx_borrowing_book_id')
     CREATE INDEX idx_borrowing_book_id ON borrowings(book_id);
 GO
 
+-- Add loan counter columns, maintained by the application; backfill an existing database once
+-- with the loan counter rebuild (Reports menu, "Loan Counter Rebuild")
+IF NOT EXISTS (SELECT * FROM sys.columns WHERE object_id = OBJECT_ID('books') AND name = 'total_borrows')
+    ALTER TABLE books ADD
+        total_borrows BIGINT NOT NULL DEFAULT 0,
+        active_loans BIGINT NOT NULL DEFAULT 0,
+        overdue_loans BIGINT NOT NULL DEFAULT 0,
+        last_borrowed_date DATE;
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.columns WHERE object_id = OBJECT_ID('members') AND name = 'total_borrows')
+    ALTER TABLE members ADD
+        total_borrows BIGINT NOT NULL DEFAULT 0,
+        active_loans BIGINT NOT NULL DEFAULT 0,
+        overdue_loans BIGINT NOT NULL DEFAULT 0,
+        last_borrowed_date DATE;
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'idx_books_total_borrows')
+    CREATE INDEX idx_books_total_borrows ON books(total_borrows);
+GO
+
 -- Add constraints for business rules
 IF NOT EXISTS (SELECT * FROM sys.check_constraints WHERE name = 'chk_borrowing_dates')
     ALTER TABLE borrowings ADD CONSTRAINT chk_borrowing_dates 
@@ -1,8 +1,8 @@
 package com.tuankiet.cli.menus;
 
 import com.tuankiet.cli.helpers.InputHelper;
-import com.tuankiet.dto.common.Page;
-import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Sort;
 import com.tuankiet.dto.common.SortCriteria;
 import com.tuankiet.dto.common.SortDirection;
@@ -20,7 +20,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -122,36 +125,7 @@ public class BookMenu {
 
     private void viewAllBooks() {
         System.out.println("\n--- All Books ---");
-        int page = 0;
-        int size = 5; // Display 5 books per page
-        Sort sort = Sort.by(new SortCriteria("title", SortDirection.ASC));
-        PageRequest pageRequest = new PageRequest(page, size, sort);
-        Page<BookResponse> bookPage;
-
-        do {
-            bookPage = bookService.search(new BookSearchCriteria(), pageRequest);
-            displayBooks(bookPage.getContent());
-
-            if (bookPage.hasContent()) {
-                System.out.println("\nPage " + (bookPage.getCurrentPage() + 1) + " of " + bookPage.getTotalPages());
-                if (bookPage.hasPrevious()) System.out.print(" (P)revious");
-                if (bookPage.hasNext()) System.out.print(" (N)ext");
-                System.out.print(" (E)xit to menu: ");
-                String nav = inputHelper.readLine().trim().toLowerCase();
-                if (nav.equals("n") && bookPage.hasNext()) {
-                    pageRequest = new PageRequest(bookPage.getCurrentPage() + 1, size, sort);
-                } else if (nav.equals("p") && bookPage.hasPrevious()) {
-                    pageRequest = new PageRequest(bookPage.getCurrentPage() - 1, size, sort);
-                } else if (nav.equals("e")) {
-                    break;
-                } else {
-                    System.out.println("Invalid navigation choice. Staying on current page.");
-                }
-            } else {
-                System.out.println("No books found.");
-                break;
-            }
-        } while (true);
+        browseBooks(new BookSearchCriteria(), "No books found.");
     }
 
     private void searchBooks() {
@@ -189,33 +163,45 @@ public class BookMenu {
                 authorId
         );
 
-        int page = 0;
-        int size = 5;
-        Sort sort = Sort.by(new SortCriteria("title", SortDirection.ASC));
-        PageRequest pageRequest = new PageRequest(page, size, sort);
-        Page<BookResponse> bookPage;
+        browseBooks(criteria, "No books found matching your criteria.");
+    }
+
+    /**
+     * Pages through books with keyset pagination. Cursors of the pages already seen are
+     * kept on a stack so that (P)revious can step back without any offset query.
+     * Books are listed by title, or by popularity: most borrowed first, read from the loan counters.
+     */
+    private void browseBooks(BookSearchCriteria criteria, String emptyMessage) {
+        int size = 5; // Display 5 books per page
+        Sort sort = inputHelper.readBoolean("Sort by popularity (most borrowed first)?")
+                ? Sort.by(new SortCriteria("totalBorrows", SortDirection.DESC))
+                : Sort.by(new SortCriteria("title", SortDirection.ASC));
+        CursorPageRequest pageRequest = CursorPageRequest.first(size, sort);
+        Deque<CursorPageRequest> previousRequests = new ArrayDeque<>();
+        CursorPage<BookResponse> bookPage;
 
         do {
             bookPage = bookService.search(criteria, pageRequest);
             displayBooks(bookPage.getContent());
 
             if (bookPage.hasContent()) {
-                System.out.println("\nPage " + (bookPage.getCurrentPage() + 1) + " of " + bookPage.getTotalPages());
-                if (bookPage.hasPrevious()) System.out.print(" (P)revious");
+                System.out.println("\nPage " + (previousRequests.size() + 1));
+                if (!previousRequests.isEmpty()) System.out.print(" (P)revious");
                 if (bookPage.hasNext()) System.out.print(" (N)ext");
                 System.out.print(" (E)xit to menu: ");
                 String nav = inputHelper.readLine().trim().toLowerCase();
                 if (nav.equals("n") && bookPage.hasNext()) {
-                    pageRequest = new PageRequest(bookPage.getCurrentPage() + 1, size, sort);
-                } else if (nav.equals("p") && bookPage.hasPrevious()) {
-                    pageRequest = new PageRequest(bookPage.getCurrentPage() - 1, size, sort);
+                    previousRequests.push(pageRequest);
+                    pageRequest = pageRequest.next(bookPage.getNextCursor());
+                } else if (nav.equals("p") && !previousRequests.isEmpty()) {
+                    pageRequest = previousRequests.pop();
                 } else if (nav.equals("e")) {
                     break;
                 } else {
                     System.out.println("Invalid navigation choice. Staying on current page.");
                 }
             } else {
-                System.out.println("No books found matching your criteria.");
+                System.out.println(emptyMessage);
                 break;
             }
         } while (true);
@@ -319,6 +305,9 @@ public class BookMenu {
                          "ID", "Title", "Author", "Category", "Available", "Total");
         System.out.println("=".repeat(120));
         
+        // Live availability from the in-memory index; the searched rows may already be stale
+        Map<UUID, Integer> availableCopies = bookService.getAvailableCopies(
+                books.stream().map(BookResponse::getId).toList());
         for (BookResponse book : books) {
             String authorName = book.getAuthor() != null ? 
                                book.getAuthor().getFirstName() + " " + book.getAuthor().getLastName() : 
@@ -329,7 +318,7 @@ public class BookMenu {
                 truncate(book.getTitle(), 30),
                 truncate(authorName, 20),
                 book.getCategory().toString(),
-                book.getAvailableCopies(),
+                availableCopies.getOrDefault(book.getId(), book.getAvailableCopies()),
                 book.getTotalCopies());
         }
         System.out.println("=".repeat(120));
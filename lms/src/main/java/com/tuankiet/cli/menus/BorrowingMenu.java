@@ -1,11 +1,14 @@
 package com.tuankiet.cli.menus;
 
 import com.tuankiet.cli.helpers.InputHelper;
-import com.tuankiet.dto.common.Page;
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Slice;
 import com.tuankiet.dto.common.Sort;
 import com.tuankiet.dto.common.SortCriteria;
 import com.tuankiet.dto.common.SortDirection;
+import com.tuankiet.dto.common.TotalCountStrategy;
 import com.tuankiet.dto.request.CreateBorrowingRequest;
 import com.tuankiet.dto.response.BorrowingResponse;
 import com.tuankiet.dto.response.BookResponse;
@@ -15,6 +18,7 @@ import com.tuankiet.enums.BorrowingStatus;
 import com.tuankiet.services.BookService;
 import com.tuankiet.services.BorrowingService;
 import com.tuankiet.services.MemberService;
+import com.tuankiet.services.pipeline.CheckoutPipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +26,8 @@ import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.UUID;
 
@@ -41,14 +47,16 @@ public class BorrowingMenu {
     private final BorrowingService borrowingService;
     private final BookService bookService;
     private final MemberService memberService;
+    private final CheckoutPipeline checkoutPipeline;
     
     @Autowired
     public BorrowingMenu(InputHelper inputHelper, BorrowingService borrowingService, 
-                        BookService bookService, MemberService memberService) {
+                        BookService bookService, MemberService memberService, CheckoutPipeline checkoutPipeline) {
         this.inputHelper = inputHelper;
         this.borrowingService = borrowingService;
         this.bookService = bookService;
         this.memberService = memberService;
+        this.checkoutPipeline = checkoutPipeline;
     }
     
     public void displayMenu() {
@@ -113,7 +121,8 @@ public class BorrowingMenu {
             LocalDate dueDate = borrowDate.plusDays(daysToReturn);
             
             CreateBorrowingRequest request = new CreateBorrowingRequest(bookId, memberId, borrowDate, dueDate);
-            BorrowingResponse response = borrowingService.create(request);
+            // Group-committed with concurrent checkouts when checkout.pipeline.enabled is set
+            BorrowingResponse response = checkoutPipeline.checkout(request);
             
             System.out.println("✅ Book borrowed successfully!");
             displayBorrowingDetails(response);
@@ -231,15 +240,33 @@ public class BorrowingMenu {
                 }
             }
             
-            int page = inputHelper.readInt("Page number (0-based, default 0): ");
             int size = inputHelper.readInt("Page size (default 10): ");
             if (size <= 0) size = 10;
             
             Sort sort = Sort.by(new SortCriteria("borrowDate", SortDirection.DESC));
-            PageRequest pageRequest = new PageRequest(page, size, sort);
-            Page<BorrowingResponse> result = borrowingService.search(criteria, pageRequest);
-            
-            displayBorrowingList(result);
+            CursorPageRequest pageRequest = CursorPageRequest.first(size, sort);
+            Deque<CursorPageRequest> previousRequests = new ArrayDeque<>();
+            
+            while (true) {
+                CursorPage<BorrowingResponse> result = borrowingService.search(criteria, pageRequest);
+                displayBorrowingList(result, previousRequests.size() + 1);
+                if (!result.hasContent() || (!result.hasNext() && previousRequests.isEmpty())) {
+                    break;
+                }
+                
+                if (!previousRequests.isEmpty()) System.out.print("(P)revious ");
+                if (result.hasNext()) System.out.print("(N)ext ");
+                System.out.print("(E)xit: ");
+                String nav = inputHelper.readLine().trim().toLowerCase();
+                if (nav.equals("n") && result.hasNext()) {
+                    previousRequests.push(pageRequest);
+                    pageRequest = pageRequest.next(result.getNextCursor());
+                } else if (nav.equals("p") && !previousRequests.isEmpty()) {
+                    pageRequest = previousRequests.pop();
+                } else {
+                    break;
+                }
+            }
             
         } catch (Exception e) {
             System.out.println("❌ Error searching borrowings: " + e.getMessage());
@@ -252,12 +279,13 @@ public class BorrowingMenu {
         
         try {
             BorrowingSearchCriteria criteria = new BorrowingSearchCriteria();
-            criteria.setStatus(BorrowingStatus.BORROWED);
-            criteria.setDueDateTo(LocalDate.now().minusDays(1)); // Books due before yesterday
+            // Loans past their due date are marked OVERDUE by the overdue sweeper
+            criteria.setStatus(BorrowingStatus.OVERDUE);
             
             Sort sort = Sort.by(new SortCriteria("dueDate", SortDirection.ASC));
             PageRequest pageRequest = new PageRequest(0, 50, sort);
-            Page<BorrowingResponse> overdueBorrowings = borrowingService.search(criteria, pageRequest);
+            Slice<BorrowingResponse> overdueBorrowings =
+                    borrowingService.search(criteria, pageRequest, TotalCountStrategy.WINDOW);
             
             if (overdueBorrowings.getContent().isEmpty()) {
                 System.out.println("✅ No overdue borrowings found!");
@@ -292,14 +320,16 @@ public class BorrowingMenu {
             
             Sort sort = Sort.by(new SortCriteria("borrowDate", SortDirection.DESC));
             PageRequest pageRequest = new PageRequest(0, 20, sort);
-            Page<BorrowingResponse> borrowings = borrowingService.search(criteria, pageRequest);
+            Slice<BorrowingResponse> borrowings =
+                    borrowingService.search(criteria, pageRequest, TotalCountStrategy.NONE);
             
             if (borrowings.getContent().isEmpty()) {
                 System.out.println("No borrowings found for this member.");
                 return;
             }
             
-            System.out.println("Borrowings for member " + memberId + ":");
+            System.out.println((borrowings.hasNext() ? "Latest " + borrowings.getContent().size() + " borrowings"
+                                                     : "Borrowings") + " for member " + memberId + ":");
             
             for (BorrowingResponse borrowing : borrowings.getContent()) {
                 System.out.println("\n" + "-".repeat(40));
@@ -335,7 +365,7 @@ public class BorrowingMenu {
         }
         
         // Check if overdue
-        if (borrowing.getStatus() == BorrowingStatus.BORROWED && 
+        if ((borrowing.getStatus() == BorrowingStatus.BORROWED || borrowing.getStatus() == BorrowingStatus.OVERDUE) && 
             borrowing.getDueDate().isBefore(LocalDate.now())) {
             long daysOverdue = LocalDate.now().toEpochDay() - borrowing.getDueDate().toEpochDay();
             System.out.println("⚠️ OVERDUE: " + daysOverdue + " days");
@@ -344,7 +374,7 @@ public class BorrowingMenu {
         System.out.println("=".repeat(50));
     }
     
-    private void displayBorrowingList(Page<BorrowingResponse> page) {
+    private void displayBorrowingList(CursorPage<BorrowingResponse> page, int pageNumber) {
         if (page.getContent().isEmpty()) {
             System.out.println("No borrowings found.");
             return;
@@ -372,9 +402,9 @@ public class BorrowingMenu {
         }
         
         System.out.println("=".repeat(90));
-        System.out.printf("Page %d of %d | Total: %d borrowings%n",
-            page.getCurrentPage() + 1,
-            page.getTotalPages(),
-            page.getTotalElements());
+        System.out.printf("Page %d | %d borrowings%s%n",
+            pageNumber,
+            page.getContent().size(),
+            page.hasNext() ? " | more available" : "");
     }
 }
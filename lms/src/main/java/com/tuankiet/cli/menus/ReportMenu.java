@@ -1,8 +1,17 @@
 package com.tuankiet.cli.menus;
 
 import com.tuankiet.cli.helpers.InputHelper;
-import com.tuankiet.dto.response.BorrowingResponse;
+import com.tuankiet.dto.response.DailyBorrowingSummary;
+import com.tuankiet.enums.BookCategory;
+import com.tuankiet.enums.BorrowingStatus;
 import com.tuankiet.services.ReportService;
+import com.tuankiet.services.concurrency.StripedLockManager;
+import com.tuankiet.services.concurrency.WaitTimeHistogram;
+import com.tuankiet.services.cache.CacheStatistics;
+import com.tuankiet.services.cache.ResponseCache;
+import com.tuankiet.services.loans.LoanCounterRebuilder;
+import com.tuankiet.services.loans.OverdueSweeper;
+import com.tuankiet.services.retry.ConflictMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,9 +19,11 @@ import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * CLI menu for reports and analytics
@@ -28,11 +39,23 @@ public class ReportMenu {
     
     private final InputHelper inputHelper;
     private final ReportService reportService;
+    private final CacheStatistics cacheStatistics;
+    private final OverdueSweeper overdueSweeper;
+    private final LoanCounterRebuilder loanCounterRebuilder;
+    private final ConflictMetrics conflictMetrics;
+    private final StripedLockManager lockManager;
     
     @Autowired
-    public ReportMenu(InputHelper inputHelper, ReportService reportService) {
+    public ReportMenu(InputHelper inputHelper, ReportService reportService, CacheStatistics cacheStatistics,
+                      OverdueSweeper overdueSweeper, LoanCounterRebuilder loanCounterRebuilder,
+                      ConflictMetrics conflictMetrics, StripedLockManager lockManager) {
         this.inputHelper = inputHelper;
         this.reportService = reportService;
+        this.cacheStatistics = cacheStatistics;
+        this.overdueSweeper = overdueSweeper;
+        this.loanCounterRebuilder = loanCounterRebuilder;
+        this.conflictMetrics = conflictMetrics;
+        this.lockManager = lockManager;
     }
     
     public void displayMenu() {
@@ -44,6 +67,10 @@ public class ReportMenu {
             System.out.println("1. ⚠️  Overdue Books Report");
             System.out.println("2. 📚 Currently Borrowed Books");
             System.out.println("3. 📈 Books Borrowed in Date Range");
+            System.out.println("4. 🗄️  Cache Statistics");
+            System.out.println("5. ⏰ Overdue Sweeper");
+            System.out.println("6. 🔢 Loan Counter Rebuild");
+            System.out.println("7. 🔁 Contention Statistics");
             System.out.println("0. ⬅️  Back to Main Menu");
             System.out.println("=".repeat(50));
             
@@ -54,6 +81,10 @@ public class ReportMenu {
                     case 1 -> generateOverdueReport();
                     case 2 -> generateCurrentlyBorrowedReport();
                     case 3 -> generateDateRangeReport();
+                    case 4 -> displayCacheStatistics();
+                    case 5 -> displayOverdueSweeper();
+                    case 6 -> displayLoanCounterRebuild();
+                    case 7 -> displayContentionStatistics();
                     case 0 -> logger.info("Returning to main menu from Reports.");
                     default -> System.out.println("❌ Invalid choice! Please try again.");
                 }
@@ -70,21 +101,19 @@ public class ReportMenu {
         System.out.println("=".repeat(50));
         
         try {
-            List<BorrowingResponse> overdueBorrowings = reportService.getOverdueBooks();
-            
-            if (overdueBorrowings.isEmpty()) {
-                System.out.println("✅ No overdue books found!");
-                return;
-            }
-            
-            System.out.println("Total overdue borrowings: " + overdueBorrowings.size());
-            System.out.println("\nDetailed Report:");
-            System.out.println("-".repeat(80));
-            System.out.printf("%-36s %-20s %-25s %-15s%n", 
-                             "Borrowing ID", "Member", "Book", "Days Overdue");
-            System.out.println("-".repeat(80));
-            
-            for (BorrowingResponse borrowing : overdueBorrowings) {
+            // Rows are printed as they are streamed, so the report never holds the full result set
+            long[] totalDaysOverdue = {0};
+            boolean[] headerPrinted = {false};
+            long count = reportService.streamOverdueBooks(borrowing -> {
+                if (!headerPrinted[0]) {
+                    System.out.println("\nDetailed Report:");
+                    System.out.println("-".repeat(80));
+                    System.out.printf("%-36s %-20s %-25s %-15s%n",
+                                     "Borrowing ID", "Member", "Book", "Days Overdue");
+                    System.out.println("-".repeat(80));
+                    headerPrinted[0] = true;
+                }
+
                 String memberName = borrowing.getMember() != null ? 
                                    borrowing.getMember().getFirstName() + " " + 
                                    borrowing.getMember().getLastName() : "Unknown";
@@ -99,29 +128,27 @@ public class ReportMenu {
                 }
                 
                 long daysOverdue = LocalDate.now().toEpochDay() - borrowing.getDueDate().toEpochDay();
+                totalDaysOverdue[0] += daysOverdue;
                 
                 System.out.printf("%-36s %-20s %-25s %-15d%n",
                     borrowing.getId().toString(),
                     memberName,
                     bookTitle,
                     daysOverdue);
+            });
+            
+            if (count == 0) {
+                System.out.println("✅ No overdue books found!");
+                return;
             }
             
             System.out.println("-".repeat(80));
+            System.out.println("Total overdue borrowings: " + count);
             
             // Summary statistics
-            long totalDaysOverdue = overdueBorrowings.stream()
-                .mapToLong(b -> LocalDate.now().toEpochDay() - b.getDueDate().toEpochDay())
-                .sum();
-            
-            double averageDaysOverdue = overdueBorrowings.stream()
-                .mapToLong(b -> LocalDate.now().toEpochDay() - b.getDueDate().toEpochDay())
-                .average()
-                .orElse(0.0);
-            
             System.out.println("\nSummary:");
-            System.out.println("Total days overdue: " + totalDaysOverdue);
-            System.out.println("Average days overdue: " + String.format("%.1f", averageDaysOverdue));
+            System.out.println("Total days overdue: " + totalDaysOverdue[0]);
+            System.out.println("Average days overdue: " + String.format("%.1f", (double) totalDaysOverdue[0] / count));
             
         } catch (Exception e) {
             System.out.println("❌ Error generating overdue report: " + e.getMessage());
@@ -133,21 +160,17 @@ public class ReportMenu {
         System.out.println("=".repeat(50));
         
         try {
-            List<BorrowingResponse> currentBorrowings = reportService.getCurrentlyBorrowedBooks();
-            
-            if (currentBorrowings.isEmpty()) {
-                System.out.println("✅ No books are currently borrowed!");
-                return;
-            }
-            
-            System.out.println("Total currently borrowed books: " + currentBorrowings.size());
-            System.out.println("\nDetailed Report:");
-            System.out.println("-".repeat(100));
-            System.out.printf("%-36s %-20s %-25s %-15s %-15s%n", 
-                             "Borrowing ID", "Member", "Book", "Borrow Date", "Due Date");
-            System.out.println("-".repeat(100));
-            
-            for (BorrowingResponse borrowing : currentBorrowings) {
+            boolean[] headerPrinted = {false};
+            long count = reportService.streamCurrentlyBorrowedBooks(borrowing -> {
+                if (!headerPrinted[0]) {
+                    System.out.println("\nDetailed Report:");
+                    System.out.println("-".repeat(100));
+                    System.out.printf("%-36s %-20s %-25s %-15s %-15s%n", 
+                                     "Borrowing ID", "Member", "Book", "Borrow Date", "Due Date");
+                    System.out.println("-".repeat(100));
+                    headerPrinted[0] = true;
+                }
+
                 String memberName = borrowing.getMember() != null ? 
                                    borrowing.getMember().getFirstName() + " " + 
                                    borrowing.getMember().getLastName() : "Unknown";
@@ -167,9 +190,15 @@ public class ReportMenu {
                     bookTitle,
                     borrowing.getBorrowDate().format(DATE_FORMATTER),
                     borrowing.getDueDate().format(DATE_FORMATTER));
+            });
+            
+            if (count == 0) {
+                System.out.println("✅ No books are currently borrowed!");
+                return;
             }
             
             System.out.println("-".repeat(100));
+            System.out.println("Total currently borrowed books: " + count);
             
         } catch (Exception e) {
             System.out.println("❌ Error generating currently borrowed report: " + e.getMessage());
@@ -198,65 +227,254 @@ public class ReportMenu {
                 return;
             }
             
-            List<BorrowingResponse> borrowings = reportService.getBooksBorrowedInDateRange(startDate, endDate);
+            BorrowingStatus status = null;
+            String statusInput = inputHelper.readString("Status (BORROWED/RETURNED/OVERDUE/LOST, optional): ", true);
+            if (!statusInput.isEmpty()) {
+                try {
+                    status = BorrowingStatus.valueOf(statusInput.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    System.out.println("⚠️ Invalid status. Ignoring status filter.");
+                }
+            }
             
-            if (borrowings.isEmpty()) {
-                System.out.println("✅ No books were borrowed in the specified date range!");
-                return;
+            BookCategory category = null;
+            String categoryInput = inputHelper.readString("Category " + Arrays.toString(BookCategory.values()) + " (optional): ", true);
+            if (!categoryInput.isEmpty()) {
+                try {
+                    category = BookCategory.valueOf(categoryInput.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    System.out.println("⚠️ Invalid category. Ignoring category filter.");
+                }
             }
             
+            System.out.println("1. Detailed report");
+            System.out.println("2. Daily summary by category");
+            int mode = inputHelper.readInt("Choose report type: ");
+            
             System.out.println("Books borrowed between " + startDate.format(DATE_FORMATTER) + 
                              " and " + endDate.format(DATE_FORMATTER) + ":");
-            System.out.println("Total borrowings: " + borrowings.size());
-            
-            System.out.println("\nDetailed Report:");
-            System.out.println("-".repeat(100));
-            System.out.printf("%-36s %-20s %-25s %-15s %-10s%n", 
-                             "Borrowing ID", "Member", "Book", "Borrow Date", "Status");
-            System.out.println("-".repeat(100));
-            
-            for (BorrowingResponse borrowing : borrowings) {
-                String memberName = borrowing.getMember() != null ? 
-                                   borrowing.getMember().getFirstName() + " " + 
-                                   borrowing.getMember().getLastName() : "Unknown";
-                if (memberName.length() > 20) {
-                    memberName = memberName.substring(0, 17) + "...";
-                }
-                
-                String bookTitle = borrowing.getBook() != null ? 
-                                  borrowing.getBook().getTitle() : "Unknown";
-                if (bookTitle.length() > 25) {
-                    bookTitle = bookTitle.substring(0, 22) + "...";
-                }
-                
-                System.out.printf("%-36s %-20s %-25s %-15s %-10s%n",
-                    borrowing.getId().toString(),
-                    memberName,
-                    bookTitle,
-                    borrowing.getBorrowDate().format(DATE_FORMATTER),
-                    borrowing.getStatus());
+            if (mode == 2) {
+                printDailySummary(reportService.getDailyBorrowingSummary(startDate, endDate, status, category));
+            } else {
+                printDateRangeDetail(startDate, endDate, status, category);
             }
             
-            System.out.println("-".repeat(100));
+        } catch (Exception e) {
+            System.out.println("❌ Error generating date range report: " + e.getMessage());
+        }
+    }
+    
+    private void printDateRangeDetail(LocalDate startDate, LocalDate endDate, BorrowingStatus status, BookCategory category) {
+        // Rows are printed as they are streamed; only the per-book counts are kept for the summary
+        Map<String, Long> bookCounts = new HashMap<>();
+        boolean[] headerPrinted = {false};
+        long count = reportService.streamBooksBorrowedInDateRange(startDate, endDate, status, category, borrowing -> {
+            if (!headerPrinted[0]) {
+                System.out.println("\nDetailed Report:");
+                System.out.println("-".repeat(100));
+                System.out.printf("%-36s %-20s %-25s %-15s %-10s%n", 
+                                 "Borrowing ID", "Member", "Book", "Borrow Date", "Status");
+                System.out.println("-".repeat(100));
+                headerPrinted[0] = true;
+            }
             
-            // Summary by book
-            Map<String, Long> bookCounts = borrowings.stream()
-                .filter(b -> b.getBook() != null)
-                .collect(Collectors.groupingBy(
-                    b -> b.getBook().getTitle(),
-                    Collectors.counting()
-                ));
+            String memberName = borrowing.getMember() != null ? 
+                               borrowing.getMember().getFirstName() + " " + 
+                               borrowing.getMember().getLastName() : "Unknown";
+            if (memberName.length() > 20) {
+                memberName = memberName.substring(0, 17) + "...";
+            }
             
-            System.out.println("\nMost borrowed books in this period:");
-            bookCounts.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(5)
-                .forEach(entry -> 
-                    System.out.println("• " + entry.getKey() + " (" + entry.getValue() + " times)")
-                );
+            String bookTitle = borrowing.getBook() != null ? 
+                              borrowing.getBook().getTitle() : "Unknown";
+            if (borrowing.getBook() != null) {
+                bookCounts.merge(bookTitle, 1L, Long::sum);
+            }
+            if (bookTitle.length() > 25) {
+                bookTitle = bookTitle.substring(0, 22) + "...";
+            }
             
-        } catch (Exception e) {
-            System.out.println("❌ Error generating date range report: " + e.getMessage());
+            System.out.printf("%-36s %-20s %-25s %-15s %-10s%n",
+                borrowing.getId().toString(),
+                memberName,
+                bookTitle,
+                borrowing.getBorrowDate().format(DATE_FORMATTER),
+                borrowing.getStatus());
+        });
+        
+        if (count == 0) {
+            System.out.println("✅ No books were borrowed in the specified date range!");
+            return;
         }
+        
+        System.out.println("-".repeat(100));
+        System.out.println("Total borrowings: " + count);
+        
+        System.out.println("\nMost borrowed books in this period:");
+        bookCounts.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+            .limit(5)
+            .forEach(entry -> 
+                System.out.println("• " + entry.getKey() + " (" + entry.getValue() + " times)")
+            );
+    }
+    
+    private void printDailySummary(List<DailyBorrowingSummary> summaries) {
+        if (summaries.isEmpty()) {
+            System.out.println("✅ No books were borrowed in the specified date range!");
+            return;
+        }
+        
+        System.out.println("\nDaily Summary:");
+        System.out.println("-".repeat(50));
+        System.out.printf("%-15s %-20s %10s%n", "Borrow Date", "Category", "Borrowings");
+        System.out.println("-".repeat(50));
+        long total = 0;
+        for (DailyBorrowingSummary summary : summaries) {
+            System.out.printf("%-15s %-20s %10d%n",
+                summary.getBorrowDate().format(DATE_FORMATTER),
+                summary.getCategory(),
+                summary.getBorrowings());
+            total += summary.getBorrowings();
+        }
+        System.out.println("-".repeat(50));
+        System.out.println("Total borrowings: " + total);
+    }
+
+    private void displayOverdueSweeper() {
+        System.out.println("\n⏰ OVERDUE SWEEPER");
+        System.out.println("=".repeat(50));
+        
+        if (inputHelper.readBoolean("Run a sweep now?")) {
+            int marked = overdueSweeper.sweep();
+            System.out.println("✅ Marked " + marked + " loans overdue.");
+        }
+        
+        System.out.println("Running: " + (overdueSweeper.isRunning() ? "yes" : "no"));
+        System.out.println("Batch size: " + overdueSweeper.getBatchSize());
+        System.out.println("Runs: " + overdueSweeper.getRunCount() + " (" + overdueSweeper.getFailureCount() + " failed)");
+        System.out.println("Batches: " + overdueSweeper.getBatchCount());
+        System.out.println("Loans marked overdue: " + overdueSweeper.getMarkedCount());
+        if (overdueSweeper.getLastRunStartedAt() != null) {
+            System.out.println("Last run: " + overdueSweeper.getLastRunStartedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
+                    + ", " + overdueSweeper.getLastRunMarked() + " marked in " + overdueSweeper.getLastRunMillis() + " ms"
+                    + (overdueSweeper.isLastRunComplete() ? "" : ", more left for the next run"));
+        }
+    }
+
+    private void displayLoanCounterRebuild() {
+        System.out.println("\n🔢 LOAN COUNTER REBUILD");
+        System.out.println("=".repeat(50));
+        
+        if (inputHelper.readBoolean("Rebuild the loan counters now?")) {
+            boolean complete = loanCounterRebuilder.rebuild();
+            System.out.println(complete ? "✅ Loan counters rebuilt." : "❌ Rebuild incomplete, see the log.");
+        }
+        
+        System.out.println("Running: " + (loanCounterRebuilder.isRunning() ? "yes" : "no"));
+        System.out.println("Chunk size: " + loanCounterRebuilder.getChunkSize() + ", parallelism: " + loanCounterRebuilder.getParallelism());
+        System.out.println("Runs: " + loanCounterRebuilder.getRunCount());
+        System.out.println("Chunks: " + loanCounterRebuilder.getChunkCount() + " (" + loanCounterRebuilder.getFailureCount() + " failed)");
+        if (loanCounterRebuilder.getLastRunStartedAt() != null) {
+            System.out.println("Last run: " + loanCounterRebuilder.getLastRunStartedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
+                    + ", " + loanCounterRebuilder.getLastRunBooks() + " books and " + loanCounterRebuilder.getLastRunMembers()
+                    + " members in " + loanCounterRebuilder.getLastRunMillis() + " ms"
+                    + (loanCounterRebuilder.isLastRunComplete() ? "" : ", incomplete"));
+        }
+    }
+
+    private void displayContentionStatistics() {
+        System.out.println("\n🔁 CONTENTION STATISTICS");
+        System.out.println("=".repeat(50));
+        
+        System.out.println("Optimistic lock conflicts:");
+        System.out.println("-".repeat(90));
+        System.out.printf("%-30s %10s %10s %10s %10s%n", "Operation", "Attempts", "Conflicts", "Exhausted", "Rate %");
+        System.out.println("-".repeat(90));
+        if (conflictMetrics.getAllStats().isEmpty()) {
+            System.out.println("No retried operation has run yet.");
+        }
+        conflictMetrics.getAllStats().forEach((operation, stats) ->
+            System.out.printf("%-30s %10d %10d %10d %9.1f%%%n",
+                operation,
+                stats.getAttempts(),
+                stats.getConflicts(),
+                stats.getExhausted(),
+                stats.getConflictRate() * 100));
+        System.out.println("-".repeat(90));
+        
+        WaitTimeHistogram waitTimes = lockManager.getWaitTimes();
+        System.out.println("\nStriped lock waits (" + lockManager.getStripeCount() + " stripes):");
+        System.out.println("-".repeat(90));
+        System.out.printf("Acquisitions: %d, contended: %d, mean wait: %.1f us, max wait: %d us%n",
+            waitTimes.getCount(),
+            lockManager.getContendedCount(),
+            waitTimes.getMeanNanos() / 1000,
+            TimeUnit.NANOSECONDS.toMicros(waitTimes.getMaxNanos()));
+        waitTimes.getBuckets().forEach((bucket, count) -> System.out.printf("  %-15s %10d%n", bucket, count));
+        System.out.println("-".repeat(90));
+    }
+
+    private void displayCacheStatistics() {
+        System.out.println("\n🗄️ CACHE STATISTICS");
+        System.out.println("=".repeat(50));
+        
+        if (!cacheStatistics.isEnabled()) {
+            System.out.println("❌ Statistics are disabled (hibernate.generate_statistics=false).");
+            return;
+        }
+        
+        System.out.println("-".repeat(90));
+        System.out.printf("%-40s %10s %10s %10s %10s %8s%n", "Region", "Hits", "Misses", "Puts", "Evictions", "Hit %");
+        System.out.println("-".repeat(90));
+        cacheStatistics.getRegionStats().forEach(this::printRegionStats);
+        printRegionStats("Query cache", cacheStatistics.getQueryCacheStats());
+        System.out.println("-".repeat(90));
+        
+        System.out.println("\nResponse caches:");
+        System.out.println("-".repeat(90));
+        System.out.printf("%-20s %10s %10s %10s %10s %8s %10s %10s%n", "Cache", "Size", "Hits", "Misses", "Evictions", "Hit %", "Hit us", "Load us");
+        System.out.println("-".repeat(90));
+        for (ResponseCache<?, ?> cache : cacheStatistics.getResponseCaches()) {
+            System.out.printf("%-20s %10s %10d %10d %10d %7.1f%% %10.1f %10.1f%n",
+                cache.getName(),
+                cache.getSize() + "/" + cache.getMaxSize(),
+                cache.getHitCount(),
+                cache.getMissCount(),
+                cache.getEvictionCount(),
+                cache.getHitRatio() * 100,
+                cache.getHitLatency().getMeanNanos() / 1000,
+                cache.getLoadLatency().getMeanNanos() / 1000);
+        }
+        System.out.println("-".repeat(90));
+        
+        if (!cacheStatistics.isSearchResultCacheEnabled()) {
+            System.out.println("Search result cache: disabled (search.result-cache.enabled=false)");
+            return;
+        }
+        System.out.println("\nSearch result cache:");
+        System.out.println("-".repeat(90));
+        System.out.printf("%-20s %10s %10s %14s %10s %12s %8s%n", "Region", "Hits", "Misses", "Invalidations", "Entries", "Est. KB", "Hit %");
+        System.out.println("-".repeat(90));
+        cacheStatistics.getSearchResultStats().forEach((region, stats) ->
+            System.out.printf("%-20s %10d %10d %14d %10d %12d %7.1f%%%n",
+                region,
+                stats.getHits(),
+                stats.getMisses(),
+                stats.getInvalidations(),
+                stats.getEntries(),
+                stats.getEstimatedBytes() / 1024,
+                stats.getHitRatio() * 100));
+        System.out.println("-".repeat(90));
+    }
+    
+    private void printRegionStats(String region, CacheStatistics.RegionStats stats) {
+        System.out.printf("%-40s %10d %10d %10d %10s %7.1f%%%n",
+            region,
+            stats.getHits(),
+            stats.getMisses(),
+            stats.getPuts(),
+            stats.getEvictions() < 0 ? "n/a" : String.valueOf(stats.getEvictions()),
+            stats.getHitRatio() * 100);
     }
 }
@@ -5,6 +5,7 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main application configuration
@@ -14,6 +15,7 @@ import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
  * @since 1.0.0
  */
 @Configuration
+@EnableScheduling
 @ComponentScan(basePackages = {
     "com.tuankiet.cli",
     "com.tuankiet.services",
@@ -27,6 +29,7 @@ import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
     DataSourceConfig.class,
     HibernateConfig.class,
     ValidationConfig.class,
+    RetryConfig.class,
     DatabaseProperties.class // Explicitly import DatabaseProperties
 })
 public class ApplicationConfig {
@@ -5,32 +5,63 @@ import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * DataSource configuration for the Library Management System.
- * 
+ * Read-only transactions are routed to the replicas listed in {@code db.replica.urls}, if any,
+ * through a {@link ReadWriteRoutingDataSource}.
+ *
  * @author tuankiet
  * @version 1.0.0
  * @since 1.0.0
  */
 @Configuration
 public class DataSourceConfig {
-    
+
     @Autowired
     private DatabaseProperties databaseProperties;
-    
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource() {
+        List<DataSource> replicas = new ArrayList<>();
+        List<String> replicaUrls = databaseProperties.getReplicaUrls();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            replicas.add(replicaDataSource(replicaUrls.get(i), i));
+        }
+        ReadWriteRoutingDataSource.Selection selection = ReadWriteRoutingDataSource.Selection.valueOf(
+                databaseProperties.getReplicaSelection().trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        return new ReadWriteRoutingDataSource(primaryDataSource(), replicas, selection,
+                databaseProperties.getReplicaRetryAfterMillis());
+    }
+
+    /**
+     * The DataSource used by Hibernate. The lazy proxy defers fetching a connection until the first
+     * statement, by which time the transaction's read-only flag is known to the routing DataSource.
+     *
+     * @return the DataSource
+     */
     @Bean
+    @Primary
     public DataSource dataSource() {
+        return new LazyConnectionDataSourceProxy(routingDataSource());
+    }
+
+    private DataSource primaryDataSource() {
         HikariConfig config = new HikariConfig();
-        
+
         // Basic connection properties
         config.setDriverClassName(databaseProperties.getDriverClassName());
         config.setJdbcUrl(databaseProperties.getUrl());
         config.setUsername(databaseProperties.getUsername());
         config.setPassword(databaseProperties.getPassword());
-        
+
         // Pool configuration
         config.setMinimumIdle(5);
         config.setMaximumPoolSize(20);
@@ -38,13 +69,35 @@ public class DataSourceConfig {
         config.setIdleTimeout(600000); // 10 minutes
         config.setMaxLifetime(1800000); // 30 minutes
         config.setLeakDetectionThreshold(60000); // 1 minute
-        
+
         // Connection validation
         config.setConnectionTestQuery("SELECT 1");
-        
+
         // Pool name for monitoring
         config.setPoolName("LibraryManagementPool");
-        
+
+        return new HikariDataSource(config);
+    }
+
+    private DataSource replicaDataSource(String url, int index) {
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName(databaseProperties.getDriverClassName());
+        config.setJdbcUrl(url);
+        config.setUsername(databaseProperties.getReplicaUsername());
+        config.setPassword(databaseProperties.getReplicaPassword());
+
+        // No minimum idle connections: an unreachable replica must not block startup
+        config.setMinimumIdle(0);
+        config.setMaximumPoolSize(databaseProperties.getReplicaPoolSize());
+        config.setInitializationFailTimeout(-1);
+        config.setConnectionTimeout(2000); // fail over to the next replica quickly
+        config.setIdleTimeout(600000); // 10 minutes
+        config.setMaxLifetime(1800000); // 30 minutes
+        config.setReadOnly(true);
+
+        config.setConnectionTestQuery("SELECT 1");
+        config.setPoolName("LibraryManagementReplicaPool-" + index);
+
         return new HikariDataSource(config);
     }
 }
@@ -4,6 +4,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Database configuration properties
  * 
@@ -27,6 +30,27 @@ public class DatabaseProperties {
     @Value("${db.password}")
     private String password;
 
+    @Value("${db.replica.urls:}")
+    private String replicaUrls;
+
+    @Value("${db.replica.username:${db.username}}")
+    private String replicaUsername;
+
+    @Value("${db.replica.password:${db.password}}")
+    private String replicaPassword;
+
+    @Value("${db.replica.selection:round-robin}")
+    private String replicaSelection;
+
+    @Value("${db.replica.pool-size:10}")
+    private int replicaPoolSize;
+
+    @Value("${db.replica.retry-after-ms:30000}")
+    private long replicaRetryAfterMillis;
+
+    @Value("${db.replica.max-lag-ms:5000}")
+    private long replicaMaxLagMillis;
+
     @Value("${hibernate.dialect}")
     private String hibernateDialect;
 
@@ -42,6 +66,12 @@ public class DatabaseProperties {
     @Value("${hibernate.use_sql_comments}")
     private String hibernateUseSqlComments;
 
+    @Value("${hibernate.default_batch_fetch_size:16}")
+    private int hibernateDefaultBatchFetchSize;
+
+    @Value("${hibernate.jdbc.batch_size:20}")
+    private int hibernateJdbcBatchSize;
+
     @Value("${hibernate.cache.use_second_level_cache}")
     private String hibernateCacheUseSecondLevelCache;
 
@@ -51,6 +81,15 @@ public class DatabaseProperties {
     @Value("${hibernate.cache.use_query_cache}")
     private String hibernateCacheUseQueryCache;
 
+    @Value("${hibernate.javax.cache.provider}")
+    private String hibernateJavaxCacheProvider;
+
+    @Value("${hibernate.javax.cache.uri}")
+    private String hibernateJavaxCacheUri;
+
+    @Value("${hibernate.generate_statistics:false}")
+    private String hibernateGenerateStatistics;
+
     // Getters
     public String getDriverClassName() {
         return driverClassName;
@@ -68,6 +107,47 @@ public class DatabaseProperties {
         return password;
     }
 
+    /**
+     * Get the JDBC URLs of the read replicas.
+     *
+     * @return the replica URLs, empty if read-only transactions use the primary
+     */
+    public List<String> getReplicaUrls() {
+        return Arrays.stream(replicaUrls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+    }
+
+    public String getReplicaUsername() {
+        return replicaUsername;
+    }
+
+    public String getReplicaPassword() {
+        return replicaPassword;
+    }
+
+    public String getReplicaSelection() {
+        return replicaSelection;
+    }
+
+    public int getReplicaPoolSize() {
+        return replicaPoolSize;
+    }
+
+    public long getReplicaRetryAfterMillis() {
+        return replicaRetryAfterMillis;
+    }
+
+    /**
+     * Get how long after a commit a read-only transaction may still miss it, i.e. the replica lag.
+     *
+     * @return the lag window in milliseconds, 0 if read-only transactions use the primary
+     */
+    public long getReplicaLagWindowMillis() {
+        return getReplicaUrls().isEmpty() ? 0 : replicaMaxLagMillis;
+    }
+
     public String getHibernateDialect() {
         return hibernateDialect;
     }
@@ -88,6 +168,14 @@ public class DatabaseProperties {
         return hibernateUseSqlComments;
     }
 
+    public int getHibernateDefaultBatchFetchSize() {
+        return hibernateDefaultBatchFetchSize;
+    }
+
+    public int getHibernateJdbcBatchSize() {
+        return hibernateJdbcBatchSize;
+    }
+
     public String getHibernateCacheUseSecondLevelCache() {
         return hibernateCacheUseSecondLevelCache;
     }
@@ -99,4 +187,16 @@ public class DatabaseProperties {
     public String getHibernateCacheUseQueryCache() {
         return hibernateCacheUseQueryCache;
     }
+
+    public String getHibernateJavaxCacheProvider() {
+        return hibernateJavaxCacheProvider;
+    }
+
+    public String getHibernateJavaxCacheUri() {
+        return hibernateJavaxCacheUri;
+    }
+
+    public String getHibernateGenerateStatistics() {
+        return hibernateGenerateStatistics;
+    }
 }
@@ -7,18 +7,22 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.orm.hibernate5.HibernateTransactionManager;
 import org.springframework.orm.hibernate5.LocalSessionFactoryBean;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
 import java.util.Properties;
 
 /**
- * Hibernate configuration
+ * Hibernate configuration.
+ * Enables annotation-driven transactions so that service-level {@code @Transactional}
+ * boundaries bind one Hibernate session per transaction for the repositories to join.
  * 
  * @author tuankiet
  * @version 1.0.0
  * @since 1.0.0
  */
 @Configuration
+@EnableTransactionManagement
 public class HibernateConfig {
 
     @Autowired
@@ -51,16 +55,24 @@ public class HibernateConfig {
         properties.put("hibernate.format_sql", databaseProperties.getHibernateFormatSql());
         properties.put("hibernate.use_sql_comments", databaseProperties.getHibernateUseSqlComments());
         
-        // Temporarily disable second level cache to avoid configuration issues
-        properties.put("hibernate.cache.use_second_level_cache", "false");
-        properties.put("hibernate.cache.use_query_cache", "false");
+        // Second-level and query cache; region sizes and expiry come from the JCache provider's configuration
+        properties.put("hibernate.cache.use_second_level_cache", databaseProperties.getHibernateCacheUseSecondLevelCache());
+        properties.put("hibernate.cache.use_query_cache", databaseProperties.getHibernateCacheUseQueryCache());
+        properties.put("hibernate.cache.region.factory_class", databaseProperties.getHibernateCacheRegionFactoryClass());
+        properties.put("hibernate.javax.cache.provider", databaseProperties.getHibernateJavaxCacheProvider());
+        properties.put("hibernate.javax.cache.uri", databaseProperties.getHibernateJavaxCacheUri());
+        properties.put("hibernate.generate_statistics", databaseProperties.getHibernateGenerateStatistics());
         
         // Performance optimizations
-        properties.put("hibernate.jdbc.batch_size", "20");
+        properties.put("hibernate.jdbc.batch_size", String.valueOf(databaseProperties.getHibernateJdbcBatchSize()));
         properties.put("hibernate.order_inserts", "true");
         properties.put("hibernate.order_updates", "true");
         properties.put("hibernate.jdbc.batch_versioned_data", "true");
         properties.put("hibernate.temp.use_jdbc_metadata_defaults", "false");
+
+        // Lazy proxies and collections without their own @BatchSize are initialized in IN-batches of this size
+        properties.put("hibernate.default_batch_fetch_size",
+                String.valueOf(databaseProperties.getHibernateDefaultBatchFetchSize()));
         
         return properties;
     }
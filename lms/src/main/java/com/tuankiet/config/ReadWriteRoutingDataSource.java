@@ -0,0 +1,186 @@
+package com.tuankiet.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DataSource that sends read-only transactions to replicas and everything else to the primary.
+ * The transaction's read-only flag is only set after the transaction manager has asked for a connection,
+ * so this DataSource must be wrapped in a {@code LazyConnectionDataSourceProxy}, which defers the
+ * real connection until the first statement.
+ * <p>
+ * A replica is picked round-robin or by the fewest active connections. A replica that fails to hand out
+ * a connection is skipped for a while, and the primary serves the read when no replica is available.
+ * Closing this DataSource closes the primary and the replicas.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    /**
+     * How a replica is chosen for a read-only transaction.
+     */
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_CONNECTIONS
+    }
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final Selection selection;
+    private final long retryAfterMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLongArray downUntil;
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    /**
+     * @param primary the read-write DataSource
+     * @param replicas the read-only DataSources; may be empty
+     * @param selection how a replica is chosen
+     * @param retryAfterMillis how long a failed replica is skipped
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas,
+                                      Selection selection, long retryAfterMillis) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.selection = selection;
+        this.retryAfterMillis = retryAfterMillis;
+        this.downUntil = new AtomicLongArray(replicas.size());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!replicas.isEmpty() && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Connection connection = replicaConnection();
+            if (connection != null) {
+                replicaConnections.increment();
+                return connection;
+            }
+            fallbacks.increment();
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    /**
+     * Get a connection with explicit credentials. The replicas' credentials are configured separately,
+     * so these connections always come from the primary.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        primaryConnections.increment();
+        return primary.getConnection(username, password);
+    }
+
+    public long getPrimaryConnectionCount() {
+        return primaryConnections.sum();
+    }
+
+    public long getReplicaConnectionCount() {
+        return replicaConnections.sum();
+    }
+
+    /**
+     * Get the number of read-only connections served by the primary because no replica was available.
+     *
+     * @return the fallback count
+     */
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * Try each available replica once, starting with the selected one.
+     *
+     * @return a replica connection, or null if none could be obtained
+     */
+    private Connection replicaConnection() {
+        int size = replicas.size();
+        int start = select();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            if (downUntil.get(index) > now) {
+                continue;
+            }
+            try {
+                return replicas.get(index).getConnection();
+            } catch (SQLException e) {
+                downUntil.set(index, now + retryAfterMillis);
+                logger.warn("Replica {} unavailable, skipping it for {} ms: {}", index, retryAfterMillis, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private int select() {
+        if (selection == Selection.LEAST_CONNECTIONS) {
+            int best = 0;
+            int fewest = Integer.MAX_VALUE;
+            for (int i = 0; i < replicas.size(); i++) {
+                int active = activeConnections(replicas.get(i));
+                if (active < fewest) {
+                    best = i;
+                    fewest = active;
+                }
+            }
+            return best;
+        }
+        return Math.floorMod(next.getAndIncrement(), replicas.size());
+    }
+
+    private static int activeConnections(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource) {
+            HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+            if (pool != null) {
+                return pool.getActiveConnections();
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(primary);
+        replicas.forEach(ReadWriteRoutingDataSource::closeQuietly);
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception e) {
+                logger.warn("Failed to close DataSource {}: {}", dataSource, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReadWriteRoutingDataSource{" +
+                "replicas=" + replicas.size() +
+                ", selection=" + selection +
+                ", primaryConnections=" + getPrimaryConnectionCount() +
+                ", replicaConnections=" + getReplicaConnectionCount() +
+                ", fallbacks=" + getFallbackCount() +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package com.tuankiet.config;
+
+import com.tuankiet.services.retry.ConflictMetrics;
+import com.tuankiet.services.retry.OptimisticRetry;
+import com.tuankiet.services.retry.OptimisticRetryInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+/**
+ * Optimistic lock retry configuration.
+ * The advisor is an infrastructure bean so that the auto-proxy creator registered by
+ * {@code @EnableTransactionManagement} applies it, and it is ordered before the transaction
+ * advisor so that each retry runs in its own transaction.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Configuration
+public class RetryConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public Advisor optimisticRetryAdvisor(Environment environment, ConflictMetrics conflictMetrics) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new AnnotationMatchingPointcut(null, OptimisticRetry.class, true),
+                new OptimisticRetryInterceptor(environment, conflictMetrics));
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return advisor;
+    }
+}
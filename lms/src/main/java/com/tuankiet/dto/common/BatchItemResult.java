@@ -0,0 +1,46 @@
+package com.tuankiet.dto.common;
+
+/**
+ * Outcome of one item of a batch operation whose items succeed or fail independently:
+ * either the item's result or the exception that rejected it.
+ *
+ * @param <T> The type of the item's result.
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class BatchItemResult<T> {
+
+    private final T value;
+    private final RuntimeException error;
+
+    private BatchItemResult(T value, RuntimeException error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    public static <T> BatchItemResult<T> success(T value) {
+        return new BatchItemResult<>(value, null);
+    }
+
+    public static <T> BatchItemResult<T> failure(RuntimeException error) {
+        return new BatchItemResult<>(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public RuntimeException getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? "BatchItemResult{value=" + value + '}' : "BatchItemResult{error=" + error + '}';
+    }
+}
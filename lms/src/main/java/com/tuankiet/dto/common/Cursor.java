@@ -0,0 +1,142 @@
+package com.tuankiet.dto.common;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Continuation token for keyset (seek) pagination.
+ * Holds the sort key values of the last row of a page, with the entity ID
+ * as the final tie-breaker, and encodes them into an opaque URL-safe string.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class Cursor {
+
+    private static final String SEPARATOR = ".";
+    private static final String NULL_MARKER = "~";
+
+    private final List<String> values;
+
+    private Cursor(List<String> values) {
+        this.values = Collections.unmodifiableList(values);
+    }
+
+    /**
+     * Creates a cursor from the sort key values of a row.
+     *
+     * @param keyValues the sort key values, ending with the entity ID
+     * @return new Cursor instance
+     */
+    public static Cursor of(List<?> keyValues) {
+        List<String> values = new ArrayList<>(keyValues.size());
+        for (Object value : keyValues) {
+            values.add(value == null ? null : (value instanceof Enum<?> e ? e.name() : value.toString()));
+        }
+        return new Cursor(values);
+    }
+
+    /**
+     * Decodes a token previously produced by {@link #encode()}.
+     *
+     * @param token the opaque continuation token
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("Cursor token must not be empty!");
+        }
+        try {
+            List<String> values = new ArrayList<>();
+            for (String part : token.split("\\" + SEPARATOR, -1)) {
+                values.add(NULL_MARKER.equals(part)
+                        ? null
+                        : new String(Base64.getUrlDecoder().decode(part), StandardCharsets.UTF_8));
+            }
+            return new Cursor(values);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor token: " + token, e);
+        }
+    }
+
+    /**
+     * Encodes this cursor into an opaque URL-safe token.
+     *
+     * @return the continuation token
+     */
+    public String encode() {
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) token.append(SEPARATOR);
+            String value = values.get(i);
+            token.append(value == null
+                    ? NULL_MARKER
+                    : Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8)));
+        }
+        return token.toString();
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Get the key value at the given position converted to the attribute type.
+     *
+     * @param <V> the attribute type
+     * @param index the key position
+     * @param type the attribute Java type
+     * @return the converted value, or null if the key was null
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <V> V getValue(int index, Class<V> type) {
+        String raw = values.get(index);
+        if (raw == null) {
+            return null;
+        }
+        try {
+            if (type == String.class) return (V) raw;
+            if (type == UUID.class) return (V) UUID.fromString(raw);
+            if (type == Integer.class || type == int.class) return (V) Integer.valueOf(raw);
+            if (type == Long.class || type == long.class) return (V) Long.valueOf(raw);
+            if (type == Boolean.class || type == boolean.class) return (V) Boolean.valueOf(raw);
+            if (type == BigDecimal.class) return (V) new BigDecimal(raw);
+            if (type == LocalDate.class) return (V) LocalDate.parse(raw);
+            if (type == LocalDateTime.class) return (V) LocalDateTime.parse(raw);
+            if (type.isEnum()) return (V) Enum.valueOf((Class<? extends Enum>) type, raw);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor value '" + raw + "' for type " + type.getSimpleName(), e);
+        }
+        throw new IllegalArgumentException("Unsupported cursor key type: " + type.getName());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Cursor cursor = (Cursor) o;
+        return Objects.equals(values, cursor.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(values);
+    }
+
+    @Override
+    public String toString() {
+        return "Cursor{" +
+                "values=" + values +
+                '}';
+    }
+}
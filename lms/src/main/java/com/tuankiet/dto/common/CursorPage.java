@@ -0,0 +1,90 @@
+package com.tuankiet.dto.common;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Represents a page of results from a keyset-paginated query.
+ *
+ * @param <T> The type of elements in the page.
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final String cursor;
+    private final String nextCursor;
+    private final int pageSize;
+
+    public CursorPage(List<T> content, String cursor, String nextCursor, int pageSize) {
+        this.content = content;
+        this.cursor = cursor;
+        this.nextCursor = nextCursor;
+        this.pageSize = pageSize;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * Get the continuation token this page was requested with.
+     *
+     * @return the token, or null for the first page
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Get the continuation token for the following page.
+     *
+     * @return the token, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean hasContent() {
+        return content != null && !content.isEmpty();
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean isFirst() {
+        return cursor == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CursorPage<?> that = (CursorPage<?>) o;
+        return pageSize == that.pageSize &&
+                Objects.equals(content, that.content) &&
+                Objects.equals(cursor, that.cursor) &&
+                Objects.equals(nextCursor, that.nextCursor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(content, cursor, nextCursor, pageSize);
+    }
+
+    @Override
+    public String toString() {
+        return "CursorPage{" +
+                "content=" + content.size() + " items" +
+                ", pageSize=" + pageSize +
+                ", hasNext=" + hasNext() +
+                '}';
+    }
+}
@@ -0,0 +1,89 @@
+package com.tuankiet.dto.common;
+
+import java.util.Objects;
+
+/**
+ * Represents a request for a keyset-paginated (seek) list of results.
+ * Unlike {@link PageRequest} it carries no offset: the next page is located
+ * from the continuation token of the previous one, so every page costs the same.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class CursorPageRequest {
+
+    private final int size;
+    private final Sort sort;
+    private final String cursor;
+
+    public CursorPageRequest(int size, Sort sort, String cursor) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one!");
+        }
+        this.size = size;
+        this.sort = sort != null ? sort : Sort.unsorted();
+        this.cursor = cursor;
+    }
+
+    /**
+     * Create a request for the first page.
+     *
+     * @param size the page size
+     * @param sort the sort order
+     * @return new CursorPageRequest instance
+     */
+    public static CursorPageRequest first(int size, Sort sort) {
+        return new CursorPageRequest(size, sort, null);
+    }
+
+    /**
+     * Create a request for the page following the given cursor, keeping size and sort.
+     *
+     * @param nextCursor the continuation token returned with the previous page
+     * @return new CursorPageRequest instance
+     */
+    public CursorPageRequest next(String nextCursor) {
+        return new CursorPageRequest(size, sort, nextCursor);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public boolean isFirst() {
+        return cursor == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CursorPageRequest that = (CursorPageRequest) o;
+        return size == that.size &&
+                Objects.equals(sort, that.sort) &&
+                Objects.equals(cursor, that.cursor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(size, sort, cursor);
+    }
+
+    @Override
+    public String toString() {
+        return "CursorPageRequest{" +
+                "size=" + size +
+                ", sort=" + sort +
+                ", cursor='" + cursor + '\'' +
+                '}';
+    }
+}
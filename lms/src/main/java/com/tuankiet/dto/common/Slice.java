@@ -0,0 +1,119 @@
+package com.tuankiet.dto.common;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Represents a page of results whose total element count is optional.
+ * {@code hasNext} is derived from fetching one row more than the page size,
+ * so a slice never needs a separate COUNT query unless the caller asks for a total.
+ * 
+ * @param <T> The type of elements in the slice.
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class Slice<T> {
+
+    private final List<T> content;
+    private final int currentPage;
+    private final int pageSize;
+    private final boolean hasNext;
+    private final Long totalElements;
+
+    public Slice(List<T> content, int currentPage, int pageSize, boolean hasNext, Long totalElements) {
+        this.content = content;
+        this.currentPage = currentPage;
+        this.pageSize = pageSize;
+        this.hasNext = hasNext;
+        this.totalElements = totalElements;
+    }
+
+    /**
+     * Create a slice with the same paging information but different content.
+     * 
+     * @param <U> the new element type
+     * @param mapper the element mapping function
+     * @return new Slice instance
+     */
+    public <U> Slice<U> map(Function<? super T, ? extends U> mapper) {
+        List<U> mapped = content.stream().map(mapper).collect(Collectors.toList());
+        return new Slice<>(mapped, currentPage, pageSize, hasNext, totalElements);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getCurrentPage() {
+        return currentPage;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean hasContent() {
+        return content != null && !content.isEmpty();
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    public boolean hasPrevious() {
+        return currentPage > 0;
+    }
+
+    public boolean hasTotal() {
+        return totalElements != null;
+    }
+
+    /**
+     * Get the total number of elements.
+     * 
+     * @return the total, or null if it was not requested or could not be determined
+     */
+    public Long getTotalElements() {
+        return totalElements;
+    }
+
+    /**
+     * Get the total number of pages.
+     * 
+     * @return the page count, or null if the total is unknown
+     */
+    public Integer getTotalPages() {
+        return totalElements == null ? null : (int) Math.ceil((double) totalElements / pageSize);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Slice<?> slice = (Slice<?>) o;
+        return currentPage == slice.currentPage &&
+                pageSize == slice.pageSize &&
+                hasNext == slice.hasNext &&
+                Objects.equals(totalElements, slice.totalElements) &&
+                Objects.equals(content, slice.content);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(content, currentPage, pageSize, hasNext, totalElements);
+    }
+
+    @Override
+    public String toString() {
+        return "Slice{" +
+                "content=" + content.size() + " items" +
+                ", currentPage=" + currentPage +
+                ", pageSize=" + pageSize +
+                ", hasNext=" + hasNext +
+                ", totalElements=" + totalElements +
+                '}';
+    }
+}
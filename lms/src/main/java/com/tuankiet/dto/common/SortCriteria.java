@@ -1,5 +1,7 @@
 package com.tuankiet.dto.common;
 
+import java.util.Objects;
+
 /**
  * Represents sorting criteria for queries.
  * 
@@ -86,6 +88,19 @@ public class SortCriteria {
         this.property = property;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SortCriteria that = (SortCriteria) o;
+        return Objects.equals(getField(), that.getField()) && direction == that.direction;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getField(), direction);
+    }
+
     @Override
     public String toString() {
         return "SortCriteria{" +
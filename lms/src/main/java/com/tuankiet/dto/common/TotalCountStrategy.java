@@ -0,0 +1,17 @@
+package com.tuankiet.dto.common;
+
+/**
+ * How a {@link Slice} obtains its optional total element count.
+ * 
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public enum TotalCountStrategy {
+    /** No total; only {@code hasNext} is computed from one extra row. */
+    NONE,
+    /** Total computed in the content statement with {@code COUNT(*) OVER ()}. */
+    WINDOW,
+    /** Total served from a short-lived count cache keyed by the search criteria. */
+    CACHED
+}
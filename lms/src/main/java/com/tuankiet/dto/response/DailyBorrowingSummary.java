@@ -0,0 +1,60 @@
+package com.tuankiet.dto.response;
+
+import com.tuankiet.enums.BookCategory;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Number of borrowings made on one day for one book category, as counted by the database.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class DailyBorrowingSummary {
+
+    private final LocalDate borrowDate;
+    private final BookCategory category;
+    private final long borrowings;
+
+    public DailyBorrowingSummary(LocalDate borrowDate, BookCategory category, long borrowings) {
+        this.borrowDate = borrowDate;
+        this.category = category;
+        this.borrowings = borrowings;
+    }
+
+    public LocalDate getBorrowDate() {
+        return borrowDate;
+    }
+
+    public BookCategory getCategory() {
+        return category;
+    }
+
+    public long getBorrowings() {
+        return borrowings;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DailyBorrowingSummary that = (DailyBorrowingSummary) o;
+        return borrowings == that.borrowings && Objects.equals(borrowDate, that.borrowDate) && category == that.category;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(borrowDate, category, borrowings);
+    }
+
+    @Override
+    public String toString() {
+        return "DailyBorrowingSummary{" +
+                "borrowDate=" + borrowDate +
+                ", category=" + category +
+                ", borrowings=" + borrowings +
+                '}';
+    }
+}
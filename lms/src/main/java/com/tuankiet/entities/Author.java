@@ -3,6 +3,7 @@ package com.tuankiet.entities;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 
@@ -18,6 +19,7 @@ import java.util.Objects;
 @Entity
 @Table(name = "Authors")
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@BatchSize(size = 50)
 public class Author extends BaseEntity {
 
   @Column(name = "first_name", nullable = false)
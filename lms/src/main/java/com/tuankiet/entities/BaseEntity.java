@@ -7,6 +7,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Version;
 import org.hibernate.annotations.GenericGenerator;
 
 import java.io.Serializable;
@@ -16,7 +17,8 @@ import java.util.UUID;
 
 /**
 * Base entity class providing common fields like ID, creation and update timestamps.
-* Uses UUID for primary keys.
+* Uses UUID for primary keys and a version column for optimistic locking, so that concurrent
+* updates of the same row fail with an optimistic lock exception instead of overwriting each other.
 * 
 * @author congdinh2008
 * @version 1.0.0
@@ -37,6 +39,10 @@ public abstract class BaseEntity implements Serializable {
   @Column(name = "updated_at", nullable = false)
   private LocalDateTime updatedAt;
 
+  @Version
+  @Column(name = "version", nullable = false)
+  private Long version;
+
   public BaseEntity() {
   }
 
@@ -79,6 +85,14 @@ public abstract class BaseEntity implements Serializable {
       this.updatedAt = updatedAt;
   }
 
+  public Long getVersion() {
+      return version;
+  }
+
+  public void setVersion(Long version) {
+      this.version = version;
+  }
+
   @Override
   public boolean equals(Object o) {
       if (this == o) return true;
@@ -98,6 +112,7 @@ public abstract class BaseEntity implements Serializable {
              "id=" + id +
              ", createdAt=" + createdAt +
              ", updatedAt=" + updatedAt +
+             ", version=" + version +
              '}';
   }
 }
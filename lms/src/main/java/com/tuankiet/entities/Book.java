@@ -6,12 +6,20 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
+import java.time.LocalDate;
 import java.util.Objects;
 
 /**
@@ -22,13 +30,19 @@ import java.util.Objects;
 * @since 1.0.0
 */
 @Entity
-@Table(name = "Books")
+@Table(name = "Books", indexes = @Index(name = "idx_books_total_borrows", columnList = "total_borrows"))
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
+@BatchSize(size = 50)
+@NamedEntityGraph(name = Book.GRAPH_WITH_AUTHOR, attributeNodes = @NamedAttributeNode("author"))
 public class Book extends BaseEntity {
 
+  public static final String GRAPH_WITH_AUTHOR = "book-with-author";
+
   @Column(name = "title", nullable = false)
   private String title;
 
+  @NaturalId(mutable = true)
   @Column(name = "isbn", unique = true, nullable = false, length = 13)
   private String isbn;
 
@@ -49,6 +63,23 @@ public class Book extends BaseEntity {
   @JoinColumn(name = "author_id")
   private Author author;
 
+  // Loan counters: maintained with set-based updates by the borrowing service and the overdue sweeper,
+  // recomputed from the Borrowings table by the rebuild job, and never written from the entity
+  @ColumnDefault("0")
+  @Column(name = "total_borrows", nullable = false, insertable = false, updatable = false)
+  private long totalBorrows;
+
+  @ColumnDefault("0")
+  @Column(name = "active_loans", nullable = false, insertable = false, updatable = false)
+  private long activeLoans;
+
+  @ColumnDefault("0")
+  @Column(name = "overdue_loans", nullable = false, insertable = false, updatable = false)
+  private long overdueLoans;
+
+  @Column(name = "last_borrowed_date", insertable = false, updatable = false)
+  private LocalDate lastBorrowedDate;
+
   public Book() {
   }
 
@@ -118,6 +149,22 @@ public class Book extends BaseEntity {
       this.author = author;
   }
 
+  public long getTotalBorrows() {
+      return totalBorrows;
+  }
+
+  public long getActiveLoans() {
+      return activeLoans;
+  }
+
+  public long getOverdueLoans() {
+      return overdueLoans;
+  }
+
+  public LocalDate getLastBorrowedDate() {
+      return lastBorrowedDate;
+  }
+
   @Override
   public boolean equals(Object o) {
       if (this == o) return true;
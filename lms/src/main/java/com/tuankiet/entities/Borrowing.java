@@ -6,8 +6,12 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.Table;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
@@ -23,10 +27,23 @@ import java.util.Objects;
 * @since 1.0.0
 */
 @Entity
-@Table(name = "Borrowings")
+@Table(name = "Borrowings", indexes = {
+    @Index(name = "idx_borrowings_borrow_date", columnList = "borrow_date"),
+    @Index(name = "idx_borrowings_status_due_date", columnList = "status, due_date")
+})
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedEntityGraph(
+    name = Borrowing.GRAPH_WITH_BOOK_AUTHOR_MEMBER,
+    attributeNodes = {
+        @NamedAttributeNode(value = "book", subgraph = "book-author"),
+        @NamedAttributeNode("member")
+    },
+    subgraphs = @NamedSubgraph(name = "book-author", attributeNodes = @NamedAttributeNode("author"))
+)
 public class Borrowing extends BaseEntity {
 
+  public static final String GRAPH_WITH_BOOK_AUTHOR_MEMBER = "borrowing-with-book-author-member";
+
   @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "book_id", nullable = false)
   private Book book;
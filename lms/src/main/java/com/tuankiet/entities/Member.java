@@ -3,10 +3,15 @@ package com.tuankiet.entities;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.time.LocalDate;
+import java.util.Locale;
 import java.util.Objects;
 
 /**
@@ -19,6 +24,8 @@ import java.util.Objects;
 @Entity
 @Table(name = "Members")
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
+@BatchSize(size = 50)
 public class Member extends BaseEntity {
 
   @Column(name = "first_name", nullable = false)
@@ -27,6 +34,7 @@ public class Member extends BaseEntity {
   @Column(name = "last_name", nullable = false)
   private String lastName;
 
+  @NaturalId(mutable = true)
   @Column(name = "email", unique = true, nullable = false)
   private String email;
 
@@ -39,6 +47,23 @@ public class Member extends BaseEntity {
   @Column(name = "registration_date", nullable = false)
   private LocalDate registrationDate;
 
+  // Loan counters: maintained with set-based updates by the borrowing service and the overdue sweeper,
+  // recomputed from the Borrowings table by the rebuild job, and never written from the entity
+  @ColumnDefault("0")
+  @Column(name = "total_borrows", nullable = false, insertable = false, updatable = false)
+  private long totalBorrows;
+
+  @ColumnDefault("0")
+  @Column(name = "active_loans", nullable = false, insertable = false, updatable = false)
+  private long activeLoans;
+
+  @ColumnDefault("0")
+  @Column(name = "overdue_loans", nullable = false, insertable = false, updatable = false)
+  private long overdueLoans;
+
+  @Column(name = "last_borrowed_date", insertable = false, updatable = false)
+  private LocalDate lastBorrowedDate;
+
   public Member() {
       this.registrationDate = LocalDate.now();
   }
@@ -46,7 +71,7 @@ public class Member extends BaseEntity {
   public Member(String firstName, String lastName, String email, String phoneNumber, String address) {
       this.firstName = firstName;
       this.lastName = lastName;
-      this.email = email;
+      this.email = canonicalEmail(email);
       this.phoneNumber = phoneNumber;
       this.address = address;
       this.registrationDate = LocalDate.now();
@@ -73,7 +98,16 @@ public class Member extends BaseEntity {
   }
 
   public void setEmail(String email) {
-      this.email = email;
+      this.email = canonicalEmail(email);
+  }
+
+  /**
+   * Converts an email address to the form it is stored and looked up in: trimmed and lowercase.
+   * @param email The email address, may be null.
+   * @return The canonical email address, or null.
+   */
+  public static String canonicalEmail(String email) {
+      return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
   }
 
   public String getPhoneNumber() {
@@ -100,6 +134,22 @@ public class Member extends BaseEntity {
       this.registrationDate = registrationDate;
   }
 
+  public long getTotalBorrows() {
+      return totalBorrows;
+  }
+
+  public long getActiveLoans() {
+      return activeLoans;
+  }
+
+  public long getOverdueLoans() {
+      return overdueLoans;
+  }
+
+  public LocalDate getLastBorrowedDate() {
+      return lastBorrowedDate;
+  }
+
   @Override
   public boolean equals(Object o) {
       if (this == o) return true;
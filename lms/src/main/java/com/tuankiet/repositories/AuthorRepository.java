@@ -1,9 +1,14 @@
 package com.tuankiet.repositories;
 
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Slice;
+import com.tuankiet.dto.common.TotalCountStrategy;
 import com.tuankiet.dto.search.AuthorSearchCriteria;
 import com.tuankiet.entities.Author;
+import com.tuankiet.repositories.support.Projection;
 
 import java.util.Optional;
 
@@ -40,4 +45,53 @@ public interface AuthorRepository extends BaseRepository<Author> {
    * @return A Page object containing the requested authors.
    */
   Page<Author> searchAuthors(AuthorSearchCriteria criteria, PageRequest pageRequest);
+
+  /**
+   * Retrieves a keyset-paginated list of authors based on search criteria.
+   * @param criteria The search criteria for authors.
+   * @param pageRequest The page size, sorting and continuation token.
+   * @return A CursorPage object containing the requested authors.
+   */
+  CursorPage<Author> searchAuthors(AuthorSearchCriteria criteria, CursorPageRequest pageRequest);
+
+  /**
+   * Retrieves a slice of authors based on search criteria without a separate COUNT query.
+   * @param criteria The search criteria for authors.
+   * @param pageRequest The pagination and sorting information.
+   * @param totalCountStrategy How the optional total is obtained.
+   * @return A Slice object containing the requested authors.
+   */
+  Slice<Author> searchAuthors(AuthorSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy);
+
+  /**
+   * Retrieves a paginated list of authors as read-only projections, selecting only the projected columns.
+   * @param <R> The projection result type.
+   * @param criteria The search criteria for authors.
+   * @param pageRequest The pagination and sorting information.
+   * @param projection The columns to select and how to build a result from them.
+   * @return A Page object containing the projected authors.
+   */
+  <R> Page<R> searchAuthors(AuthorSearchCriteria criteria, PageRequest pageRequest, Projection<Author, R> projection);
+
+  /**
+   * Retrieves a keyset-paginated list of authors as read-only projections.
+   * @param <R> The projection result type.
+   * @param criteria The search criteria for authors.
+   * @param pageRequest The page size, sorting and continuation token.
+   * @param projection The columns to select and how to build a result from them.
+   * @return A CursorPage object containing the projected authors.
+   */
+  <R> CursorPage<R> searchAuthors(AuthorSearchCriteria criteria, CursorPageRequest pageRequest, Projection<Author, R> projection);
+
+  /**
+   * Retrieves a slice of authors as read-only projections without a separate COUNT query.
+   * @param <R> The projection result type.
+   * @param criteria The search criteria for authors.
+   * @param pageRequest The pagination and sorting information.
+   * @param totalCountStrategy How the optional total is obtained.
+   * @param projection The columns to select and how to build a result from them.
+   * @return A Slice object containing the projected authors.
+   */
+  <R> Slice<R> searchAuthors(AuthorSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy,
+                             Projection<Author, R> projection);
 }
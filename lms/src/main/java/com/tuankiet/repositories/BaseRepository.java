@@ -1,12 +1,19 @@
 package com.tuankiet.repositories;
 
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
 import com.tuankiet.entities.BaseEntity;
+import com.tuankiet.repositories.support.FetchPlan;
+import com.tuankiet.repositories.support.Projection;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
 * Generic repository interface for common CRUD operations.
@@ -25,6 +32,34 @@ public interface BaseRepository<T extends BaseEntity> {
    */
   T save(T entity);
 
+  /**
+   * Saves a collection of entities in one session, using JDBC batching with the configured batch size.
+   * The session is flushed after every batch and the batch's entities are detached, so the returned
+   * entities are detached; other entities of the session stay managed.
+   * @param entities The entities to save or update.
+   * @return The saved or updated entities, in input order.
+   */
+  List<T> saveAll(Collection<T> entities);
+
+  /**
+   * Saves a collection of entities in one session, flushing and detaching them every {@code batchSize} rows.
+   * @param entities The entities to save or update.
+   * @param batchSize The JDBC batch size and flush interval.
+   * @return The saved or updated entities, in input order.
+   */
+  List<T> saveAll(Collection<T> entities, int batchSize);
+
+  /**
+   * Inserts new entities streamed from an iterator, keeping at most one batch in memory.
+   * With {@code stateless} the rows are written through a {@link org.hibernate.StatelessSession}
+   * on the current transaction's connection, bypassing the persistence context and entity callbacks.
+   * @param entities The new entities to insert.
+   * @param batchSize The JDBC batch size and flush interval.
+   * @param stateless Whether to insert through a stateless session.
+   * @return The number of inserted entities.
+   */
+  long persistAll(Iterator<T> entities, int batchSize, boolean stateless);
+
   /**
    * Finds an entity by its ID.
    * @param id The ID of the entity.
@@ -32,12 +67,60 @@ public interface BaseRepository<T extends BaseEntity> {
    */
   Optional<T> findById(UUID id);
 
+  /**
+   * Gets a reference to an entity by its ID without loading it.
+   * The entity is only read if the reference is accessed; use it to set associations.
+   * @param id The ID of the entity.
+   * @return The entity reference.
+   */
+  T getReference(UUID id);
+
   /**
    * Retrieves all entities of the given type.
    * @return A list of all entities.
    */
   List<T> findAll();
 
+  /**
+   * Retrieves all entities of the given type, loading the associations of the fetch plan in the same query.
+   * @param fetchPlan The associations to load eagerly.
+   * @return A list of all entities.
+   */
+  List<T> findAll(FetchPlan fetchPlan);
+
+  /**
+   * Finds the entities with the given IDs, with one query per chunk of IDs.
+   * @param ids The IDs of the entities.
+   * @param fetchPlan The associations to load eagerly.
+   * @return The entities found, in no particular order; missing IDs are skipped.
+   */
+  List<T> findAllById(Collection<UUID> ids, FetchPlan fetchPlan);
+
+  /**
+   * Retrieves all entities of the given type as read-only projections, selecting only the projected columns.
+   * @param <R> The projection result type.
+   * @param projection The columns to select and how to build a result from them.
+   * @return A list of all projected results.
+   */
+  <R> List<R> findAll(Projection<T, R> projection);
+
+  /**
+   * Streams all entities of the given type from a forward-only cursor with the default fetch size.
+   * The stream must be consumed inside the calling transaction and closed afterwards.
+   * @return A stream of all entities.
+   */
+  Stream<T> streamAll();
+
+  /**
+   * Streams all entities of the given type from a forward-only cursor.
+   * The session is cleared every {@code fetchSize} rows, so earlier rows become detached
+   * and memory stays flat; each row must be fully processed before the next one is read.
+   * Outside a read-only transaction, pending changes are flushed before each clear.
+   * @param fetchSize The JDBC fetch size and session clearing interval.
+   * @return A stream of all entities.
+   */
+  Stream<T> streamAll(int fetchSize);
+
   /**
    * Retrieves a paginated list of entities.
    * @param pageRequest The pagination and sorting information.
@@ -45,6 +128,14 @@ public interface BaseRepository<T extends BaseEntity> {
    */
   Page<T> findAll(PageRequest pageRequest);
 
+  /**
+   * Retrieves a keyset-paginated list of entities.
+   * Each page is located by an index seek from the previous page's cursor instead of an offset.
+   * @param pageRequest The page size, sorting and continuation token.
+   * @return A CursorPage object containing the requested entities.
+   */
+  CursorPage<T> findAll(CursorPageRequest pageRequest);
+
   /**
    * Deletes an entity by its ID.
    * @param id The ID of the entity to delete.
@@ -52,6 +143,20 @@ public interface BaseRepository<T extends BaseEntity> {
    */
   boolean deleteById(UUID id);
 
+  /**
+   * Deletes all entities of this type with set-based statements, bypassing the persistence context.
+   * Rows are removed in id-range chunks small enough to avoid table lock escalation.
+   * @return The number of deleted rows.
+   */
+  long deleteAll();
+
+  /**
+   * Deletes all entities of this type in id-range chunks of the given size.
+   * @param chunkSize The maximum number of rows removed per DELETE statement.
+   * @return The number of deleted rows.
+   */
+  long deleteAll(int chunkSize);
+
   /**
    * Checks if an entity with the given ID exists.
    * @param id The ID of the entity.
@@ -64,4 +169,10 @@ public interface BaseRepository<T extends BaseEntity> {
    * @return The total count of entities.
    */
   long count();
+
+  /**
+   * Finds the IDs of all entities, selecting the ID column only.
+   * @return The IDs of all entities, in ID order.
+   */
+  List<UUID> findAllIds();
 }
@@ -1,10 +1,20 @@
 package com.tuankiet.repositories;
 
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Slice;
+import com.tuankiet.dto.common.TotalCountStrategy;
+import com.tuankiet.dto.response.BookBorrowingStats;
 import com.tuankiet.dto.search.BookSearchCriteria;
 import com.tuankiet.entities.Book;
+import com.tuankiet.repositories.support.Projection;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -34,6 +44,14 @@ public interface BookRepository extends BaseRepository<Book> {
      */
     boolean existsByIsbn(String isbn);
     
+    /**
+     * Find which of the given ISBNs are already taken, with one query per chunk of ISBNs.
+     * 
+     * @param isbns the ISBNs to check
+     * @return the ISBNs that already exist
+     */
+    List<String> findExistingIsbns(Collection<String> isbns);
+    
     /**
      * Search books based on criteria with pagination and sorting.
      * 
@@ -43,6 +61,96 @@ public interface BookRepository extends BaseRepository<Book> {
      */
     Page<Book> searchBooks(BookSearchCriteria criteria, PageRequest pageRequest);
     
+    /**
+     * Search books based on criteria with keyset (seek) pagination.
+     * 
+     * @param criteria the search criteria
+     * @param pageRequest the page size, sorting and continuation token
+     * @return a cursor page of books matching the criteria
+     */
+    CursorPage<Book> searchBooks(BookSearchCriteria criteria, CursorPageRequest pageRequest);
+    
+    /**
+     * Search books based on criteria, returning a slice instead of a counted page.
+     * The next page is detected by fetching one extra row; the total is only computed
+     * as requested by the strategy.
+     * 
+     * @param criteria the search criteria
+     * @param pageRequest the pagination and sorting information
+     * @param totalCountStrategy how the optional total is obtained
+     * @return a slice of books matching the criteria
+     */
+    Slice<Book> searchBooks(BookSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy);
+
+    /**
+     * Retrieves a paginated list of books as read-only projections, selecting only the projected columns.
+     * @param <R> The projection result type.
+     * @param criteria The search criteria for books.
+     * @param pageRequest The pagination and sorting information.
+     * @param projection The columns to select and how to build a result from them.
+     * @return A Page object containing the projected books.
+     */
+    <R> Page<R> searchBooks(BookSearchCriteria criteria, PageRequest pageRequest, Projection<Book, R> projection);
+
+    /**
+     * Retrieves a keyset-paginated list of books as read-only projections.
+     * @param <R> The projection result type.
+     * @param criteria The search criteria for books.
+     * @param pageRequest The page size, sorting and continuation token.
+     * @param projection The columns to select and how to build a result from them.
+     * @return A CursorPage object containing the projected books.
+     */
+    <R> CursorPage<R> searchBooks(BookSearchCriteria criteria, CursorPageRequest pageRequest, Projection<Book, R> projection);
+
+    /**
+     * Retrieves a slice of books as read-only projections without a separate COUNT query.
+     * @param <R> The projection result type.
+     * @param criteria The search criteria for books.
+     * @param pageRequest The pagination and sorting information.
+     * @param totalCountStrategy How the optional total is obtained.
+     * @param projection The columns to select and how to build a result from them.
+     * @return A Slice object containing the projected books.
+     */
+    <R> Slice<R> searchBooks(BookSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy,
+                             Projection<Book, R> projection);
+    
+    /**
+     * Read the current available copies of the given books, with one query per chunk of IDs.
+     * 
+     * @param bookIds the IDs of the books
+     * @return the available copies by book ID; books that do not exist are missing
+     */
+    Map<UUID, Integer> findAvailableCopies(Collection<UUID> bookIds);
+
+    /**
+     * Read the current available copies of all books, streaming the id and count columns only.
+     * 
+     * @return the available copies by book ID
+     */
+    Map<UUID, Integer> findAllAvailableCopies();
+    
+    /**
+     * Atomically take copies of a book, in a single conditional UPDATE that only succeeds
+     * if enough copies are available. No prior read or lock is needed: concurrent callers
+     * cannot oversell because the database serializes the updates on the row. Only this book
+     * is evicted from the second-level cache.
+     * 
+     * @param bookId the ID of the book
+     * @param quantity the number of copies to take
+     * @return the number of rows updated: 1 on success, 0 if the book does not exist or has too few copies
+     */
+    int decrementAvailableCopies(UUID bookId, int quantity);
+    
+    /**
+     * Atomically give back copies of a book, in a single conditional UPDATE that only succeeds
+     * if the available copies stay within the total copies.
+     * 
+     * @param bookId the ID of the book
+     * @param quantity the number of copies to give back
+     * @return the number of rows updated: 1 on success, 0 if the book does not exist or would exceed its total copies
+     */
+    int incrementAvailableCopies(UUID bookId, int quantity);
+    
     /**
      * Count the number of borrowed copies for a specific book.
      * 
@@ -50,4 +158,41 @@ public interface BookRepository extends BaseRepository<Book> {
      * @return the number of currently borrowed copies
      */
     long countBorrowedCopies(UUID bookId);
+
+    /**
+     * Atomically add to the loan counters of a book, in the caller's transaction.
+     * 
+     * @param bookId the ID of the book
+     * @param borrows the change of total borrows
+     * @param activeLoans the change of active loans
+     * @param overdueLoans the change of overdue loans
+     * @param borrowDate a borrow date to record as the last one if it is later, or null
+     * @return the number of rows updated: 1 on success, 0 if the book does not exist
+     */
+    int adjustLoanCounters(UUID bookId, long borrows, long activeLoans, long overdueLoans, LocalDate borrowDate);
+
+    /**
+     * Recompute the loan counters of books from their borrowings.
+     * 
+     * @param bookIds the IDs of the books
+     * @return the number of rows updated
+     */
+    int recountLoanCounters(Collection<UUID> bookIds);
+
+    /**
+     * Recompute the loan counters of the books the given borrowings refer to, e.g. after their status was
+     * changed by a set-based update.
+     * 
+     * @param borrowingIds the IDs of the borrowings
+     * @return the number of rows updated
+     */
+    int recountLoanCountersOfBorrowings(Collection<UUID> borrowingIds);
+
+    /**
+     * Read the borrowing statistics of books from their loan counters, without reading the borrowings.
+     * 
+     * @param bookIds the IDs of the books
+     * @return the statistics by book ID; books that do not exist are missing
+     */
+    Map<UUID, BookBorrowingStats> findBorrowingStats(Collection<UUID> bookIds);
 }
@@ -1,15 +1,28 @@
 package com.tuankiet.repositories;
 
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Slice;
+import com.tuankiet.dto.common.TotalCountStrategy;
+import com.tuankiet.dto.response.DailyBorrowingSummary;
 import com.tuankiet.dto.search.BorrowingSearchCriteria;
 import com.tuankiet.entities.Borrowing;
 import com.tuankiet.entities.Book;
 import com.tuankiet.entities.Member;
+import com.tuankiet.enums.BookCategory;
 import com.tuankiet.enums.BorrowingStatus;
+import com.tuankiet.repositories.support.FetchPlan;
+import com.tuankiet.repositories.support.Projection;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
 * Repository interface for Borrowing entities.
@@ -28,6 +41,14 @@ public interface BorrowingRepository extends BaseRepository<Borrowing> {
    */
   List<Borrowing> findByBookId(UUID bookId);
 
+  /**
+   * Finds all borrowing records for a specific book, loading the associations of the fetch plan in the same query.
+   * @param bookId The ID of the book.
+   * @param fetchPlan The associations to load eagerly.
+   * @return A list of borrowing records for the book.
+   */
+  List<Borrowing> findByBookId(UUID bookId, FetchPlan fetchPlan);
+
   /**
    * Finds all borrowing records for a specific member.
    * @param memberId The ID of the member.
@@ -35,6 +56,14 @@ public interface BorrowingRepository extends BaseRepository<Borrowing> {
    */
   List<Borrowing> findByMemberId(UUID memberId);
 
+  /**
+   * Finds all borrowing records for a specific member, loading the associations of the fetch plan in the same query.
+   * @param memberId The ID of the member.
+   * @param fetchPlan The associations to load eagerly.
+   * @return A list of borrowing records for the member.
+   */
+  List<Borrowing> findByMemberId(UUID memberId, FetchPlan fetchPlan);
+
   /**
    * Finds all borrowing records with a specific status.
    * @param status The status of the borrowing record.
@@ -42,6 +71,110 @@ public interface BorrowingRepository extends BaseRepository<Borrowing> {
    */
   List<Borrowing> findByStatus(BorrowingStatus status);
 
+  /**
+   * Finds all borrowing records with a specific status, loading the associations of the fetch plan in the same query.
+   * @param status The status of the borrowing record.
+   * @param fetchPlan The associations to load eagerly.
+   * @return A list of borrowing records with the given status.
+   */
+  List<Borrowing> findByStatus(BorrowingStatus status, FetchPlan fetchPlan);
+
+  /**
+   * Streams projections of the borrowing records with a specific status.
+   * The stream must be consumed inside the calling transaction and closed afterwards.
+   * @param <R> The projection result type.
+   * @param status The status of the borrowing record.
+   * @param projection The columns to select and how to build a result from them.
+   * @param fetchSize The JDBC fetch size.
+   * @return A stream of projected borrowing records with the given status.
+   */
+  <R> Stream<R> streamByStatus(BorrowingStatus status, Projection<Borrowing, R> projection, int fetchSize);
+
+  /**
+   * Streams projections of all borrowing records for a specific member.
+   * @param <R> The projection result type.
+   * @param memberId The ID of the member.
+   * @param projection The columns to select and how to build a result from them.
+   * @param fetchSize The JDBC fetch size.
+   * @return A stream of projected borrowing records for the member.
+   */
+  <R> Stream<R> streamByMemberId(UUID memberId, Projection<Borrowing, R> projection, int fetchSize);
+
+  /**
+   * Streams projections of all borrowing records for a specific book.
+   * @param <R> The projection result type.
+   * @param bookId The ID of the book.
+   * @param projection The columns to select and how to build a result from them.
+   * @param fetchSize The JDBC fetch size.
+   * @return A stream of projected borrowing records for the book.
+   */
+  <R> Stream<R> streamByBookId(UUID bookId, Projection<Borrowing, R> projection, int fetchSize);
+
+  /**
+   * Streams projections of overdue borrowing records: those marked OVERDUE and those still BORROWED past their due date.
+   * @param <R> The projection result type.
+   * @param today The date against which due dates are compared.
+   * @param projection The columns to select and how to build a result from them.
+   * @param fetchSize The JDBC fetch size.
+   * @return A stream of projected overdue borrowing records.
+   */
+  <R> Stream<R> streamOverdue(LocalDate today, Projection<Borrowing, R> projection, int fetchSize);
+
+  /**
+   * Streams projections of borrowing records whose borrow date lies within the given range (inclusive).
+   * @param <R> The projection result type.
+   * @param startDate The start date of the range.
+   * @param endDate The end date of the range.
+   * @param projection The columns to select and how to build a result from them.
+   * @param fetchSize The JDBC fetch size.
+   * @return A stream of projected borrowing records borrowed within the range.
+   */
+  <R> Stream<R> streamByBorrowDateBetween(LocalDate startDate, LocalDate endDate, Projection<Borrowing, R> projection, int fetchSize);
+
+  /**
+   * Streams projections of borrowing records whose borrow date lies within the given range (inclusive),
+   * optionally restricted to a status and a book category.
+   * @param <R> The projection result type.
+   * @param startDate The start date of the range.
+   * @param endDate The end date of the range.
+   * @param status The status to match, or null for any status.
+   * @param category The book category to match, or null for any category.
+   * @param projection The columns to select and how to build a result from them.
+   * @param fetchSize The JDBC fetch size.
+   * @return A stream of projected borrowing records borrowed within the range, ordered by borrow date.
+   */
+  <R> Stream<R> streamByBorrowDateBetween(LocalDate startDate, LocalDate endDate, BorrowingStatus status, BookCategory category,
+                                          Projection<Borrowing, R> projection, int fetchSize);
+
+  /**
+   * Counts the borrowing records per borrow date and book category within the given range (inclusive),
+   * with one GROUP BY query, optionally restricted to a status and a book category.
+   * @param startDate The start date of the range.
+   * @param endDate The end date of the range.
+   * @param status The status to match, or null for any status.
+   * @param category The book category to match, or null for any category.
+   * @return The counts, ordered by borrow date and category; days without borrowings are missing.
+   */
+  List<DailyBorrowingSummary> summarizeByBorrowDate(LocalDate startDate, LocalDate endDate, BorrowingStatus status, BookCategory category);
+
+  /**
+   * Finds the IDs of BORROWED records whose due date is before the given day, in due date order,
+   * reading the (status, due date) index.
+   * @param today The current date.
+   * @param limit The maximum number of IDs to return.
+   * @return The IDs of at most {@code limit} borrowings that are due to be marked overdue.
+   */
+  List<UUID> findOverdueCandidateIds(LocalDate today, int limit);
+
+  /**
+   * Marks the given borrowing records as OVERDUE with one set-based UPDATE. Records that are no longer
+   * BORROWED, or no longer past their due date, e.g. because they were returned meanwhile, are left as they are.
+   * @param borrowingIds The IDs of the borrowings, as found by {@link #findOverdueCandidateIds}.
+   * @param today The current date.
+   * @return The number of records marked overdue.
+   */
+  int markOverdue(Collection<UUID> borrowingIds, LocalDate today);
+
   /**
    * Finds active borrowing records (not returned) for a specific book and member.
    * @param book The book involved in the borrowing.
@@ -50,6 +183,13 @@ public interface BorrowingRepository extends BaseRepository<Borrowing> {
    */
   List<Borrowing> findActiveBorrowings(Book book, Member member);
 
+  /**
+   * Finds which members have an active borrowing of each of the given books, with one query per chunk of books.
+   * @param bookIds The IDs of the books.
+   * @return The IDs of the members with an active borrowing, by book ID; books without any are missing.
+   */
+  Map<UUID, Set<UUID>> findActiveBorrowerIds(Collection<UUID> bookIds);
+
   /**
    * Counts the number of borrowed copies for a specific book.
    * @param bookId The ID of the book.
@@ -64,4 +204,82 @@ public interface BorrowingRepository extends BaseRepository<Borrowing> {
    * @return A Page object containing the requested borrowing records.
    */
   Page<Borrowing> searchBorrowings(BorrowingSearchCriteria criteria, PageRequest pageRequest);
+
+  /**
+   * Retrieves a paginated list of borrowing records, loading the associations of the fetch plan in the same query.
+   * @param criteria The search criteria for borrowing records.
+   * @param pageRequest The pagination and sorting information.
+   * @param fetchPlan The associations to load eagerly.
+   * @return A Page object containing the requested borrowing records.
+   */
+  Page<Borrowing> searchBorrowings(BorrowingSearchCriteria criteria, PageRequest pageRequest, FetchPlan fetchPlan);
+
+  /**
+   * Retrieves a keyset-paginated list of borrowing records based on search criteria.
+   * @param criteria The search criteria for borrowing records.
+   * @param pageRequest The page size, sorting and continuation token.
+   * @return A CursorPage object containing the requested borrowing records.
+   */
+  CursorPage<Borrowing> searchBorrowings(BorrowingSearchCriteria criteria, CursorPageRequest pageRequest);
+
+  /**
+   * Retrieves a keyset-paginated list of borrowing records, loading the associations of the fetch plan in the same query.
+   * @param criteria The search criteria for borrowing records.
+   * @param pageRequest The page size, sorting and continuation token.
+   * @param fetchPlan The associations to load eagerly.
+   * @return A CursorPage object containing the requested borrowing records.
+   */
+  CursorPage<Borrowing> searchBorrowings(BorrowingSearchCriteria criteria, CursorPageRequest pageRequest, FetchPlan fetchPlan);
+
+  /**
+   * Retrieves a slice of borrowing records based on search criteria without a separate COUNT query.
+   * @param criteria The search criteria for borrowing records.
+   * @param pageRequest The pagination and sorting information.
+   * @param totalCountStrategy How the optional total is obtained.
+   * @return A Slice object containing the requested borrowing records.
+   */
+  Slice<Borrowing> searchBorrowings(BorrowingSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy);
+
+  /**
+   * Retrieves a slice of borrowing records, loading the associations of the fetch plan in the same query.
+   * @param criteria The search criteria for borrowing records.
+   * @param pageRequest The pagination and sorting information.
+   * @param totalCountStrategy How the optional total is obtained.
+   * @param fetchPlan The associations to load eagerly.
+   * @return A Slice object containing the requested borrowing records.
+   */
+  Slice<Borrowing> searchBorrowings(BorrowingSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy,
+                                    FetchPlan fetchPlan);
+
+  /**
+   * Retrieves a paginated list of borrowing records as read-only projections, selecting only the projected columns.
+   * @param <R> The projection result type.
+   * @param criteria The search criteria for borrowing records.
+   * @param pageRequest The pagination and sorting information.
+   * @param projection The columns to select and how to build a result from them.
+   * @return A Page object containing the projected borrowing records.
+   */
+  <R> Page<R> searchBorrowings(BorrowingSearchCriteria criteria, PageRequest pageRequest, Projection<Borrowing, R> projection);
+
+  /**
+   * Retrieves a keyset-paginated list of borrowing records as read-only projections.
+   * @param <R> The projection result type.
+   * @param criteria The search criteria for borrowing records.
+   * @param pageRequest The page size, sorting and continuation token.
+   * @param projection The columns to select and how to build a result from them.
+   * @return A CursorPage object containing the projected borrowing records.
+   */
+  <R> CursorPage<R> searchBorrowings(BorrowingSearchCriteria criteria, CursorPageRequest pageRequest, Projection<Borrowing, R> projection);
+
+  /**
+   * Retrieves a slice of borrowing records as read-only projections without a separate COUNT query.
+   * @param <R> The projection result type.
+   * @param criteria The search criteria for borrowing records.
+   * @param pageRequest The pagination and sorting information.
+   * @param totalCountStrategy How the optional total is obtained.
+   * @param projection The columns to select and how to build a result from them.
+   * @return A Slice object containing the projected borrowing records.
+   */
+  <R> Slice<R> searchBorrowings(BorrowingSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy,
+                                Projection<Borrowing, R> projection);
 }
@@ -1,11 +1,21 @@
 package com.tuankiet.repositories;
 
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Slice;
+import com.tuankiet.dto.common.TotalCountStrategy;
+import com.tuankiet.dto.response.MemberBorrowingStats;
 import com.tuankiet.dto.search.MemberSearchCriteria;
 import com.tuankiet.entities.Member;
+import com.tuankiet.repositories.support.Projection;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
 * Repository interface for Member entities.
@@ -38,4 +48,85 @@ public interface MemberRepository extends BaseRepository<Member> {
    * @return A Page object containing the requested members.
    */
   Page<Member> searchMembers(MemberSearchCriteria criteria, PageRequest pageRequest);
+
+  /**
+   * Retrieves a keyset-paginated list of members based on search criteria.
+   * @param criteria The search criteria for members.
+   * @param pageRequest The page size, sorting and continuation token.
+   * @return A CursorPage object containing the requested members.
+   */
+  CursorPage<Member> searchMembers(MemberSearchCriteria criteria, CursorPageRequest pageRequest);
+
+  /**
+   * Retrieves a slice of members based on search criteria without a separate COUNT query.
+   * @param criteria The search criteria for members.
+   * @param pageRequest The pagination and sorting information.
+   * @param totalCountStrategy How the optional total is obtained.
+   * @return A Slice object containing the requested members.
+   */
+  Slice<Member> searchMembers(MemberSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy);
+
+  /**
+   * Retrieves a paginated list of members as read-only projections, selecting only the projected columns.
+   * @param <R> The projection result type.
+   * @param criteria The search criteria for members.
+   * @param pageRequest The pagination and sorting information.
+   * @param projection The columns to select and how to build a result from them.
+   * @return A Page object containing the projected members.
+   */
+  <R> Page<R> searchMembers(MemberSearchCriteria criteria, PageRequest pageRequest, Projection<Member, R> projection);
+
+  /**
+   * Retrieves a keyset-paginated list of members as read-only projections.
+   * @param <R> The projection result type.
+   * @param criteria The search criteria for members.
+   * @param pageRequest The page size, sorting and continuation token.
+   * @param projection The columns to select and how to build a result from them.
+   * @return A CursorPage object containing the projected members.
+   */
+  <R> CursorPage<R> searchMembers(MemberSearchCriteria criteria, CursorPageRequest pageRequest, Projection<Member, R> projection);
+
+  /**
+   * Retrieves a slice of members as read-only projections without a separate COUNT query.
+   * @param <R> The projection result type.
+   * @param criteria The search criteria for members.
+   * @param pageRequest The pagination and sorting information.
+   * @param totalCountStrategy How the optional total is obtained.
+   * @param projection The columns to select and how to build a result from them.
+   * @return A Slice object containing the projected members.
+   */
+  <R> Slice<R> searchMembers(MemberSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy,
+                             Projection<Member, R> projection);
+
+  /**
+   * Atomically adds to the loan counters of a member, in the caller's transaction.
+   * @param memberId The ID of the member.
+   * @param borrows The change of total borrows.
+   * @param activeLoans The change of active loans.
+   * @param overdueLoans The change of overdue loans.
+   * @param borrowDate A borrow date to record as the last one if it is later, or null.
+   * @return The number of rows updated: 1 on success, 0 if the member does not exist.
+   */
+  int adjustLoanCounters(UUID memberId, long borrows, long activeLoans, long overdueLoans, LocalDate borrowDate);
+
+  /**
+   * Recomputes the loan counters of members from their borrowings.
+   * @param memberIds The IDs of the members.
+   * @return The number of rows updated.
+   */
+  int recountLoanCounters(Collection<UUID> memberIds);
+
+  /**
+   * Recomputes the loan counters of the members the given borrowings refer to.
+   * @param borrowingIds The IDs of the borrowings.
+   * @return The number of rows updated.
+   */
+  int recountLoanCountersOfBorrowings(Collection<UUID> borrowingIds);
+
+  /**
+   * Reads the borrowing statistics of members from their loan counters, without reading the borrowings.
+   * @param memberIds The IDs of the members.
+   * @return The statistics by member ID; members that do not exist are missing.
+   */
+  Map<UUID, MemberBorrowingStats> findBorrowingStats(Collection<UUID> memberIds);
 }
@@ -1,23 +1,26 @@
 package com.tuankiet.repositories.impl;
 
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Slice;
+import com.tuankiet.dto.common.TotalCountStrategy;
 import com.tuankiet.dto.search.AuthorSearchCriteria;
 import com.tuankiet.entities.Author;
 import com.tuankiet.repositories.AuthorRepository;
+import com.tuankiet.repositories.support.FetchPlan;
+import com.tuankiet.repositories.support.HqlFilter;
+import com.tuankiet.repositories.support.Projection;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
-import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 
 /**
@@ -38,7 +41,8 @@ public class AuthorRepositoryImpl extends BaseRepositoryImpl<Author> implements
 
   @Override
   public Optional<Author> findByFirstNameAndLastName(String firstName, String lastName) {
-      try (Session session = sessionFactory.openSession()) {
+      try {
+          Session session = currentSession();
           CriteriaBuilder cb = session.getCriteriaBuilder();
           CriteriaQuery<Author> cq = cb.createQuery(Author.class);
           Root<Author> root = cq.from(Author.class);
@@ -55,7 +59,8 @@ public class AuthorRepositoryImpl extends BaseRepositoryImpl<Author> implements
 
   @Override
   public boolean existsByFirstNameAndLastName(String firstName, String lastName) {
-      try (Session session = sessionFactory.openSession()) {
+      try {
+          Session session = currentSession();
           CriteriaBuilder cb = session.getCriteriaBuilder();
           CriteriaQuery<Long> cq = cb.createQuery(Long.class);
           Root<Author> root = cq.from(Author.class);
@@ -73,48 +78,96 @@ public class AuthorRepositoryImpl extends BaseRepositoryImpl<Author> implements
 
   @Override
   public Page<Author> searchAuthors(AuthorSearchCriteria criteria, PageRequest pageRequest) {
-      try (Session session = sessionFactory.openSession()) {
-          CriteriaBuilder cb = session.getCriteriaBuilder();
-          CriteriaQuery<Author> cq = cb.createQuery(Author.class);
-          Root<Author> root = cq.from(Author.class);
-          List<Predicate> predicates = new ArrayList<>();
-
-          if (criteria.getFirstName() != null && !criteria.getFirstName().isEmpty()) {
-              predicates.add(cb.like(cb.lower(root.get("firstName")), "%" + criteria.getFirstName().toLowerCase() + "%"));
-          }
-          if (criteria.getLastName() != null && !criteria.getLastName().isEmpty()) {
-              predicates.add(cb.like(cb.lower(root.get("lastName")), "%" + criteria.getLastName().toLowerCase() + "%"));
-          }
-
-          cq.where(predicates.toArray(new Predicate[0]));
+      try {
+          Session session = currentSession();
+          Page<Author> page = page(session, pageRequest, entityProjection(session, FetchPlan.NONE), filter(criteria));
+          logger.debug("Found {} authors for search criteria and page {}", page.getContent().size(), pageRequest.getPage());
+          return page;
+      } catch (Exception e) {
+          logger.error("Error searching authors: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to search authors: " + e.getMessage(), e);
+      }
+  }
 
-          if (pageRequest.getSort().isSorted()) {
-              pageRequest.getSort().getCriteria().forEach(sortCriteria -> {
-                  if (sortCriteria.getDirection() == com.tuankiet.dto.common.SortDirection.ASC) {
-                      cq.orderBy(cb.asc(root.get(sortCriteria.getField())));
-                  } else {
-                      cq.orderBy(cb.desc(root.get(sortCriteria.getField())));
-                  }
-              });
-          }
+  @Override
+  public CursorPage<Author> searchAuthors(AuthorSearchCriteria criteria, CursorPageRequest pageRequest) {
+      try {
+          Session session = currentSession();
+          CursorPage<Author> page = seek(session, pageRequest, entityProjection(session, FetchPlan.NONE), filter(criteria));
+          logger.debug("Found {} authors for search criteria after cursor {}", page.getContent().size(), pageRequest.getCursor());
+          return page;
+      } catch (Exception e) {
+          logger.error("Error searching authors with cursor: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to search authors with cursor: " + e.getMessage(), e);
+      }
+  }
 
-          Query<Author> query = session.createQuery(cq);
-          query.setFirstResult((int) pageRequest.getOffset());
-          query.setMaxResults(pageRequest.getSize());
+  @Override
+  public Slice<Author> searchAuthors(AuthorSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy) {
+      try {
+          Session session = currentSession();
+          Slice<Author> slice = slice(session, pageRequest, totalCountStrategy, criteria.toString(),
+                  entityProjection(session, FetchPlan.NONE), filter(criteria));
+          logger.debug("Found {} authors for search criteria and page {} (total: {})",
+                  slice.getContent().size(), pageRequest.getPage(), slice.getTotalElements());
+          return slice;
+      } catch (Exception e) {
+          logger.error("Error searching authors slice: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to search authors: " + e.getMessage(), e);
+      }
+  }
 
-          List<Author> content = query.getResultList();
+  @Override
+  public <R> Page<R> searchAuthors(AuthorSearchCriteria criteria, PageRequest pageRequest, Projection<Author, R> projection) {
+      try {
+          Session session = currentSession();
+          Page<R> page = page(session, pageRequest, projection, filter(criteria));
+          logger.debug("Found {} projected authors for search criteria and page {}", page.getContent().size(), pageRequest.getPage());
+          return page;
+      } catch (Exception e) {
+          logger.error("Error searching authors: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to search authors: " + e.getMessage(), e);
+      }
+  }
 
-          // Count total elements for pagination
-          CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
-          Root<Author> countRoot = countQuery.from(Author.class);
-          countQuery.select(cb.count(countRoot)).where(predicates.toArray(new Predicate[0]));
-          long totalElements = session.createQuery(countQuery).getSingleResult();
+  @Override
+  public <R> CursorPage<R> searchAuthors(AuthorSearchCriteria criteria, CursorPageRequest pageRequest, Projection<Author, R> projection) {
+      try {
+          Session session = currentSession();
+          CursorPage<R> page = seek(session, pageRequest, projection, filter(criteria));
+          logger.debug("Found {} projected authors for search criteria after cursor {}", page.getContent().size(), pageRequest.getCursor());
+          return page;
+      } catch (Exception e) {
+          logger.error("Error searching authors with cursor: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to search authors with cursor: " + e.getMessage(), e);
+      }
+  }
 
-          logger.debug("Found {} authors for search criteria and page {}", content.size(), pageRequest.getPage());
-          return new Page<>(content, totalElements, pageRequest.getPage(), pageRequest.getSize());
+  @Override
+  public <R> Slice<R> searchAuthors(AuthorSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy,
+                                    Projection<Author, R> projection) {
+      try {
+          Session session = currentSession();
+          Slice<R> slice = slice(session, pageRequest, totalCountStrategy, criteria.toString(), projection,
+                  filter(criteria));
+          logger.debug("Found {} projected authors for search criteria and page {} (total: {})",
+                  slice.getContent().size(), pageRequest.getPage(), slice.getTotalElements());
+          return slice;
       } catch (Exception e) {
-          logger.error("Error searching authors: {}", e.getMessage(), e);
+          logger.error("Error searching authors slice: {}", e.getMessage(), e);
           throw new RuntimeException("Failed to search authors: " + e.getMessage(), e);
       }
   }
+
+  private HqlFilter filter(AuthorSearchCriteria criteria) {
+      HqlFilter filter = new HqlFilter("a");
+
+      if (criteria.getFirstName() != null && !criteria.getFirstName().isEmpty()) {
+          filter.and("LOWER(a.firstName) LIKE :firstName", "firstName", "%" + criteria.getFirstName().toLowerCase() + "%");
+      }
+      if (criteria.getLastName() != null && !criteria.getLastName().isEmpty()) {
+          filter.and("LOWER(a.lastName) LIKE :lastName", "lastName", "%" + criteria.getLastName().toLowerCase() + "%");
+      }
+      return filter;
+  }
 }
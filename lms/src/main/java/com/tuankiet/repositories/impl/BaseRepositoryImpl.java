@@ -1,26 +1,72 @@
 package com.tuankiet.repositories.impl;
 
+import com.tuankiet.config.DatabaseProperties;
+import com.tuankiet.dto.common.Cursor;
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Sort;
 import com.tuankiet.dto.common.SortCriteria;
+import com.tuankiet.dto.common.Slice;
+import com.tuankiet.dto.common.SortDirection;
+import com.tuankiet.dto.common.TotalCountStrategy;
 import com.tuankiet.entities.BaseEntity;
 import com.tuankiet.repositories.BaseRepository;
+import com.tuankiet.repositories.support.CountCache;
+import com.tuankiet.repositories.support.FetchPlan;
+import com.tuankiet.repositories.support.HqlFilter;
+import com.tuankiet.repositories.support.Projection;
+import com.tuankiet.repositories.support.QueryShape;
+import com.tuankiet.repositories.support.QueryShapeCache;
+import com.tuankiet.repositories.support.SearchResultCache;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.FetchParent;
+import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.AttributeNode;
+import jakarta.persistence.Subgraph;
+import jakarta.persistence.Tuple;
+import org.hibernate.FlushMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.lang.reflect.ParameterizedType;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
 * Generic implementation of the BaseRepository interface.
@@ -39,8 +85,35 @@ public abstract class BaseRepositoryImpl<T extends BaseEntity> implements BaseRe
   @Autowired
   protected SessionFactory sessionFactory;
 
+  @Autowired
+  protected CountCache countCache;
+
+  @Autowired
+  protected QueryShapeCache queryShapeCache;
+
+  @Autowired
+  protected SearchResultCache searchResultCache;
+
+  @Autowired
+  protected DatabaseProperties databaseProperties;
+
+  private static final int DEFAULT_BATCH_SIZE = 20;
+
+  protected static final int DEFAULT_FETCH_SIZE = 500;
+
+  // SQL Server escalates to a table lock once a statement holds about 5000 row locks
+  private static final int DEFAULT_DELETE_CHUNK_SIZE = 4000;
+
+  private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+  private static final String ROOT_ALIAS = "e";
+
+  private static final Pattern SORT_FIELD = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
   private final Class<T> entityClass;
 
+  private final Map<FetchPlan, Projection<T, T>> entityProjections = new ConcurrentHashMap<>();
+
   @SuppressWarnings("unchecked")
   public BaseRepositoryImpl() {
       this.entityClass = (Class<T>) ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0];
@@ -48,30 +121,156 @@ public abstract class BaseRepositoryImpl<T extends BaseEntity> implements BaseRe
 
   @Override
   public T save(T entity) {
-      Transaction transaction = null;
-      try (Session session = sessionFactory.openSession()) {
-          transaction = session.beginTransaction();
+      try {
+          Session session = currentSession();
+          T saved;
           if (entity.getId() == null) {
               session.persist(entity);
+              saved = entity;
               logger.debug("Persisted new entity: {}", entity);
           } else {
-              session.merge(entity);
+              saved = session.merge(entity);
               logger.debug("Merged existing entity: {}", entity);
           }
-          transaction.commit();
-          return entity;
+          invalidateCachedSearches();
+          return saved;
       } catch (Exception e) {
-          if (transaction != null) {
-              transaction.rollback();
-          }
           logger.error("Error saving entity {}: {}", entityClass.getSimpleName(), e.getMessage(), e);
           throw new RuntimeException("Failed to save entity: " + e.getMessage(), e);
       }
   }
 
+  @Override
+  public List<T> saveAll(Collection<T> entities) {
+      int configuredBatchSize = databaseProperties.getHibernateJdbcBatchSize();
+      return saveAll(entities, configuredBatchSize > 0 ? configuredBatchSize : DEFAULT_BATCH_SIZE);
+  }
+
+  @Override
+  public List<T> saveAll(Collection<T> entities, int batchSize) {
+      if (batchSize < 1) {
+          throw new IllegalArgumentException("Batch size must not be less than one!");
+      }
+      try {
+          Session session = currentSession();
+          Integer previousBatchSize = session.getJdbcBatchSize();
+          session.setJdbcBatchSize(batchSize);
+          try {
+              List<T> saved = new ArrayList<>(entities.size());
+              List<T> batch = new ArrayList<>(batchSize);
+              for (T entity : entities) {
+                  T managed;
+                  if (entity.getId() == null) {
+                      session.persist(entity);
+                      managed = entity;
+                  } else {
+                      managed = session.merge(entity);
+                  }
+                  saved.add(managed);
+                  batch.add(managed);
+                  if (batch.size() == batchSize) {
+                      flushAndDetach(session, batch);
+                  }
+              }
+              flushAndDetach(session, batch);
+              invalidateCachedSearches();
+              logger.debug("Saved {} entities of type {} in batches of {}", saved.size(), entityClass.getSimpleName(), batchSize);
+              return saved;
+          } finally {
+              session.setJdbcBatchSize(previousBatchSize);
+          }
+      } catch (Exception e) {
+          logger.error("Error saving entities {} in bulk: {}", entityClass.getSimpleName(), e.getMessage(), e);
+          throw new RuntimeException("Failed to save entities in bulk: " + e.getMessage(), e);
+      }
+  }
+
+  @Override
+  public long persistAll(Iterator<T> entities, int batchSize, boolean stateless) {
+      if (batchSize < 1) {
+          throw new IllegalArgumentException("Batch size must not be less than one!");
+      }
+      try {
+          Session session = currentSession();
+          long inserted = stateless
+                  ? insertStateless(session, entities, batchSize)
+                  : insertStateful(session, entities, batchSize);
+          invalidateCachedSearches();
+          logger.debug("Inserted {} entities of type {} in batches of {} (stateless: {})",
+                  inserted, entityClass.getSimpleName(), batchSize, stateless);
+          return inserted;
+      } catch (Exception e) {
+          logger.error("Error inserting entities {} in bulk: {}", entityClass.getSimpleName(), e.getMessage(), e);
+          throw new RuntimeException("Failed to insert entities in bulk: " + e.getMessage(), e);
+      }
+  }
+
+  private long insertStateful(Session session, Iterator<T> entities, int batchSize) {
+      Integer previousBatchSize = session.getJdbcBatchSize();
+      session.setJdbcBatchSize(batchSize);
+      try {
+          long inserted = 0;
+          List<T> batch = new ArrayList<>(batchSize);
+          while (entities.hasNext()) {
+              T entity = entities.next();
+              session.persist(entity);
+              batch.add(entity);
+              inserted++;
+              if (batch.size() == batchSize) {
+                  flushAndDetach(session, batch);
+              }
+          }
+          flushAndDetach(session, batch);
+          return inserted;
+      } finally {
+          session.setJdbcBatchSize(previousBatchSize);
+      }
+  }
+
+  /**
+   * Flushes a batch and detaches the entities it wrote, which bounds the persistence context of a bulk
+   * write. Other entities the caller loaded in the same transaction stay managed, unlike with a clear().
+   */
+  private void flushAndDetach(Session session, List<T> batch) {
+      session.flush();
+      batch.forEach(session::detach);
+      batch.clear();
+  }
+
+  /**
+   * Inserts through a stateless session sharing the current transaction's JDBC connection,
+   * so the rows commit or roll back with the surrounding service call.
+   * Entity callbacks do not run here, hence the timestamps are set explicitly.
+   */
+  private long insertStateless(Session session, Iterator<T> entities, int batchSize) {
+      session.flush();
+      long[] inserted = {0};
+      session.doWork(connection -> {
+          try (StatelessSession statelessSession = sessionFactory.withStatelessOptions()
+                  .connection(connection)
+                  .openStatelessSession()) {
+              statelessSession.setJdbcBatchSize(batchSize);
+              while (entities.hasNext()) {
+                  T entity = entities.next();
+                  LocalDateTime now = LocalDateTime.now();
+                  if (entity.getCreatedAt() == null) {
+                      entity.setCreatedAt(now);
+                  }
+                  entity.setUpdatedAt(now);
+                  statelessSession.insert(entity);
+                  inserted[0]++;
+              }
+              // A stateless session has no flush; push out the last partial batch before closing
+              ((SharedSessionContractImplementor) statelessSession).getJdbcCoordinator().executeBatch();
+          }
+      });
+      return inserted[0];
+  }
+
   @Override
   public Optional<T> findById(UUID id) {
-      try (Session session = sessionFactory.openSession()) {
+      try {
+          Session session = currentSession();
           T entity = session.get(entityClass, id);
           logger.debug("Found entity {} with ID {}: {}", entityClass.getSimpleName(), id, entity != null);
           return Optional.ofNullable(entity);
@@ -81,15 +280,32 @@ public abstract class BaseRepositoryImpl<T extends BaseEntity> implements BaseRe
       }
   }
 
+  @Override
+  public T getReference(UUID id) {
+      try {
+          return currentSession().getReference(entityClass, id);
+      } catch (Exception e) {
+          logger.error("Error getting reference to entity {} with ID {}: {}", entityClass.getSimpleName(), id, e.getMessage(), e);
+          throw new RuntimeException("Failed to get entity reference: " + e.getMessage(), e);
+      }
+  }
+
   @Override
   public List<T> findAll() {
-      try (Session session = sessionFactory.openSession()) {
+      return findAll(FetchPlan.NONE);
+  }
+
+  @Override
+  public List<T> findAll(FetchPlan fetchPlan) {
+      try {
+          Session session = currentSession();
           CriteriaBuilder cb = session.getCriteriaBuilder();
           CriteriaQuery<T> cq = cb.createQuery(entityClass);
           Root<T> root = cq.from(entityClass);
+          applyFetchPlan(session, root, fetchPlan);
           cq.select(root);
           List<T> result = session.createQuery(cq).getResultList();
-          logger.debug("Found {} entities of type {}", result.size(), entityClass.getSimpleName());
+          logger.debug("Found {} entities of type {} with fetch plan {}", result.size(), entityClass.getSimpleName(), fetchPlan);
           return result;
       } catch (Exception e) {
           logger.error("Error finding all entities of type {}: {}", entityClass.getSimpleName(), e.getMessage(), e);
@@ -97,9 +313,63 @@ public abstract class BaseRepositoryImpl<T extends BaseEntity> implements BaseRe
       }
   }
 
+  @Override
+  public List<T> findAllById(Collection<UUID> ids, FetchPlan fetchPlan) {
+      try {
+          Session session = currentSession();
+          List<UUID> pending = new ArrayList<>(ids);
+          List<T> result = new ArrayList<>(pending.size());
+          // Stay well below the SQL Server limit of 2100 parameters per statement
+          for (int from = 0; from < pending.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+              List<UUID> chunk = pending.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, pending.size()));
+              HqlFilter filter = new HqlFilter(ROOT_ALIAS).and(ROOT_ALIAS + ".id IN (:ids)", "ids", chunk);
+              result.addAll(list(session, entityProjection(session, fetchPlan), filter, null));
+          }
+          logger.debug("Found {} of {} entities of type {} by ID", result.size(), pending.size(), entityClass.getSimpleName());
+          return result;
+      } catch (Exception e) {
+          logger.error("Error finding entities of type {} by IDs: {}", entityClass.getSimpleName(), e.getMessage(), e);
+          throw new RuntimeException("Failed to find entities by IDs: " + e.getMessage(), e);
+      }
+  }
+
+  @Override
+  public <R> List<R> findAll(Projection<T, R> projection) {
+      try {
+          Session session = currentSession();
+          List<R> result = list(session, projection, new HqlFilter(ROOT_ALIAS), null);
+          logger.debug("Found {} projected entities of type {}", result.size(), entityClass.getSimpleName());
+          return result;
+      } catch (Exception e) {
+          logger.error("Error finding all projected entities of type {}: {}", entityClass.getSimpleName(), e.getMessage(), e);
+          throw new RuntimeException("Failed to find all entities: " + e.getMessage(), e);
+      }
+  }
+
+  @Override
+  public Stream<T> streamAll() {
+      return streamAll(DEFAULT_FETCH_SIZE);
+  }
+
+  @Override
+  public Stream<T> streamAll(int fetchSize) {
+      try {
+          Session session = currentSession();
+          CriteriaBuilder cb = session.getCriteriaBuilder();
+          CriteriaQuery<T> cq = cb.createQuery(entityClass);
+          cq.select(cq.from(entityClass));
+          logger.debug("Streaming entities of type {} with fetch size {}", entityClass.getSimpleName(), fetchSize);
+          return stream(session, session.createQuery(cq), fetchSize);
+      } catch (Exception e) {
+          logger.error("Error streaming entities of type {}: {}", entityClass.getSimpleName(), e.getMessage(), e);
+          throw new RuntimeException("Failed to stream entities: " + e.getMessage(), e);
+      }
+  }
+
   @Override
   public Page<T> findAll(PageRequest pageRequest) {
-      try (Session session = sessionFactory.openSession()) {
+      try {
+          Session session = currentSession();
           CriteriaBuilder cb = session.getCriteriaBuilder();
           CriteriaQuery<T> cq = cb.createQuery(entityClass);
           Root<T> root = cq.from(entityClass);
@@ -134,33 +404,52 @@ public abstract class BaseRepositoryImpl<T extends BaseEntity> implements BaseRe
       }
   }
 
+  @Override
+  public CursorPage<T> findAll(CursorPageRequest pageRequest) {
+      try {
+          Session session = currentSession();
+          CursorPage<T> page = seek(session, pageRequest, entityProjection(session, FetchPlan.NONE), new HqlFilter(ROOT_ALIAS));
+          logger.debug("Found {} entities of type {} after cursor {}", page.getContent().size(), entityClass.getSimpleName(), pageRequest.getCursor());
+          return page;
+      } catch (Exception e) {
+          logger.error("Error finding all entities of type {} with cursor: {}", entityClass.getSimpleName(), e.getMessage(), e);
+          throw new RuntimeException("Failed to find all entities with cursor: " + e.getMessage(), e);
+      }
+  }
+
   @Override
   public boolean deleteById(UUID id) {
-      Transaction transaction = null;
-      try (Session session = sessionFactory.openSession()) {
-          transaction = session.beginTransaction();
+      try {
+          Session session = currentSession();
           T entity = session.get(entityClass, id);
           if (entity != null) {
               session.remove(entity);
-              transaction.commit();
+              invalidateCachedSearches();
               logger.debug("Deleted entity {} with ID {}", entityClass.getSimpleName(), id);
               return true;
           }
-          transaction.rollback(); // No entity to delete, so rollback
           logger.debug("Attempted to delete entity {} with ID {} but it was not found.", entityClass.getSimpleName(), id);
           return false;
       } catch (Exception e) {
-          if (transaction != null) {
-              transaction.rollback();
-          }
           logger.error("Error deleting entity {} by ID {}: {}", entityClass.getSimpleName(), id, e.getMessage(), e);
           throw new RuntimeException("Failed to delete entity by ID: " + e.getMessage(), e);
       }
   }
 
+  @Override
+  public long deleteAll() {
+      return deleteAll(DEFAULT_DELETE_CHUNK_SIZE);
+  }
+
+  @Override
+  public long deleteAll(int chunkSize) {
+      return deleteWhere((cb, root) -> Collections.emptyList(), chunkSize);
+  }
+
   @Override
   public boolean existsById(UUID id) {
-      try (Session session = sessionFactory.openSession()) {
+      try {
+          Session session = currentSession();
           CriteriaBuilder cb = session.getCriteriaBuilder();
           CriteriaQuery<Long> cq = cb.createQuery(Long.class);
           Root<T> root = cq.from(entityClass);
@@ -175,9 +464,27 @@ public abstract class BaseRepositoryImpl<T extends BaseEntity> implements BaseRe
       }
   }
 
+  @Override
+  public List<UUID> findAllIds() {
+      try {
+          Session session = currentSession();
+          CriteriaBuilder cb = session.getCriteriaBuilder();
+          CriteriaQuery<UUID> cq = cb.createQuery(UUID.class);
+          Root<T> root = cq.from(entityClass);
+          cq.select(root.get("id")).orderBy(cb.asc(root.get("id")));
+          List<UUID> ids = session.createQuery(cq).getResultList();
+          logger.debug("Found {} IDs of type {}", ids.size(), entityClass.getSimpleName());
+          return ids;
+      } catch (Exception e) {
+          logger.error("Error finding IDs of type {}: {}", entityClass.getSimpleName(), e.getMessage(), e);
+          throw new RuntimeException("Failed to find IDs: " + e.getMessage(), e);
+      }
+  }
+
   @Override
   public long count() {
-      try (Session session = sessionFactory.openSession()) {
+      try {
+          Session session = currentSession();
           CriteriaBuilder cb = session.getCriteriaBuilder();
           CriteriaQuery<Long> cq = cb.createQuery(Long.class);
           cq.select(cb.count(cq.from(entityClass)));
@@ -189,4 +496,468 @@ public abstract class BaseRepositoryImpl<T extends BaseEntity> implements BaseRe
           throw new RuntimeException("Failed to count entities: " + e.getMessage(), e);
       }
   }
+
+  /**
+   * Get the session bound to the current Spring-managed transaction, so that all repository
+   * calls made by one service method share one connection and one transaction.
+   * Inside a read-only transaction the session is switched to read-only entities and
+   * manual flushing, which skips snapshotting and dirty-checking of everything it loads.
+   *
+   * @return the transaction-scoped session
+   */
+  protected Session currentSession() {
+      Session session = sessionFactory.getCurrentSession();
+      if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !session.isDefaultReadOnly()) {
+          session.setDefaultReadOnly(true);
+          session.setHibernateFlushMode(FlushMode.MANUAL);
+      }
+      return session;
+  }
+
+  /**
+   * Drop the cached search totals of this entity once the current transaction has committed, and mark
+   * the cached search results read from it as stale once it has completed. Results are also marked
+   * after a rollback, as the transaction may have cached a search that saw its own writes.
+   */
+  protected void invalidateCachedSearches() {
+      String space = entityClass.getSimpleName();
+      if (TransactionSynchronizationManager.isSynchronizationActive()) {
+          TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+              @Override
+              public void afterCommit() {
+                  countCache.invalidate(space + ":");
+              }
+
+              @Override
+              public void afterCompletion(int status) {
+                  searchResultCache.touch(space);
+              }
+          });
+      } else {
+          countCache.invalidate(space + ":");
+          searchResultCache.touch(space);
+      }
+  }
+
+  /**
+   * Deletes the entities matching the filter with bulk DELETE statements, one id range at a time.
+   * Each chunk's upper bound is found with an id-only query, so no entity is loaded and no
+   * statement locks more than {@code chunkSize} rows. Pending changes are flushed first and the
+   * session is cleared afterwards, since bulk statements bypass the persistence context.
+   * The filter is applied to the DELETE's own root and must not add joins.
+   */
+  protected long deleteWhere(BiFunction<CriteriaBuilder, Root<T>, List<Predicate>> filter, int chunkSize) {
+      if (chunkSize < 1) {
+          throw new IllegalArgumentException("Chunk size must not be less than one!");
+      }
+      try {
+          Session session = currentSession();
+          session.flush();
+          CriteriaBuilder cb = session.getCriteriaBuilder();
+          long deleted = 0;
+          UUID lowerBound = null;
+          UUID upperBound;
+          do {
+              CriteriaQuery<UUID> boundQuery = cb.createQuery(UUID.class);
+              Root<T> boundRoot = boundQuery.from(entityClass);
+              boundQuery.select(boundRoot.get("id"))
+                        .where(idRange(cb, boundRoot, filter, lowerBound, null))
+                        .orderBy(cb.asc(boundRoot.get("id")));
+              List<UUID> bound = session.createQuery(boundQuery)
+                      .setFirstResult(chunkSize - 1)
+                      .setMaxResults(1)
+                      .getResultList();
+              upperBound = bound.isEmpty() ? null : bound.get(0);
+
+              CriteriaDelete<T> delete = cb.createCriteriaDelete(entityClass);
+              Root<T> root = delete.from(entityClass);
+              delete.where(idRange(cb, root, filter, lowerBound, upperBound));
+              int count = session.createMutationQuery(delete).executeUpdate();
+              deleted += count;
+              logger.debug("Deleted {} entities of type {} in id range ({}, {}]", count, entityClass.getSimpleName(), lowerBound, upperBound);
+              lowerBound = upperBound;
+          } while (upperBound != null);
+          session.clear();
+          invalidateCachedSearches();
+          logger.debug("Bulk deleted {} entities of type {}", deleted, entityClass.getSimpleName());
+          return deleted;
+      } catch (Exception e) {
+          logger.error("Error bulk deleting entities {}: {}", entityClass.getSimpleName(), e.getMessage(), e);
+          throw new RuntimeException("Failed to bulk delete entities: " + e.getMessage(), e);
+      }
+  }
+
+  private Predicate[] idRange(CriteriaBuilder cb, Root<T> root, BiFunction<CriteriaBuilder, Root<T>, List<Predicate>> filter,
+                              UUID lowerBound, UUID upperBound) {
+      List<Predicate> predicates = new ArrayList<>(filter.apply(cb, root));
+      if (lowerBound != null) {
+          predicates.add(cb.greaterThan(root.get("id"), lowerBound));
+      }
+      if (upperBound != null) {
+          predicates.add(cb.lessThanOrEqualTo(root.get("id"), upperBound));
+      }
+      return predicates.toArray(new Predicate[0]);
+  }
+
+  /**
+   * Exposes a query as a lazily evaluated stream over a forward-only {@link ScrollableResults}.
+   * Rows are read {@code fetchSize} at a time and the session is cleared before each new
+   * batch is read, so only the current batch is managed. Closing the stream closes the cursor.
+   * Outside a read-only transaction the session is flushed before it is cleared, so that the
+   * caller's pending changes are written rather than discarded.
+   */
+  protected <R> Stream<R> stream(Session session, Query<R> query, int fetchSize) {
+      if (fetchSize < 1) {
+          throw new IllegalArgumentException("Fetch size must not be less than one!");
+      }
+      ScrollableResults<R> results = query
+              .setFetchSize(fetchSize)
+              .setReadOnly(true)
+              .scroll(ScrollMode.FORWARD_ONLY);
+      Iterator<R> iterator = new Iterator<>() {
+          private long rows;
+          private Boolean hasNext;
+
+          @Override
+          public boolean hasNext() {
+              if (hasNext == null) {
+                  if (rows > 0 && rows % fetchSize == 0) {
+                      if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                          session.flush();
+                      }
+                      session.clear();
+                  }
+                  hasNext = results.next();
+              }
+              return hasNext;
+          }
+
+          @Override
+          public R next() {
+              if (!hasNext()) {
+                  throw new NoSuchElementException();
+              }
+              hasNext = null;
+              rows++;
+              return results.get();
+          }
+      };
+      return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+              .onClose(results::close);
+  }
+
+  /**
+   * Adds left fetch joins for every attribute node of the plan's entity graph, including subgraphs,
+   * so that the graph also applies to criteria queries that select more than the entity.
+   */
+  protected void applyFetchPlan(Session session, Root<T> root, FetchPlan fetchPlan) {
+      if (fetchPlan == null || fetchPlan == FetchPlan.NONE) {
+          return;
+      }
+      if (!fetchPlan.appliesTo(entityClass)) {
+          throw new IllegalArgumentException("Fetch plan " + fetchPlan + " does not apply to " + entityClass.getSimpleName());
+      }
+      fetchAttributes(root, session.getEntityGraph(fetchPlan.getGraphName()).getAttributeNodes());
+  }
+
+  private void fetchAttributes(FetchParent<?, ?> parent, List<AttributeNode<?>> attributeNodes) {
+      for (AttributeNode<?> attributeNode : attributeNodes) {
+          Fetch<?, ?> fetch = parent.fetch(attributeNode.getAttributeName(), JoinType.LEFT);
+          for (Subgraph<?> subgraph : attributeNode.getSubgraphs().values()) {
+              fetchAttributes(fetch, subgraph.getAttributeNodes());
+          }
+      }
+  }
+
+  /**
+   * Get the projection selecting the entity itself, with the associations of the fetch plan
+   * fetch-joined. One instance is kept per plan so it can take part in query shape keys.
+   */
+  protected Projection<T, T> entityProjection(Session session, FetchPlan fetchPlan) {
+      FetchPlan plan = fetchPlan != null ? fetchPlan : FetchPlan.NONE;
+      if (plan != FetchPlan.NONE && !plan.appliesTo(entityClass)) {
+          throw new IllegalArgumentException("Fetch plan " + plan + " does not apply to " + entityClass.getSimpleName());
+      }
+      return entityProjections.computeIfAbsent(plan, key -> {
+          List<AttributeNode<?>> fetches = key == FetchPlan.NONE
+                  ? Collections.emptyList()
+                  : session.getEntityGraph(key.getGraphName()).getAttributeNodes();
+          return new Projection<>() {
+              @Override
+              public String select(String alias) {
+                  return alias;
+              }
+
+              @Override
+              public String from(String alias) {
+                  StringBuilder from = new StringBuilder(entityClass.getSimpleName()).append(' ').append(alias);
+                  fetchJoins(from, alias, fetches);
+                  return from.toString();
+              }
+
+              @Override
+              public T map(Tuple tuple) {
+                  return tuple.get(0, entityClass);
+              }
+          };
+      });
+  }
+
+  private void fetchJoins(StringBuilder from, String parentAlias, List<AttributeNode<?>> attributeNodes) {
+      for (AttributeNode<?> attributeNode : attributeNodes) {
+          String name = attributeNode.getAttributeName();
+          String alias = parentAlias + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+          from.append(" LEFT JOIN FETCH ").append(parentAlias).append('.').append(name).append(' ').append(alias);
+          for (Subgraph<?> subgraph : attributeNode.getSubgraphs().values()) {
+              fetchJoins(from, alias, subgraph.getAttributeNodes());
+          }
+      }
+  }
+
+  /**
+   * Runs an offset query for one page plus one extra row, so {@code hasNext} needs no COUNT.
+   * The optional total is taken from {@code COUNT(*) OVER ()} in the same statement
+   * ({@link TotalCountStrategy#WINDOW}) or from the short-TTL {@link CountCache} ({@link TotalCountStrategy#CACHED}).
+   */
+  protected <R> Slice<R> slice(Session session, PageRequest pageRequest, TotalCountStrategy strategy, String countKey,
+                               Projection<T, R> projection, HqlFilter filter) {
+      boolean window = strategy == TotalCountStrategy.WINDOW;
+      QueryShape shape = shape("slice", projection, filter, pageRequest.getSort(), window, () -> new QueryShape(
+              selectHql(projection, filter, window ? ", COUNT(*) OVER ()" : "", filter.toWhereClause(),
+                        orderByHql(filter.getAlias(), pageRequest.getSort())),
+              countHql(filter)));
+      Query<Tuple> query = session.createQuery(shape.getContentHql(), Tuple.class);
+      filter.bind(query);
+      List<Tuple> tuples = query
+              .setFirstResult((int) pageRequest.getOffset())
+              .setMaxResults(pageRequest.getSize() + 1)
+              .getResultList();
+
+      Long totalElements = null;
+      if (window) {
+          if (!tuples.isEmpty()) {
+              Tuple first = tuples.get(0);
+              totalElements = first.get(first.getElements().size() - 1, Long.class);
+          } else if (pageRequest.getOffset() == 0) {
+              totalElements = 0L;
+          }
+      } else if (strategy == TotalCountStrategy.CACHED) {
+          totalElements = countCache.get(entityClass.getSimpleName() + ":" + countKey, () -> count(session, shape, filter));
+      }
+
+      boolean hasNext = tuples.size() > pageRequest.getSize();
+      List<R> content = new ArrayList<>(Math.min(tuples.size(), pageRequest.getSize()));
+      for (Tuple tuple : hasNext ? tuples.subList(0, pageRequest.getSize()) : tuples) {
+          content.add(projection.map(tuple));
+      }
+      return new Slice<>(content, pageRequest.getPage(), pageRequest.getSize(), hasNext, totalElements);
+  }
+
+  /**
+   * Runs an offset query for one page plus a COUNT with the same filter.
+   */
+  protected <R> Page<R> page(Session session, PageRequest pageRequest, Projection<T, R> projection, HqlFilter filter) {
+      QueryShape shape = shape("page", projection, filter, pageRequest.getSort(), null, () -> new QueryShape(
+              selectHql(projection, filter, "", filter.toWhereClause(), orderByHql(filter.getAlias(), pageRequest.getSort())),
+              countHql(filter)));
+      Query<Tuple> query = session.createQuery(shape.getContentHql(), Tuple.class);
+      filter.bind(query);
+      List<Tuple> tuples = query
+              .setFirstResult((int) pageRequest.getOffset())
+              .setMaxResults(pageRequest.getSize())
+              .getResultList();
+      List<R> content = new ArrayList<>(tuples.size());
+      for (Tuple tuple : tuples) {
+          content.add(projection.map(tuple));
+      }
+      return new Page<>(content, count(session, shape, filter), pageRequest.getPage(), pageRequest.getSize());
+  }
+
+  /**
+   * Lists all rows matching the filter, in the given order (unordered when the sort is null).
+   */
+  protected <R> List<R> list(Session session, Projection<T, R> projection, HqlFilter filter, Sort sort) {
+      List<Tuple> tuples = listQuery(session, projection, filter, sort).getResultList();
+      List<R> result = new ArrayList<>(tuples.size());
+      for (Tuple tuple : tuples) {
+          result.add(projection.map(tuple));
+      }
+      return result;
+  }
+
+  /**
+   * Streams the rows matching the filter from a forward-only cursor.
+   * Projected rows are not managed, so the periodic session clear has nothing to evict.
+   */
+  protected <R> Stream<R> stream(Session session, Projection<T, R> projection, HqlFilter filter, Sort sort, int fetchSize) {
+      return stream(session, listQuery(session, projection, filter, sort), fetchSize).map(projection::map);
+  }
+
+  private Query<Tuple> listQuery(Session session, Projection<T, ?> projection, HqlFilter filter, Sort sort) {
+      QueryShape shape = shape("list", projection, filter, sort, null, () -> new QueryShape(
+              selectHql(projection, filter, "", filter.toWhereClause(), orderByHql(filter.getAlias(), sort)), null));
+      Query<Tuple> query = session.createQuery(shape.getContentHql(), Tuple.class);
+      filter.bind(query);
+      return query;
+  }
+
+  /**
+   * Runs a keyset (seek) query: filters with the given conditions, orders by the requested sort
+   * plus the ID as tie-breaker, and continues strictly after the row encoded in the cursor.
+   * Fetches one extra row to know whether a next page exists, so no COUNT or OFFSET is needed.
+   * The sort keys are selected after the projection so the next cursor is read from the last row.
+   * Keys are expected to be indexed; NULL keys follow SQL Server ordering (lowest value).
+   */
+  protected <R> CursorPage<R> seek(Session session, CursorPageRequest pageRequest, Projection<T, R> projection,
+                                   HqlFilter filter) {
+      List<SortCriteria> keys = keysetOrder(pageRequest.getSort());
+      Cursor cursor = pageRequest.isFirst() ? null : Cursor.decode(pageRequest.getCursor());
+      if (cursor != null && cursor.size() != keys.size()) {
+          throw new IllegalArgumentException("Cursor does not match the requested sort order.");
+      }
+      List<Object> values = new ArrayList<>(keys.size());
+      StringBuilder nullKeys = new StringBuilder();
+      for (int i = 0; i < keys.size() && cursor != null; i++) {
+          Object value = cursor.getValue(i, attributeType(keys.get(i).getField()));
+          values.add(value);
+          nullKeys.append(value == null ? 'N' : 'V');
+      }
+
+      // The keyset predicate is part of the shape: first page, and which cursor values are NULL
+      String variant = cursor == null ? "first" : nullKeys.toString();
+      QueryShape shape = shape("seek", projection, filter, Sort.by(keys), variant, () -> {
+          String alias = filter.getAlias();
+          StringBuilder keyColumns = new StringBuilder();
+          for (SortCriteria key : keys) {
+              keyColumns.append(", ").append(path(alias, key.getField()));
+          }
+          String where = cursor == null ? filter.toWhereClause() : filter.toWhereClause(keysetHql(alias, keys, values));
+          return new QueryShape(selectHql(projection, filter, keyColumns.toString(), where, orderByHql(alias, Sort.by(keys))), null);
+      });
+
+      Query<Tuple> query = session.createQuery(shape.getContentHql(), Tuple.class);
+      filter.bind(query);
+      for (int i = 0; i < values.size(); i++) {
+          if (values.get(i) != null) {
+              query.setParameter("cursor" + i, values.get(i));
+          }
+      }
+      List<Tuple> rows = query.setMaxResults(pageRequest.getSize() + 1).getResultList();
+
+      boolean hasNext = rows.size() > pageRequest.getSize();
+      List<Tuple> pageRows = hasNext ? rows.subList(0, pageRequest.getSize()) : rows;
+      List<R> content = new ArrayList<>(pageRows.size());
+      for (Tuple row : pageRows) {
+          content.add(projection.map(row));
+      }
+      String nextCursor = hasNext ? cursorOf(pageRows.get(pageRows.size() - 1), keys.size()).encode() : null;
+      return new CursorPage<>(content, pageRequest.getCursor(), nextCursor, pageRequest.getSize());
+  }
+
+  /**
+   * Appends the ID as the final sort key so that the keyset order is total.
+   * The ID follows the direction of the last requested key to keep a single index scan direction.
+   */
+  private List<SortCriteria> keysetOrder(Sort sort) {
+      List<SortCriteria> keys = new ArrayList<>();
+      SortDirection idDirection = SortDirection.ASC;
+      for (SortCriteria sortCriteria : sort.getCriteria()) {
+          if ("id".equals(sortCriteria.getField())) {
+              idDirection = sortCriteria.getDirection();
+              break;
+          }
+          keys.add(sortCriteria);
+          idDirection = sortCriteria.getDirection();
+      }
+      keys.add(new SortCriteria("id", idDirection));
+      return keys;
+  }
+
+  /**
+   * Builds {@code (k1 > :cursor0) OR (k1 = :cursor0 AND k2 > :cursor1) OR ...} honouring each key's direction.
+   */
+  private String keysetHql(String alias, List<SortCriteria> keys, List<Object> values) {
+      List<String> branches = new ArrayList<>();
+      List<String> equalities = new ArrayList<>();
+      for (int i = 0; i < keys.size(); i++) {
+          SortCriteria key = keys.get(i);
+          String path = path(alias, key.getField());
+          Object value = values.get(i);
+
+          String after;
+          if (key.getDirection() == SortDirection.ASC) {
+              after = value == null ? path + " IS NOT NULL" : path + " > :cursor" + i;
+          } else {
+              after = value == null ? null : "(" + path + " < :cursor" + i + " OR " + path + " IS NULL)";
+          }
+          if (after != null) {
+              List<String> branch = new ArrayList<>(equalities);
+              branch.add(after);
+              branches.add("(" + String.join(" AND ", branch) + ")");
+          }
+          equalities.add(value == null ? path + " IS NULL" : path + " = :cursor" + i);
+      }
+      return "(" + String.join(" OR ", branches) + ")";
+  }
+
+  private Cursor cursorOf(Tuple last, int keyCount) {
+      int keyIndex = last.getElements().size() - keyCount;
+      List<Object> values = new ArrayList<>(keyCount);
+      for (int i = 0; i < keyCount; i++) {
+          values.add(last.get(keyIndex + i));
+      }
+      return Cursor.of(values);
+  }
+
+  private Class<?> attributeType(String field) {
+      return sessionFactory.getMetamodel().entity(entityClass).getAttribute(field).getJavaType();
+  }
+
+  /**
+   * Looks up the queries of a search shape, building them on the first use of the shape.
+   */
+  private QueryShape shape(String kind, Projection<T, ?> projection, HqlFilter filter, Sort sort, Object variant,
+                           Supplier<QueryShape> builder) {
+      List<Object> key = Arrays.asList(entityClass, kind, projection, filter.getAlias(), filter.getConditions(),
+              sort != null ? sort : Sort.unsorted(), variant);
+      return queryShapeCache.get(key, builder);
+  }
+
+  private long count(Session session, QueryShape shape, HqlFilter filter) {
+      Query<Long> query = session.createQuery(shape.getCountHql(), Long.class);
+      filter.bind(query);
+      return query.getSingleResult();
+  }
+
+  private String selectHql(Projection<T, ?> projection, HqlFilter filter, String extraSelections, String where, String orderBy) {
+      return "SELECT " + projection.select(filter.getAlias()) + extraSelections
+              + " FROM " + projection.from(filter.getAlias()) + where + orderBy;
+  }
+
+  private String countHql(HqlFilter filter) {
+      String alias = filter.getAlias();
+      return "SELECT COUNT(" + alias + ") FROM " + entityClass.getSimpleName() + " " + alias + filter.toWhereClause();
+  }
+
+  private String orderByHql(String alias, Sort sort) {
+      if (sort == null || !sort.isSorted()) {
+          return "";
+      }
+      StringJoiner orderBy = new StringJoiner(", ", " ORDER BY ", "");
+      for (SortCriteria sortCriteria : sort.getCriteria()) {
+          orderBy.add(path(alias, sortCriteria.getField()) + (sortCriteria.getDirection() == SortDirection.ASC ? " ASC" : " DESC"));
+      }
+      return orderBy.toString();
+  }
+
+  /**
+   * Renders a sort field as a path on the alias. Sort fields end up in the HQL text, so only plain
+   * attribute names are accepted.
+   */
+  private String path(String alias, String field) {
+      if (field == null || !SORT_FIELD.matcher(field).matches()) {
+          throw new IllegalArgumentException("Invalid sort field: " + field);
+      }
+      return alias + "." + field;
+  }
 }
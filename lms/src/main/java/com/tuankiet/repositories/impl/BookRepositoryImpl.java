@@ -1,16 +1,26 @@
 package com.tuankiet.repositories.impl;
 
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Slice;
+import com.tuankiet.dto.common.Sort;
 import com.tuankiet.dto.common.SortCriteria;
+import com.tuankiet.dto.common.SortDirection;
+import com.tuankiet.dto.common.TotalCountStrategy;
+import com.tuankiet.dto.response.BookBorrowingStats;
 import com.tuankiet.dto.search.BookSearchCriteria;
 import com.tuankiet.entities.Book;
 import com.tuankiet.enums.BorrowingStatus;
 import com.tuankiet.repositories.BookRepository;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Predicate;
-import jakarta.persistence.criteria.Root;
+import com.tuankiet.repositories.support.FetchPlan;
+import com.tuankiet.repositories.support.HqlFilter;
+import com.tuankiet.repositories.support.LoanCounters;
+import com.tuankiet.repositories.support.Projection;
+import com.tuankiet.repositories.support.RowUpdates;
+import com.tuankiet.repositories.support.SearchResultCache;
+import jakarta.persistence.Tuple;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
@@ -18,10 +28,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the BookRepository interface.
@@ -35,117 +52,234 @@ public class BookRepositoryImpl extends BaseRepositoryImpl<Book> implements Book
 
     private static final Logger logger = LoggerFactory.getLogger(BookRepositoryImpl.class);
 
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+    /** Book fields maintained by set-based updates that do not mark cached search results stale. */
+    private static final Set<String> VOLATILE_FIELDS = Set.of("availableCopies", "totalBorrows", "activeLoans", "overdueLoans", "lastBorrowedDate");
+
+    /** Entities a book search reads from: the author's name is part of the results. */
+    private static final Set<String> SEARCH_SPACES = Set.of("Book", "Author");
+
     public BookRepositoryImpl(SessionFactory sessionFactory) {
         this.sessionFactory = sessionFactory;
     }
 
     @Override
     public Optional<Book> findByIsbn(String isbn) {
-        Session session = sessionFactory.getCurrentSession();
-        Query<Book> query = session.createQuery("FROM Book b WHERE b.isbn = :isbn", Book.class);
-        query.setParameter("isbn", isbn);
-        return query.uniqueResultOptional();
+        // Resolved through the natural-id cache, then the entity cache, before querying
+        return currentSession().bySimpleNaturalId(Book.class).loadOptional(isbn);
     }
 
     @Override
     public boolean existsByIsbn(String isbn) {
-        Session session = sessionFactory.getCurrentSession();
-        Query<Long> query = session.createQuery("SELECT COUNT(b) FROM Book b WHERE b.isbn = :isbn", Long.class);
-        query.setParameter("isbn", isbn);
-        return query.uniqueResult() > 0;
+        return findByIsbn(isbn).isPresent();
     }
 
     @Override
-    public Page<Book> searchBooks(BookSearchCriteria criteria, PageRequest pageRequest) {
-        Session session = sessionFactory.getCurrentSession();
-        
-        StringBuilder hql = new StringBuilder("FROM Book b LEFT JOIN FETCH b.author WHERE 1=1");
-        
-        if (criteria.getTitle() != null && !criteria.getTitle().trim().isEmpty()) {
-            hql.append(" AND LOWER(b.title) LIKE LOWER(:title)");
+    public List<String> findExistingIsbns(Collection<String> isbns) {
+        Session session = currentSession();
+        List<String> pending = new ArrayList<>(isbns);
+        List<String> existing = new ArrayList<>();
+        // Stay well below the SQL Server limit of 2100 parameters per statement
+        for (int from = 0; from < pending.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<String> chunk = pending.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, pending.size()));
+            existing.addAll(session.createQuery("SELECT b.isbn FROM Book b WHERE b.isbn IN (:isbns)", String.class)
+                    .setParameterList("isbns", chunk)
+                    .getResultList());
         }
-        if (criteria.getIsbn() != null && !criteria.getIsbn().trim().isEmpty()) {
-            hql.append(" AND b.isbn LIKE :isbn");
+        return existing;
+    }
+
+    @Override
+    public Page<Book> searchBooks(BookSearchCriteria criteria, PageRequest pageRequest) {
+        Session session = currentSession();
+        if (pageRequest.getSort() == null || !pageRequest.getSort().isSorted()) {
+            pageRequest = new PageRequest(pageRequest.getPage(), pageRequest.getSize(), defaultSort());
         }
-        if (criteria.getAuthorName() != null && !criteria.getAuthorName().trim().isEmpty()) {
-            hql.append(" AND (LOWER(b.author.firstName) LIKE LOWER(:authorName) OR LOWER(b.author.lastName) LIKE LOWER(:authorName))");
+        Page<Book> page = page(session, pageRequest, entityProjection(session, FetchPlan.BOOK_WITH_AUTHOR), filter(criteria));
+        logger.debug("Found {} books for search criteria and page {}", page.getContent().size(), pageRequest.getPage());
+        return page;
+    }
+
+    @Override
+    public CursorPage<Book> searchBooks(BookSearchCriteria criteria, CursorPageRequest pageRequest) {
+        Session session = currentSession();
+        if (!pageRequest.getSort().isSorted()) {
+            pageRequest = new CursorPageRequest(pageRequest.getSize(), defaultSort(), pageRequest.getCursor());
         }
-        if (criteria.getCategory() != null) {
-            hql.append(" AND b.category = :category");
+        CursorPage<Book> page = seek(session, pageRequest, entityProjection(session, FetchPlan.BOOK_WITH_AUTHOR), filter(criteria));
+        logger.debug("Found {} books for search criteria after cursor {}", page.getContent().size(), pageRequest.getCursor());
+        return page;
+    }
+
+    @Override
+    public Slice<Book> searchBooks(BookSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy) {
+        Session session = currentSession();
+        if (pageRequest.getSort() == null || !pageRequest.getSort().isSorted()) {
+            pageRequest = new PageRequest(pageRequest.getPage(), pageRequest.getSize(), defaultSort());
         }
-        if (criteria.getPublicationYear() != null) {
-            hql.append(" AND b.publicationYear = :publicationYear");
+        Slice<Book> slice = slice(session, pageRequest, totalCountStrategy, criteria.toString(),
+                entityProjection(session, FetchPlan.BOOK_WITH_AUTHOR), filter(criteria));
+        logger.debug("Found {} books for search criteria and page {} (total: {})",
+                slice.getContent().size(), pageRequest.getPage(), slice.getTotalElements());
+        return slice;
+    }
+
+    @Override
+    public <R> Page<R> searchBooks(BookSearchCriteria criteria, PageRequest pageRequest, Projection<Book, R> projection) {
+        Session session = currentSession();
+        if (pageRequest.getSort() == null || !pageRequest.getSort().isSorted()) {
+            pageRequest = new PageRequest(pageRequest.getPage(), pageRequest.getSize(), defaultSort());
         }
-        if (criteria.getAvailableOnly() != null && criteria.getAvailableOnly()) {
-            hql.append(" AND b.availableCopies > 0");
+        HqlFilter filter = filter(criteria);
+        PageRequest request = pageRequest;
+        Page<R> page = searchResultCache.get(resultRegion(criteria, request.getSort()), List.of("page", projection, filter.getConditions(), filter.getParameters(), request),
+                SEARCH_SPACES, () -> page(session, request, projection, filter), result -> SearchResultCache.estimateBytes(result.getContent()));
+        logger.debug("Found {} projected books for search criteria and page {}", page.getContent().size(), pageRequest.getPage());
+        return page;
+    }
+
+    @Override
+    public <R> CursorPage<R> searchBooks(BookSearchCriteria criteria, CursorPageRequest pageRequest, Projection<Book, R> projection) {
+        Session session = currentSession();
+        if (!pageRequest.getSort().isSorted()) {
+            pageRequest = new CursorPageRequest(pageRequest.getSize(), defaultSort(), pageRequest.getCursor());
         }
+        CursorPage<R> page = seek(session, pageRequest, projection, filter(criteria));
+        logger.debug("Found {} projected books for search criteria after cursor {}", page.getContent().size(), pageRequest.getCursor());
+        return page;
+    }
 
-        // Add sorting
-        if (pageRequest.getSort() != null && !pageRequest.getSort().getCriteria().isEmpty()) {
-            hql.append(" ORDER BY ");
-            for (int i = 0; i < pageRequest.getSort().getCriteria().size(); i++) {
-                if (i > 0) hql.append(", ");
-                SortCriteria sortCriteria = pageRequest.getSort().getCriteria().get(i);
-                hql.append("b.").append(sortCriteria.getProperty()).append(" ").append(sortCriteria.getDirection().name());
-            }
-        } else {
-            hql.append(" ORDER BY b.title ASC");
+    @Override
+    public <R> Slice<R> searchBooks(BookSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy,
+                                    Projection<Book, R> projection) {
+        Session session = currentSession();
+        if (pageRequest.getSort() == null || !pageRequest.getSort().isSorted()) {
+            pageRequest = new PageRequest(pageRequest.getPage(), pageRequest.getSize(), defaultSort());
         }
+        HqlFilter filter = filter(criteria);
+        PageRequest request = pageRequest;
+        Slice<R> slice = searchResultCache.get(resultRegion(criteria, request.getSort()),
+                List.of("slice", projection, filter.getConditions(), filter.getParameters(), request, totalCountStrategy), SEARCH_SPACES,
+                () -> slice(session, request, totalCountStrategy, criteria.toString(), projection, filter),
+                result -> SearchResultCache.estimateBytes(result.getContent()));
+        logger.debug("Found {} projected books for search criteria and page {} (total: {})",
+                slice.getContent().size(), pageRequest.getPage(), slice.getTotalElements());
+        return slice;
+    }
+
+    /**
+     * Projected search results are cached by filter and page, as they are detached from the session.
+     * Availability and the loan counters only change through set-based updates, which do not mark the
+     * results stale, so searches filtering or sorting on them are cached in the short-lived region.
+     */
+    private SearchResultCache.Region resultRegion(BookSearchCriteria criteria, Sort sort) {
+        boolean volatileSort = sort.getCriteria().stream().anyMatch(criterion -> VOLATILE_FIELDS.contains(criterion.getField()));
+        return Boolean.TRUE.equals(criteria.getAvailableOnly()) || volatileSort
+                ? SearchResultCache.Region.AVAILABILITY
+                : SearchResultCache.Region.CATALOG;
+    }
+
+    private Sort defaultSort() {
+        return Sort.by(new SortCriteria("title", SortDirection.ASC));
+    }
+
+    /**
+     * Book search filter. The conditions are constant, so every search setting the same
+     * criteria fields shares one query shape; the author is reached through its path and only
+     * joined by the count query when it is filtered on.
+     */
+    private HqlFilter filter(BookSearchCriteria criteria) {
+        HqlFilter filter = new HqlFilter("b");
 
-        Query<Book> query = session.createQuery(hql.toString(), Book.class);
-        
-        // Set parameters
         if (criteria.getTitle() != null && !criteria.getTitle().trim().isEmpty()) {
-            query.setParameter("title", "%" + criteria.getTitle().trim() + "%");
+            filter.and("LOWER(b.title) LIKE :title", "title", "%" + criteria.getTitle().trim().toLowerCase() + "%");
         }
         if (criteria.getIsbn() != null && !criteria.getIsbn().trim().isEmpty()) {
-            query.setParameter("isbn", "%" + criteria.getIsbn().trim() + "%");
+            filter.and("b.isbn LIKE :isbn", "isbn", "%" + criteria.getIsbn().trim() + "%");
         }
         if (criteria.getAuthorName() != null && !criteria.getAuthorName().trim().isEmpty()) {
-            query.setParameter("authorName", "%" + criteria.getAuthorName().trim() + "%");
+            filter.and("(LOWER(b.author.firstName) LIKE :authorName OR LOWER(b.author.lastName) LIKE :authorName)",
+                    "authorName", "%" + criteria.getAuthorName().trim().toLowerCase() + "%");
         }
         if (criteria.getCategory() != null) {
-            query.setParameter("category", criteria.getCategory());
+            filter.and("b.category = :category", "category", criteria.getCategory());
         }
         if (criteria.getPublicationYear() != null) {
-            query.setParameter("publicationYear", criteria.getPublicationYear());
-        }
-
-        // Count query for total elements
-        String countHql = hql.toString().replaceFirst("FROM Book b LEFT JOIN FETCH b.author", "SELECT COUNT(DISTINCT b) FROM Book b LEFT JOIN b.author");
-        countHql = countHql.substring(0, countHql.indexOf(" ORDER BY"));
-        Query<Long> countQuery = session.createQuery(countHql, Long.class);
-        
-        // Set parameters for count query
-        if (criteria.getTitle() != null && !criteria.getTitle().trim().isEmpty()) {
-            countQuery.setParameter("title", "%" + criteria.getTitle().trim() + "%");
+            filter.and("b.publicationYear = :publicationYear", "publicationYear", criteria.getPublicationYear());
         }
-        if (criteria.getIsbn() != null && !criteria.getIsbn().trim().isEmpty()) {
-            countQuery.setParameter("isbn", "%" + criteria.getIsbn().trim() + "%");
-        }
-        if (criteria.getAuthorName() != null && !criteria.getAuthorName().trim().isEmpty()) {
-            countQuery.setParameter("authorName", "%" + criteria.getAuthorName().trim() + "%");
-        }
-        if (criteria.getCategory() != null) {
-            countQuery.setParameter("category", criteria.getCategory());
+        if (criteria.getAvailableOnly() != null && criteria.getAvailableOnly()) {
+            filter.and("b.availableCopies > 0");
         }
-        if (criteria.getPublicationYear() != null) {
-            countQuery.setParameter("publicationYear", criteria.getPublicationYear());
+        return filter;
+    }
+
+    @Override
+    public Map<UUID, Integer> findAvailableCopies(Collection<UUID> bookIds) {
+        Session session = currentSession();
+        List<UUID> pending = new ArrayList<>(bookIds);
+        Map<UUID, Integer> availableCopies = new HashMap<>();
+        for (int from = 0; from < pending.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<UUID> chunk = pending.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, pending.size()));
+            for (Tuple row : session.createQuery("SELECT b.id, b.availableCopies FROM Book b WHERE b.id IN (:bookIds)", Tuple.class)
+                    .setParameterList("bookIds", chunk)
+                    .getResultList()) {
+                availableCopies.put(row.get(0, UUID.class), row.get(1, Integer.class));
+            }
         }
+        return availableCopies;
+    }
 
-        long totalElements = countQuery.uniqueResult();
+    @Override
+    public Map<UUID, Integer> findAllAvailableCopies() {
+        Session session = currentSession();
+        Map<UUID, Integer> availableCopies = new HashMap<>();
+        try (Stream<Tuple> rows = session.createQuery("SELECT b.id, b.availableCopies FROM Book b", Tuple.class)
+                .setFetchSize(DEFAULT_FETCH_SIZE)
+                .getResultStream()) {
+            rows.forEach(row -> availableCopies.put(row.get(0, UUID.class), row.get(1, Integer.class)));
+        }
+        logger.debug("Read available copies of {} books", availableCopies.size());
+        return availableCopies;
+    }
 
-        // Set pagination
-        query.setFirstResult(pageRequest.getPage() * pageRequest.getSize());
-        query.setMaxResults(pageRequest.getSize());
+    @Override
+    public int decrementAvailableCopies(UUID bookId, int quantity) {
+        Session session = currentSession();
+        int updated = RowUpdates.nativeUpdate(session,
+                "UPDATE Books SET available_copies = available_copies - :quantity, updated_at = :now, version = version + 1 "
+                + "WHERE id = :bookId AND available_copies >= :quantity")
+            .setParameter("quantity", quantity)
+            .setParameter("now", LocalDateTime.now())
+            .setParameter("bookId", bookId)
+            .executeUpdate();
+        if (updated > 0) {
+            RowUpdates.evict(session, Book.class, List.of(bookId));
+        }
+        logger.debug("Decremented {} available copies of book ID {}: {} row(s) updated", quantity, bookId, updated);
+        return updated;
+    }
 
-        List<Book> content = query.getResultList();
-        return new Page<>(content, totalElements, pageRequest.getPage(), pageRequest.getSize());
+    @Override
+    public int incrementAvailableCopies(UUID bookId, int quantity) {
+        Session session = currentSession();
+        int updated = RowUpdates.nativeUpdate(session,
+                "UPDATE Books SET available_copies = available_copies + :quantity, updated_at = :now, version = version + 1 "
+                + "WHERE id = :bookId AND available_copies + :quantity <= total_copies")
+            .setParameter("quantity", quantity)
+            .setParameter("now", LocalDateTime.now())
+            .setParameter("bookId", bookId)
+            .executeUpdate();
+        if (updated > 0) {
+            RowUpdates.evict(session, Book.class, List.of(bookId));
+        }
+        logger.debug("Incremented {} available copies of book ID {}: {} row(s) updated", quantity, bookId, updated);
+        return updated;
     }
 
     @Override
     public long countBorrowedCopies(UUID bookId) {
-        Session session = sessionFactory.getCurrentSession();
+        Session session = currentSession();
         Query<Long> query = session.createQuery(
             "SELECT COUNT(br) FROM Borrowing br WHERE br.book.id = :bookId AND br.status IN (:statuses)", 
             Long.class
@@ -154,4 +288,47 @@ public class BookRepositoryImpl extends BaseRepositoryImpl<Book> implements Book
         query.setParameter("statuses", List.of(BorrowingStatus.BORROWED, BorrowingStatus.OVERDUE));
         return query.uniqueResult();
     }
+
+    @Override
+    public int adjustLoanCounters(UUID bookId, long borrows, long activeLoans, long overdueLoans, LocalDate borrowDate) {
+        int updated = LoanCounters.adjust(currentSession(), LoanCounters.Owner.BOOK, bookId, borrows, activeLoans, overdueLoans, borrowDate);
+        logger.debug("Adjusted loan counters of book ID {} by {}/{}/{}: {} row(s) updated",
+                bookId, borrows, activeLoans, overdueLoans, updated);
+        return updated;
+    }
+
+    @Override
+    public int recountLoanCounters(Collection<UUID> bookIds) {
+        int updated = LoanCounters.recount(currentSession(), LoanCounters.Owner.BOOK, bookIds);
+        logger.debug("Recounted loan counters of {} out of {} books", updated, bookIds.size());
+        return updated;
+    }
+
+    @Override
+    public int recountLoanCountersOfBorrowings(Collection<UUID> borrowingIds) {
+        int updated = LoanCounters.recountOfBorrowings(currentSession(), LoanCounters.Owner.BOOK, borrowingIds);
+        logger.debug("Recounted loan counters of {} books for {} borrowings", updated, borrowingIds.size());
+        return updated;
+    }
+
+    @Override
+    public Map<UUID, BookBorrowingStats> findBorrowingStats(Collection<UUID> bookIds) {
+        Session session = currentSession();
+        List<UUID> ids = new ArrayList<>(bookIds);
+        Map<UUID, BookBorrowingStats> stats = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<Tuple> rows = session.createQuery(
+                    "SELECT b.id, b.title, b.isbn, b.totalBorrows, b.activeLoans, b.overdueLoans FROM Book b WHERE b.id IN (:ids)",
+                    Tuple.class)
+                .setParameterList("ids", ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, ids.size())))
+                .getResultList();
+            for (Tuple row : rows) {
+                UUID bookId = row.get(0, UUID.class);
+                stats.put(bookId, new BookBorrowingStats(bookId, row.get(1, String.class), row.get(2, String.class),
+                        row.get(3, Long.class), row.get(4, Long.class), row.get(5, Long.class)));
+            }
+        }
+        logger.debug("Read borrowing statistics of {} out of {} books", stats.size(), bookIds.size());
+        return stats;
+    }
 }
@@ -1,13 +1,26 @@
 package com.tuankiet.repositories.impl;
 
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Slice;
+import com.tuankiet.dto.common.TotalCountStrategy;
+import com.tuankiet.dto.response.DailyBorrowingSummary;
+import com.tuankiet.dto.common.Sort;
+import com.tuankiet.dto.common.SortCriteria;
+import com.tuankiet.dto.common.SortDirection;
 import com.tuankiet.dto.search.BorrowingSearchCriteria;
 import com.tuankiet.entities.Book;
 import com.tuankiet.entities.Borrowing;
 import com.tuankiet.entities.Member;
+import com.tuankiet.enums.BookCategory;
 import com.tuankiet.enums.BorrowingStatus;
 import com.tuankiet.repositories.BorrowingRepository;
+import com.tuankiet.repositories.support.FetchPlan;
+import com.tuankiet.repositories.support.HqlFilter;
+import com.tuankiet.repositories.support.Projection;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
@@ -20,9 +33,16 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
 * Implementation of the BorrowingRepository interface.
@@ -36,16 +56,28 @@ public class BorrowingRepositoryImpl extends BaseRepositoryImpl<Borrowing> imple
 
   private static final Logger logger = LoggerFactory.getLogger(BorrowingRepositoryImpl.class);
 
+  private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+  /** Statuses of a loan whose copy has not come back yet: overdue loans are still active. */
+  private static final List<BorrowingStatus> ACTIVE_STATUSES = List.of(BorrowingStatus.BORROWED, BorrowingStatus.OVERDUE);
+
   public BorrowingRepositoryImpl(SessionFactory sessionFactory) {
       this.sessionFactory = sessionFactory;
   }
 
   @Override
   public List<Borrowing> findByBookId(UUID bookId) {
-      try (Session session = sessionFactory.openSession()) {
+      return findByBookId(bookId, FetchPlan.NONE);
+  }
+
+  @Override
+  public List<Borrowing> findByBookId(UUID bookId, FetchPlan fetchPlan) {
+      try {
+          Session session = currentSession();
           CriteriaBuilder cb = session.getCriteriaBuilder();
           CriteriaQuery<Borrowing> cq = cb.createQuery(Borrowing.class);
           Root<Borrowing> root = cq.from(Borrowing.class);
+          applyFetchPlan(session, root, fetchPlan);
           cq.where(cb.equal(root.get("book").get("id"), bookId));
           List<Borrowing> result = session.createQuery(cq).getResultList();
           logger.debug("Found {} borrowings for book ID {}", result.size(), bookId);
@@ -58,10 +90,17 @@ public class BorrowingRepositoryImpl extends BaseRepositoryImpl<Borrowing> imple
 
   @Override
   public List<Borrowing> findByMemberId(UUID memberId) {
-      try (Session session = sessionFactory.openSession()) {
+      return findByMemberId(memberId, FetchPlan.NONE);
+  }
+
+  @Override
+  public List<Borrowing> findByMemberId(UUID memberId, FetchPlan fetchPlan) {
+      try {
+          Session session = currentSession();
           CriteriaBuilder cb = session.getCriteriaBuilder();
           CriteriaQuery<Borrowing> cq = cb.createQuery(Borrowing.class);
           Root<Borrowing> root = cq.from(Borrowing.class);
+          applyFetchPlan(session, root, fetchPlan);
           cq.where(cb.equal(root.get("member").get("id"), memberId));
           List<Borrowing> result = session.createQuery(cq).getResultList();
           logger.debug("Found {} borrowings for member ID {}", result.size(), memberId);
@@ -74,10 +113,17 @@ public class BorrowingRepositoryImpl extends BaseRepositoryImpl<Borrowing> imple
 
   @Override
   public List<Borrowing> findByStatus(BorrowingStatus status) {
-      try (Session session = sessionFactory.openSession()) {
+      return findByStatus(status, FetchPlan.NONE);
+  }
+
+  @Override
+  public List<Borrowing> findByStatus(BorrowingStatus status, FetchPlan fetchPlan) {
+      try {
+          Session session = currentSession();
           CriteriaBuilder cb = session.getCriteriaBuilder();
           CriteriaQuery<Borrowing> cq = cb.createQuery(Borrowing.class);
           Root<Borrowing> root = cq.from(Borrowing.class);
+          applyFetchPlan(session, root, fetchPlan);
           cq.where(cb.equal(root.get("status"), status));
           List<Borrowing> result = session.createQuery(cq).getResultList();
           logger.debug("Found {} borrowings with status {}", result.size(), status);
@@ -88,15 +134,154 @@ public class BorrowingRepositoryImpl extends BaseRepositoryImpl<Borrowing> imple
       }
   }
 
+  @Override
+  public <R> Stream<R> streamByStatus(BorrowingStatus status, Projection<Borrowing, R> projection, int fetchSize) {
+      try {
+          Session session = currentSession();
+          return stream(session, projection, new HqlFilter("br").and("br.status = :status", "status", status), null, fetchSize);
+      } catch (Exception e) {
+          logger.error("Error streaming borrowings by status {}: {}", status, e.getMessage(), e);
+          throw new RuntimeException("Failed to stream borrowings by status: " + e.getMessage(), e);
+      }
+  }
+
+  @Override
+  public <R> Stream<R> streamByMemberId(UUID memberId, Projection<Borrowing, R> projection, int fetchSize) {
+      try {
+          Session session = currentSession();
+          return stream(session, projection, new HqlFilter("br").and("br.member.id = :memberId", "memberId", memberId), null, fetchSize);
+      } catch (Exception e) {
+          logger.error("Error streaming borrowings by member ID {}: {}", memberId, e.getMessage(), e);
+          throw new RuntimeException("Failed to stream borrowings by member ID: " + e.getMessage(), e);
+      }
+  }
+
+  @Override
+  public <R> Stream<R> streamByBookId(UUID bookId, Projection<Borrowing, R> projection, int fetchSize) {
+      try {
+          Session session = currentSession();
+          return stream(session, projection, new HqlFilter("br").and("br.book.id = :bookId", "bookId", bookId), null, fetchSize);
+      } catch (Exception e) {
+          logger.error("Error streaming borrowings by book ID {}: {}", bookId, e.getMessage(), e);
+          throw new RuntimeException("Failed to stream borrowings by book ID: " + e.getMessage(), e);
+      }
+  }
+
+  @Override
+  public <R> Stream<R> streamOverdue(LocalDate today, Projection<Borrowing, R> projection, int fetchSize) {
+      try {
+          Session session = currentSession();
+          return stream(session, projection, new HqlFilter("br")
+                  .and("(br.status = :overdue OR (br.status = :borrowed AND br.dueDate < :today))", "today", today)
+                  .set("overdue", BorrowingStatus.OVERDUE)
+                  .set("borrowed", BorrowingStatus.BORROWED),
+                  null, fetchSize);
+      } catch (Exception e) {
+          logger.error("Error streaming overdue borrowings: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to stream overdue borrowings: " + e.getMessage(), e);
+      }
+  }
+
+  @Override
+  public <R> Stream<R> streamByBorrowDateBetween(LocalDate startDate, LocalDate endDate, Projection<Borrowing, R> projection, int fetchSize) {
+      return streamByBorrowDateBetween(startDate, endDate, null, null, projection, fetchSize);
+  }
+
+  @Override
+  public <R> Stream<R> streamByBorrowDateBetween(LocalDate startDate, LocalDate endDate, BorrowingStatus status, BookCategory category,
+                                                 Projection<Borrowing, R> projection, int fetchSize) {
+      try {
+          Session session = currentSession();
+          // Ordered by the indexed borrow date, so the range is read in index order
+          return stream(session, projection, borrowDateFilter(startDate, endDate, status, category),
+                  Sort.by(new SortCriteria("borrowDate", SortDirection.ASC)), fetchSize);
+      } catch (Exception e) {
+          logger.error("Error streaming borrowings between {} and {}: {}", startDate, endDate, e.getMessage(), e);
+          throw new RuntimeException("Failed to stream borrowings by date range: " + e.getMessage(), e);
+      }
+  }
+
+  @Override
+  public List<DailyBorrowingSummary> summarizeByBorrowDate(LocalDate startDate, LocalDate endDate, BorrowingStatus status, BookCategory category) {
+      try {
+          Session session = currentSession();
+          HqlFilter filter = borrowDateFilter(startDate, endDate, status, category);
+          Query<Tuple> query = session.createQuery(
+                  "SELECT br.borrowDate, br.book.category, COUNT(br) FROM Borrowing br" + filter.toWhereClause()
+                          + " GROUP BY br.borrowDate, br.book.category ORDER BY br.borrowDate, br.book.category", Tuple.class);
+          filter.bind(query);
+          List<DailyBorrowingSummary> summaries = new ArrayList<>();
+          for (Tuple row : query.getResultList()) {
+              summaries.add(new DailyBorrowingSummary(row.get(0, LocalDate.class), row.get(1, BookCategory.class), row.get(2, Long.class)));
+          }
+          logger.debug("Summarized borrowings between {} and {} into {} day and category buckets", startDate, endDate, summaries.size());
+          return summaries;
+      } catch (Exception e) {
+          logger.error("Error summarizing borrowings between {} and {}: {}", startDate, endDate, e.getMessage(), e);
+          throw new RuntimeException("Failed to summarize borrowings by date range: " + e.getMessage(), e);
+      }
+  }
+
+  @Override
+  public List<UUID> findOverdueCandidateIds(LocalDate today, int limit) {
+      try {
+          Session session = currentSession();
+          List<UUID> ids = session.createQuery(
+                  "SELECT br.id FROM Borrowing br WHERE br.status = :borrowed AND br.dueDate < :today ORDER BY br.dueDate", UUID.class)
+                  .setParameter("borrowed", BorrowingStatus.BORROWED)
+                  .setParameter("today", today)
+                  .setMaxResults(limit)
+                  .getResultList();
+          logger.debug("Found {} borrowings to mark overdue (limit {})", ids.size(), limit);
+          return ids;
+      } catch (Exception e) {
+          logger.error("Error finding borrowings to mark overdue: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to find overdue borrowings: " + e.getMessage(), e);
+      }
+  }
+
+  @Override
+  public int markOverdue(Collection<UUID> borrowingIds, LocalDate today) {
+      if (borrowingIds.isEmpty()) {
+          return 0;
+      }
+      try {
+          Session session = currentSession();
+          List<UUID> pending = new ArrayList<>(borrowingIds);
+          int updated = 0;
+          for (int from = 0; from < pending.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+              List<UUID> chunk = pending.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, pending.size()));
+              // Versioned, so that an entity update racing with the sweep fails its version check instead of
+              // writing BORROWED back; the status and date conditions skip rows that changed since they were found
+              updated += session.createMutationQuery(
+                      "UPDATE VERSIONED Borrowing br SET br.status = :overdue, br.updatedAt = :now "
+                      + "WHERE br.id IN (:ids) AND br.status = :borrowed AND br.dueDate < :today")
+                  .setParameter("overdue", BorrowingStatus.OVERDUE)
+                  .setParameter("now", LocalDateTime.now())
+                  .setParameterList("ids", chunk)
+                  .setParameter("borrowed", BorrowingStatus.BORROWED)
+                  .setParameter("today", today)
+                  .executeUpdate();
+          }
+          invalidateCachedSearches();
+          logger.debug("Marked {} of {} borrowings overdue", updated, pending.size());
+          return updated;
+      } catch (Exception e) {
+          logger.error("Error marking borrowings overdue: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to mark borrowings overdue: " + e.getMessage(), e);
+      }
+  }
+
   @Override
   public List<Borrowing> findActiveBorrowings(Book book, Member member) {
-      try (Session session = sessionFactory.openSession()) {
+      try {
+          Session session = currentSession();
           CriteriaBuilder cb = session.getCriteriaBuilder();
           CriteriaQuery<Borrowing> cq = cb.createQuery(Borrowing.class);
           Root<Borrowing> root = cq.from(Borrowing.class);
           Predicate bookPredicate = cb.equal(root.get("book"), book);
           Predicate memberPredicate = cb.equal(root.get("member"), member);
-          Predicate statusPredicate = cb.equal(root.get("status"), BorrowingStatus.BORROWED);
+          Predicate statusPredicate = root.get("status").in(ACTIVE_STATUSES);
           cq.where(cb.and(bookPredicate, memberPredicate, statusPredicate));
           List<Borrowing> result = session.createQuery(cq).getResultList();
           logger.debug("Found {} active borrowings for book {} and member {}", result.size(), book.getId(), member.getId());
@@ -107,15 +292,41 @@ public class BorrowingRepositoryImpl extends BaseRepositoryImpl<Borrowing> imple
       }
   }
 
+  @Override
+  public Map<UUID, Set<UUID>> findActiveBorrowerIds(Collection<UUID> bookIds) {
+      try {
+          Session session = currentSession();
+          List<UUID> pending = new ArrayList<>(bookIds);
+          Map<UUID, Set<UUID>> borrowerIds = new HashMap<>();
+          // Stay well below the SQL Server limit of 2100 parameters per statement
+          for (int from = 0; from < pending.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+              List<UUID> chunk = pending.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, pending.size()));
+              for (Tuple row : session.createQuery(
+                      "SELECT br.book.id, br.member.id FROM Borrowing br WHERE br.status IN (:statuses) AND br.book.id IN (:bookIds)", Tuple.class)
+                      .setParameterList("statuses", ACTIVE_STATUSES)
+                      .setParameterList("bookIds", chunk)
+                      .getResultList()) {
+                  borrowerIds.computeIfAbsent(row.get(0, UUID.class), bookId -> new HashSet<>()).add(row.get(1, UUID.class));
+              }
+          }
+          logger.debug("Found active borrowers of {} out of {} books", borrowerIds.size(), pending.size());
+          return borrowerIds;
+      } catch (Exception e) {
+          logger.error("Error finding active borrowers of books: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to find active borrowers: " + e.getMessage(), e);
+      }
+  }
+
   @Override
   public long countBorrowedCopies(UUID bookId) {
-      try (Session session = sessionFactory.openSession()) {
+      try {
+          Session session = currentSession();
           CriteriaBuilder cb = session.getCriteriaBuilder();
           CriteriaQuery<Long> cq = cb.createQuery(Long.class);
           Root<Borrowing> root = cq.from(Borrowing.class);
           cq.select(cb.count(root)).where(
               cb.equal(root.get("book").get("id"), bookId),
-              cb.equal(root.get("status"), BorrowingStatus.BORROWED)
+              root.get("status").in(ACTIVE_STATUSES)
           );
           long count = session.createQuery(cq).getSingleResult();
           logger.debug("Counted {} borrowed copies for book ID {}", count, bookId);
@@ -128,63 +339,138 @@ public class BorrowingRepositoryImpl extends BaseRepositoryImpl<Borrowing> imple
 
   @Override
   public Page<Borrowing> searchBorrowings(BorrowingSearchCriteria criteria, PageRequest pageRequest) {
-      try (Session session = sessionFactory.openSession()) {
-          CriteriaBuilder cb = session.getCriteriaBuilder();
-          CriteriaQuery<Borrowing> cq = cb.createQuery(Borrowing.class);
-          Root<Borrowing> root = cq.from(Borrowing.class);
-          List<Predicate> predicates = new ArrayList<>();
-
-          if (criteria.getBookId() != null) {
-              predicates.add(cb.equal(root.get("book").get("id"), criteria.getBookId()));
-          }
-          if (criteria.getMemberId() != null) {
-              predicates.add(cb.equal(root.get("member").get("id"), criteria.getMemberId()));
-          }
-          if (criteria.getBorrowDateFrom() != null) {
-              predicates.add(cb.greaterThanOrEqualTo(root.get("borrowDate"), criteria.getBorrowDateFrom()));
-          }
-          if (criteria.getBorrowDateTo() != null) {
-              predicates.add(cb.lessThanOrEqualTo(root.get("borrowDate"), criteria.getBorrowDateTo()));
-          }
-          if (criteria.getDueDateFrom() != null) {
-              predicates.add(cb.greaterThanOrEqualTo(root.get("dueDate"), criteria.getDueDateFrom()));
-          }
-          if (criteria.getDueDateTo() != null) {
-              predicates.add(cb.lessThanOrEqualTo(root.get("dueDate"), criteria.getDueDateTo()));
-          }
-          if (criteria.getStatus() != null) {
-              predicates.add(cb.equal(root.get("status"), criteria.getStatus()));
-          }
+      return searchBorrowings(criteria, pageRequest, FetchPlan.NONE);
+  }
 
-          cq.where(predicates.toArray(new Predicate[0]));
+  @Override
+  public Page<Borrowing> searchBorrowings(BorrowingSearchCriteria criteria, PageRequest pageRequest, FetchPlan fetchPlan) {
+      try {
+          Session session = currentSession();
+          Page<Borrowing> page = page(session, pageRequest, entityProjection(session, fetchPlan), filter(criteria));
+          logger.debug("Found {} borrowings for search criteria and page {}", page.getContent().size(), pageRequest.getPage());
+          return page;
+      } catch (Exception e) {
+          logger.error("Error searching borrowings: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to search borrowings: " + e.getMessage(), e);
+      }
+  }
+  @Override
+  public CursorPage<Borrowing> searchBorrowings(BorrowingSearchCriteria criteria, CursorPageRequest pageRequest) {
+      return searchBorrowings(criteria, pageRequest, FetchPlan.NONE);
+  }
 
-          if (pageRequest.getSort().isSorted()) {
-              pageRequest.getSort().getCriteria().forEach(sortCriteria -> {
-                  if (sortCriteria.getDirection() == com.tuankiet.dto.common.SortDirection.ASC) {
-                      cq.orderBy(cb.asc(root.get(sortCriteria.getField())));
-                  } else {
-                      cq.orderBy(cb.desc(root.get(sortCriteria.getField())));
-                  }
-              });
-          }
+  @Override
+  public CursorPage<Borrowing> searchBorrowings(BorrowingSearchCriteria criteria, CursorPageRequest pageRequest, FetchPlan fetchPlan) {
+      try {
+          Session session = currentSession();
+          CursorPage<Borrowing> page = seek(session, pageRequest, entityProjection(session, fetchPlan), filter(criteria));
+          logger.debug("Found {} borrowings for search criteria after cursor {}", page.getContent().size(), pageRequest.getCursor());
+          return page;
+      } catch (Exception e) {
+          logger.error("Error searching borrowings with cursor: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to search borrowings with cursor: " + e.getMessage(), e);
+      }
+  }
+  @Override
+  public Slice<Borrowing> searchBorrowings(BorrowingSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy) {
+      return searchBorrowings(criteria, pageRequest, totalCountStrategy, FetchPlan.NONE);
+  }
 
-          Query<Borrowing> query = session.createQuery(cq);
-          query.setFirstResult((int) pageRequest.getOffset());
-          query.setMaxResults(pageRequest.getSize());
+  @Override
+  public Slice<Borrowing> searchBorrowings(BorrowingSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy,
+                                           FetchPlan fetchPlan) {
+      try {
+          Session session = currentSession();
+          Slice<Borrowing> slice = slice(session, pageRequest, totalCountStrategy, criteria.toString(),
+                  entityProjection(session, fetchPlan), filter(criteria));
+          logger.debug("Found {} borrowings for search criteria and page {} (total: {})",
+                  slice.getContent().size(), pageRequest.getPage(), slice.getTotalElements());
+          return slice;
+      } catch (Exception e) {
+          logger.error("Error searching borrowings slice: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to search borrowings: " + e.getMessage(), e);
+      }
+  }
 
-          List<Borrowing> content = query.getResultList();
+  @Override
+  public <R> Page<R> searchBorrowings(BorrowingSearchCriteria criteria, PageRequest pageRequest, Projection<Borrowing, R> projection) {
+      try {
+          Session session = currentSession();
+          Page<R> page = page(session, pageRequest, projection, filter(criteria));
+          logger.debug("Found {} projected borrowings for search criteria and page {}", page.getContent().size(), pageRequest.getPage());
+          return page;
+      } catch (Exception e) {
+          logger.error("Error searching borrowings: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to search borrowings: " + e.getMessage(), e);
+      }
+  }
 
-          // Count total elements for pagination
-          CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
-          Root<Borrowing> countRoot = countQuery.from(Borrowing.class);
-          countQuery.select(cb.count(countRoot)).where(predicates.toArray(new Predicate[0]));
-          long totalElements = session.createQuery(countQuery).getSingleResult();
+  @Override
+  public <R> CursorPage<R> searchBorrowings(BorrowingSearchCriteria criteria, CursorPageRequest pageRequest, Projection<Borrowing, R> projection) {
+      try {
+          Session session = currentSession();
+          CursorPage<R> page = seek(session, pageRequest, projection, filter(criteria));
+          logger.debug("Found {} projected borrowings for search criteria after cursor {}", page.getContent().size(), pageRequest.getCursor());
+          return page;
+      } catch (Exception e) {
+          logger.error("Error searching borrowings with cursor: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to search borrowings with cursor: " + e.getMessage(), e);
+      }
+  }
 
-          logger.debug("Found {} borrowings for search criteria and page {}", content.size(), pageRequest.getPage());
-          return new Page<>(content, totalElements, pageRequest.getPage(), pageRequest.getSize());
+  @Override
+  public <R> Slice<R> searchBorrowings(BorrowingSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy,
+                                       Projection<Borrowing, R> projection) {
+      try {
+          Session session = currentSession();
+          Slice<R> slice = slice(session, pageRequest, totalCountStrategy, criteria.toString(), projection,
+                  filter(criteria));
+          logger.debug("Found {} projected borrowings for search criteria and page {} (total: {})",
+                  slice.getContent().size(), pageRequest.getPage(), slice.getTotalElements());
+          return slice;
       } catch (Exception e) {
-          logger.error("Error searching borrowings: {}", e.getMessage(), e);
+          logger.error("Error searching borrowings slice: {}", e.getMessage(), e);
           throw new RuntimeException("Failed to search borrowings: " + e.getMessage(), e);
       }
   }
+
+  private HqlFilter filter(BorrowingSearchCriteria criteria) {
+      HqlFilter filter = new HqlFilter("br");
+
+      if (criteria.getBookId() != null) {
+          filter.and("br.book.id = :bookId", "bookId", criteria.getBookId());
+      }
+      if (criteria.getMemberId() != null) {
+          filter.and("br.member.id = :memberId", "memberId", criteria.getMemberId());
+      }
+      if (criteria.getBorrowDateFrom() != null) {
+          filter.and("br.borrowDate >= :borrowDateFrom", "borrowDateFrom", criteria.getBorrowDateFrom());
+      }
+      if (criteria.getBorrowDateTo() != null) {
+          filter.and("br.borrowDate <= :borrowDateTo", "borrowDateTo", criteria.getBorrowDateTo());
+      }
+      if (criteria.getDueDateFrom() != null) {
+          filter.and("br.dueDate >= :dueDateFrom", "dueDateFrom", criteria.getDueDateFrom());
+      }
+      if (criteria.getDueDateTo() != null) {
+          filter.and("br.dueDate <= :dueDateTo", "dueDateTo", criteria.getDueDateTo());
+      }
+      if (criteria.getStatus() != null) {
+          filter.and("br.status = :status", "status", criteria.getStatus());
+      }
+      return filter;
+  }
+
+  private HqlFilter borrowDateFilter(LocalDate startDate, LocalDate endDate, BorrowingStatus status, BookCategory category) {
+      HqlFilter filter = new HqlFilter("br")
+              .and("br.borrowDate >= :startDate", "startDate", startDate)
+              .and("br.borrowDate <= :endDate", "endDate", endDate);
+      if (status != null) {
+          filter.and("br.status = :status", "status", status);
+      }
+      if (category != null) {
+          filter.and("br.book.category = :category", "category", category);
+      }
+      return filter;
+  }
 }
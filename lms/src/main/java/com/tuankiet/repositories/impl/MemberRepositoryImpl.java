@@ -1,24 +1,34 @@
 package com.tuankiet.repositories.impl;
 
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Slice;
+import com.tuankiet.dto.common.TotalCountStrategy;
+import com.tuankiet.dto.response.MemberBorrowingStats;
 import com.tuankiet.dto.search.MemberSearchCriteria;
 import com.tuankiet.entities.Member;
 import com.tuankiet.repositories.MemberRepository;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Predicate;
-import jakarta.persistence.criteria.Root;
+import com.tuankiet.repositories.support.FetchPlan;
+import com.tuankiet.repositories.support.HqlFilter;
+import com.tuankiet.repositories.support.LoanCounters;
+import com.tuankiet.repositories.support.Projection;
+import jakarta.persistence.Tuple;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
-import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
 * Implementation of the MemberRepository interface.
@@ -32,18 +42,17 @@ public class MemberRepositoryImpl extends BaseRepositoryImpl<Member> implements
 
   private static final Logger logger = LoggerFactory.getLogger(MemberRepositoryImpl.class);
 
+  private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
   public MemberRepositoryImpl(SessionFactory sessionFactory) {
       this.sessionFactory = sessionFactory;
   }
 
   @Override
   public Optional<Member> findByEmail(String email) {
-      try (Session session = sessionFactory.openSession()) {
-          CriteriaBuilder cb = session.getCriteriaBuilder();
-          CriteriaQuery<Member> cq = cb.createQuery(Member.class);
-          Root<Member> root = cq.from(Member.class);
-          cq.where(cb.equal(cb.lower(root.get("email")), email.toLowerCase()));
-          Member member = session.createQuery(cq).uniqueResult();
+      try {
+          // Resolved through the natural-id cache, then the entity cache, before querying
+          Member member = currentSession().bySimpleNaturalId(Member.class).load(Member.canonicalEmail(email));
           logger.debug("Found member with email {}: {}", email, member != null);
           return Optional.ofNullable(member);
       } catch (Exception e) {
@@ -54,13 +63,8 @@ public class MemberRepositoryImpl extends BaseRepositoryImpl<Member> implements
 
   @Override
   public boolean existsByEmail(String email) {
-      try (Session session = sessionFactory.openSession()) {
-          CriteriaBuilder cb = session.getCriteriaBuilder();
-          CriteriaQuery<Long> cq = cb.createQuery(Long.class);
-          Root<Member> root = cq.from(Member.class);
-          cq.select(cb.count(root)).where(cb.equal(cb.lower(root.get("email")), email.toLowerCase()));
-          Long count = session.createQuery(cq).getSingleResult();
-          boolean exists = count > 0;
+      try {
+          boolean exists = currentSession().bySimpleNaturalId(Member.class).loadOptional(Member.canonicalEmail(email)).isPresent();
           logger.debug("Member with email {} exists: {}", email, exists);
           return exists;
       } catch (Exception e) {
@@ -71,54 +75,166 @@ public class MemberRepositoryImpl extends BaseRepositoryImpl<Member> implements
 
   @Override
   public Page<Member> searchMembers(MemberSearchCriteria criteria, PageRequest pageRequest) {
-      try (Session session = sessionFactory.openSession()) {
-          CriteriaBuilder cb = session.getCriteriaBuilder();
-          CriteriaQuery<Member> cq = cb.createQuery(Member.class);
-          Root<Member> root = cq.from(Member.class);
-          List<Predicate> predicates = new ArrayList<>();
-
-          if (criteria.getFirstName() != null && !criteria.getFirstName().isEmpty()) {
-              predicates.add(cb.like(cb.lower(root.get("firstName")), "%" + criteria.getFirstName().toLowerCase() + "%"));
-          }
-          if (criteria.getLastName() != null && !criteria.getLastName().isEmpty()) {
-              predicates.add(cb.like(cb.lower(root.get("lastName")), "%" + criteria.getLastName().toLowerCase() + "%"));
-          }
-          if (criteria.getEmail() != null && !criteria.getEmail().isEmpty()) {
-              predicates.add(cb.like(cb.lower(root.get("email")), "%" + criteria.getEmail().toLowerCase() + "%"));
-          }
-          if (criteria.getPhoneNumber() != null && !criteria.getPhoneNumber().isEmpty()) {
-              predicates.add(cb.like(root.get("phoneNumber"), "%" + criteria.getPhoneNumber() + "%"));
-          }
-
-          cq.where(predicates.toArray(new Predicate[0]));
+      try {
+          Session session = currentSession();
+          Page<Member> page = page(session, pageRequest, entityProjection(session, FetchPlan.NONE), filter(criteria));
+          logger.debug("Found {} members for search criteria and page {}", page.getContent().size(), pageRequest.getPage());
+          return page;
+      } catch (Exception e) {
+          logger.error("Error searching members: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to search members: " + e.getMessage(), e);
+      }
+  }
 
-          if (pageRequest.getSort().isSorted()) {
-              pageRequest.getSort().getCriteria().forEach(sortCriteria -> {
-                  if (sortCriteria.getDirection() == com.tuankiet.dto.common.SortDirection.ASC) {
-                      cq.orderBy(cb.asc(root.get(sortCriteria.getField())));
-                  } else {
-                      cq.orderBy(cb.desc(root.get(sortCriteria.getField())));
-                  }
-              });
-          }
+  @Override
+  public CursorPage<Member> searchMembers(MemberSearchCriteria criteria, CursorPageRequest pageRequest) {
+      try {
+          Session session = currentSession();
+          CursorPage<Member> page = seek(session, pageRequest, entityProjection(session, FetchPlan.NONE), filter(criteria));
+          logger.debug("Found {} members for search criteria after cursor {}", page.getContent().size(), pageRequest.getCursor());
+          return page;
+      } catch (Exception e) {
+          logger.error("Error searching members with cursor: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to search members with cursor: " + e.getMessage(), e);
+      }
+  }
 
-          Query<Member> query = session.createQuery(cq);
-          query.setFirstResult((int) pageRequest.getOffset());
-          query.setMaxResults(pageRequest.getSize());
+  @Override
+  public Slice<Member> searchMembers(MemberSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy) {
+      try {
+          Session session = currentSession();
+          Slice<Member> slice = slice(session, pageRequest, totalCountStrategy, criteria.toString(),
+                  entityProjection(session, FetchPlan.NONE), filter(criteria));
+          logger.debug("Found {} members for search criteria and page {} (total: {})",
+                  slice.getContent().size(), pageRequest.getPage(), slice.getTotalElements());
+          return slice;
+      } catch (Exception e) {
+          logger.error("Error searching members slice: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to search members: " + e.getMessage(), e);
+      }
+  }
 
-          List<Member> content = query.getResultList();
+  @Override
+  public <R> Page<R> searchMembers(MemberSearchCriteria criteria, PageRequest pageRequest, Projection<Member, R> projection) {
+      try {
+          Session session = currentSession();
+          Page<R> page = page(session, pageRequest, projection, filter(criteria));
+          logger.debug("Found {} projected members for search criteria and page {}", page.getContent().size(), pageRequest.getPage());
+          return page;
+      } catch (Exception e) {
+          logger.error("Error searching members: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to search members: " + e.getMessage(), e);
+      }
+  }
 
-          // Count total elements for pagination
-          CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
-          Root<Member> countRoot = countQuery.from(Member.class);
-          countQuery.select(cb.count(countRoot)).where(predicates.toArray(new Predicate[0]));
-          long totalElements = session.createQuery(countQuery).getSingleResult();
+  @Override
+  public <R> CursorPage<R> searchMembers(MemberSearchCriteria criteria, CursorPageRequest pageRequest, Projection<Member, R> projection) {
+      try {
+          Session session = currentSession();
+          CursorPage<R> page = seek(session, pageRequest, projection, filter(criteria));
+          logger.debug("Found {} projected members for search criteria after cursor {}", page.getContent().size(), pageRequest.getCursor());
+          return page;
+      } catch (Exception e) {
+          logger.error("Error searching members with cursor: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to search members with cursor: " + e.getMessage(), e);
+      }
+  }
 
-          logger.debug("Found {} members for search criteria and page {}", content.size(), pageRequest.getPage());
-          return new Page<>(content, totalElements, pageRequest.getPage(), pageRequest.getSize());
+  @Override
+  public <R> Slice<R> searchMembers(MemberSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy,
+                                    Projection<Member, R> projection) {
+      try {
+          Session session = currentSession();
+          Slice<R> slice = slice(session, pageRequest, totalCountStrategy, criteria.toString(), projection,
+                  filter(criteria));
+          logger.debug("Found {} projected members for search criteria and page {} (total: {})",
+                  slice.getContent().size(), pageRequest.getPage(), slice.getTotalElements());
+          return slice;
       } catch (Exception e) {
-          logger.error("Error searching members: {}", e.getMessage(), e);
+          logger.error("Error searching members slice: {}", e.getMessage(), e);
           throw new RuntimeException("Failed to search members: " + e.getMessage(), e);
       }
   }
+
+  @Override
+  public int adjustLoanCounters(UUID memberId, long borrows, long activeLoans, long overdueLoans, LocalDate borrowDate) {
+      try {
+          int updated = LoanCounters.adjust(currentSession(), LoanCounters.Owner.MEMBER, memberId, borrows, activeLoans, overdueLoans, borrowDate);
+          logger.debug("Adjusted loan counters of member ID {} by {}/{}/{}: {} row(s) updated",
+                  memberId, borrows, activeLoans, overdueLoans, updated);
+          return updated;
+      } catch (Exception e) {
+          logger.error("Error adjusting loan counters of member ID {}: {}", memberId, e.getMessage(), e);
+          throw new RuntimeException("Failed to adjust member loan counters: " + e.getMessage(), e);
+      }
+  }
+
+  @Override
+  public int recountLoanCounters(Collection<UUID> memberIds) {
+      try {
+          int updated = LoanCounters.recount(currentSession(), LoanCounters.Owner.MEMBER, memberIds);
+          logger.debug("Recounted loan counters of {} out of {} members", updated, memberIds.size());
+          return updated;
+      } catch (Exception e) {
+          logger.error("Error recounting loan counters of members: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to recount member loan counters: " + e.getMessage(), e);
+      }
+  }
+
+  @Override
+  public int recountLoanCountersOfBorrowings(Collection<UUID> borrowingIds) {
+      try {
+          int updated = LoanCounters.recountOfBorrowings(currentSession(), LoanCounters.Owner.MEMBER, borrowingIds);
+          logger.debug("Recounted loan counters of {} members for {} borrowings", updated, borrowingIds.size());
+          return updated;
+      } catch (Exception e) {
+          logger.error("Error recounting loan counters of members by borrowings: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to recount member loan counters: " + e.getMessage(), e);
+      }
+  }
+
+  @Override
+  public Map<UUID, MemberBorrowingStats> findBorrowingStats(Collection<UUID> memberIds) {
+      try {
+          Session session = currentSession();
+          List<UUID> ids = new ArrayList<>(memberIds);
+          Map<UUID, MemberBorrowingStats> stats = new HashMap<>();
+          // Stay well below the SQL Server limit of 2100 parameters per statement
+          for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+              List<Tuple> rows = session.createQuery(
+                      "SELECT m.id, m.firstName, m.lastName, m.email, m.totalBorrows, m.activeLoans, m.overdueLoans "
+                      + "FROM Member m WHERE m.id IN (:ids)", Tuple.class)
+                  .setParameterList("ids", ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, ids.size())))
+                  .getResultList();
+              for (Tuple row : rows) {
+                  UUID memberId = row.get(0, UUID.class);
+                  stats.put(memberId, new MemberBorrowingStats(memberId, row.get(1, String.class) + " " + row.get(2, String.class),
+                          row.get(3, String.class), row.get(4, Long.class), row.get(5, Long.class), row.get(6, Long.class)));
+              }
+          }
+          logger.debug("Read borrowing statistics of {} out of {} members", stats.size(), memberIds.size());
+          return stats;
+      } catch (Exception e) {
+          logger.error("Error reading borrowing statistics of members: {}", e.getMessage(), e);
+          throw new RuntimeException("Failed to read member borrowing statistics: " + e.getMessage(), e);
+      }
+  }
+
+  private HqlFilter filter(MemberSearchCriteria criteria) {
+      HqlFilter filter = new HqlFilter("m");
+
+      if (criteria.getFirstName() != null && !criteria.getFirstName().isEmpty()) {
+          filter.and("LOWER(m.firstName) LIKE :firstName", "firstName", "%" + criteria.getFirstName().toLowerCase() + "%");
+      }
+      if (criteria.getLastName() != null && !criteria.getLastName().isEmpty()) {
+          filter.and("LOWER(m.lastName) LIKE :lastName", "lastName", "%" + criteria.getLastName().toLowerCase() + "%");
+      }
+      if (criteria.getEmail() != null && !criteria.getEmail().isEmpty()) {
+          filter.and("m.email LIKE :email", "email", "%" + Member.canonicalEmail(criteria.getEmail()) + "%");
+      }
+      if (criteria.getPhoneNumber() != null && !criteria.getPhoneNumber().isEmpty()) {
+          filter.and("m.phoneNumber LIKE :phoneNumber", "phoneNumber", "%" + criteria.getPhoneNumber() + "%");
+      }
+      return filter;
+  }
 }
@@ -0,0 +1,81 @@
+package com.tuankiet.repositories.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-TTL cache of search totals keyed by entity and search criteria.
+ * Used by slice searches with {@link com.tuankiet.dto.common.TotalCountStrategy#CACHED},
+ * so that paging through the same result set runs its COUNT at most once per TTL.
+ * Totals may therefore be slightly stale; callers opt in per request.
+ * 
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class CountCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CountCache.class);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    public CountCache(@Value("${search.count-cache.ttl-seconds:30}") long ttlSeconds,
+                      @Value("${search.count-cache.max-entries:1000}") int maxEntries) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Get the cached total for the key, computing and caching it if absent or expired.
+     * 
+     * @param key the cache key (entity name plus normalized criteria)
+     * @param counter computes the exact total on a miss
+     * @return the total element count
+     */
+    public long get(String key, LongSupplier counter) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            logger.debug("Count cache hit for key {}", key);
+            return entry.total;
+        }
+        long total = counter.getAsLong();
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(e -> e.expiresAt <= now);
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        entries.put(key, new Entry(total, now + ttlMillis));
+        logger.debug("Count cache miss for key {}, total {}", key, total);
+        return total;
+    }
+
+    /**
+     * Drop all cached totals whose key starts with the given prefix, e.g. after bulk writes.
+     * 
+     * @param prefix the key prefix, usually the entity name
+     */
+    public void invalidate(String prefix) {
+        entries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private static final class Entry {
+        private final long total;
+        private final long expiresAt;
+
+        private Entry(long total, long expiresAt) {
+            this.total = total;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
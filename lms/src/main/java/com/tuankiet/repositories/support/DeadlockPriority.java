@@ -0,0 +1,58 @@
+package com.tuankiet.repositories.support;
+
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+/**
+ * Runs background work as the preferred victim of SQL Server deadlocks, so that when it deadlocks with a
+ * user's request, the background transaction is the one rolled back. The priority is a connection setting,
+ * so it is reset to NORMAL afterwards, before the pooled connection is reused.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class DeadlockPriority {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlockPriority.class);
+
+    private final SessionFactory sessionFactory;
+
+    public DeadlockPriority(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Run work at low deadlock priority. Must be called inside a transaction, which the work joins.
+     *
+     * @param work the work
+     * @param <T> the result type
+     * @return the work's result
+     */
+    public <T> T runLow(Supplier<T> work) {
+        set("LOW");
+        try {
+            return work.get();
+        } finally {
+            try {
+                set("NORMAL");
+            } catch (RuntimeException e) {
+                logger.warn("Could not reset the deadlock priority: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void set(String priority) {
+        sessionFactory.getCurrentSession().doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET DEADLOCK_PRIORITY " + priority);
+            }
+        });
+    }
+}
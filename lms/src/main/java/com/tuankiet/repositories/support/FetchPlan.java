@@ -0,0 +1,57 @@
+package com.tuankiet.repositories.support;
+
+import com.tuankiet.entities.BaseEntity;
+import com.tuankiet.entities.Book;
+import com.tuankiet.entities.Borrowing;
+
+/**
+ * Named fetch plans for repository reads, backed by the entity graphs declared on the entities.
+ * A use case that renders associations picks the matching plan so they are loaded in the same
+ * query, instead of one lazy load per row.
+ * 
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public enum FetchPlan {
+
+    /**
+     * Load only the queried entity; associations stay lazy.
+     */
+    NONE(null, BaseEntity.class),
+
+    /**
+     * Load a borrowing together with its book, the book's author and the member.
+     */
+    BORROWING_WITH_BOOK_AUTHOR_MEMBER(Borrowing.GRAPH_WITH_BOOK_AUTHOR_MEMBER, Borrowing.class),
+
+    /**
+     * Load a book together with its author.
+     */
+    BOOK_WITH_AUTHOR(Book.GRAPH_WITH_AUTHOR, Book.class);
+
+    private final String graphName;
+    private final Class<? extends BaseEntity> entityType;
+
+    FetchPlan(String graphName, Class<? extends BaseEntity> entityType) {
+        this.graphName = graphName;
+        this.entityType = entityType;
+    }
+
+    /**
+     * Get the name of the entity graph backing this plan.
+     *
+     * @return the graph name, or null for {@link #NONE}
+     */
+    public String getGraphName() {
+        return graphName;
+    }
+
+    public Class<? extends BaseEntity> getEntityType() {
+        return entityType;
+    }
+
+    public boolean appliesTo(Class<?> entityClass) {
+        return entityType.isAssignableFrom(entityClass);
+    }
+}
@@ -0,0 +1,114 @@
+package com.tuankiet.repositories.support;
+
+import org.hibernate.query.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WHERE conditions of a search on one root alias, with their parameter values kept apart.
+ * Conditions are constant HQL fragments, so the list of conditions is the filter's shape:
+ * it only depends on which criteria fields are set, never on their values.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class HqlFilter {
+
+    private final String alias;
+    private final List<String> conditions = new ArrayList<>();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    /**
+     * Create an empty filter.
+     *
+     * @param alias the root alias the conditions refer to
+     */
+    public HqlFilter(String alias) {
+        this.alias = alias;
+    }
+
+    /**
+     * Add a condition without parameters.
+     *
+     * @param condition the HQL condition
+     * @return this filter
+     */
+    public HqlFilter and(String condition) {
+        conditions.add(condition);
+        return this;
+    }
+
+    /**
+     * Add a condition with one named parameter.
+     *
+     * @param condition the HQL condition
+     * @param parameter the parameter name used in the condition
+     * @param value the parameter value
+     * @return this filter
+     */
+    public HqlFilter and(String condition, String parameter, Object value) {
+        conditions.add(condition);
+        parameters.put(parameter, value);
+        return this;
+    }
+
+    /**
+     * Set a further parameter used by a condition that has more than one.
+     *
+     * @param parameter the parameter name
+     * @param value the parameter value
+     * @return this filter
+     */
+    public HqlFilter set(String parameter, Object value) {
+        parameters.put(parameter, value);
+        return this;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    /**
+     * Get the conditions, which identify the filter's shape.
+     *
+     * @return the conditions in the order they were added
+     */
+    public List<String> getConditions() {
+        return Collections.unmodifiableList(conditions);
+    }
+
+    /**
+     * Get the parameter values, which together with the conditions identify the filter's results.
+     *
+     * @return the parameter values by name, in the order they were set
+     */
+    public Map<String, Object> getParameters() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    /**
+     * Render the WHERE clause, with any extra conditions appended after the filter's own.
+     *
+     * @param extraConditions conditions added by the query itself, e.g. a keyset predicate
+     * @return the WHERE clause with a leading space, or an empty string without conditions
+     */
+    public String toWhereClause(String... extraConditions) {
+        List<String> all = new ArrayList<>(conditions);
+        Collections.addAll(all, extraConditions);
+        return all.isEmpty() ? "" : " WHERE " + String.join(" AND ", all);
+    }
+
+    /**
+     * Bind the parameter values to a query built from this filter's shape.
+     *
+     * @param query the query
+     */
+    public void bind(Query<?> query) {
+        parameters.forEach(query::setParameter);
+    }
+}
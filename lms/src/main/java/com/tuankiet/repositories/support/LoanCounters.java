@@ -0,0 +1,155 @@
+package com.tuankiet.repositories.support;
+
+import com.tuankiet.entities.Book;
+import com.tuankiet.entities.Member;
+import com.tuankiet.enums.BorrowingStatus;
+import org.hibernate.Session;
+import org.hibernate.query.MutationQuery;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Set-based updates of the loan counters that books and members carry: total borrows, active loans,
+ * overdue loans and last borrowed date. The counters are columns the entities never write, so these
+ * updates cannot be overwritten by an entity flush and need no version increment. They are native
+ * {@link RowUpdates}, which evict only the updated books or members from the second-level cache.
+ * <p>
+ * Active loans are the BORROWED and OVERDUE borrowings; overdue loans are the OVERDUE ones, i.e. the
+ * borrowings the overdue sweeper has marked. They lag the due date by up to the sweeper's interval, and
+ * stay behind while the sweeper is failing. A recount recomputes the counters from the Borrowings table.
+ * <p>
+ * A recount first locks the counter rows, so that it waits for the transactions that already adjusted
+ * them, whose borrowings it then counts, and the transactions adjusting them later wait for it and add
+ * their delta to the recounted value. A transaction that changed a borrowing before the lock and adjusts
+ * after it deadlocks with the recount instead, and SQL Server rolls one of them back rather than losing
+ * the delta. Background recounts run at low deadlock priority ({@link DeadlockPriority}), so they are the
+ * ones rolled back and retried by their next run; the borrowing service's writes are retried on a
+ * deadlock by {@code @OptimisticRetry}.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class LoanCounters {
+
+    /** Stay well below the SQL Server limit of 2100 parameters per statement. */
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+    private static final List<String> ACTIVE_STATUSES = List.of(BorrowingStatus.BORROWED.name(), BorrowingStatus.OVERDUE.name());
+
+    /**
+     * An entity holding loan counters.
+     */
+    public enum Owner {
+        BOOK(Book.class, "Books", "book"),
+        MEMBER(Member.class, "Members", "member");
+
+        private final Class<?> entityClass;
+        private final String table;
+        private final String association;
+
+        Owner(Class<?> entityClass, String table, String association) {
+            this.entityClass = entityClass;
+            this.table = table;
+            this.association = association;
+        }
+    }
+
+    private LoanCounters() {
+    }
+
+    /**
+     * Add to the counters of one entity.
+     *
+     * @param session the current session
+     * @param owner the entity holding the counters
+     * @param id the entity ID
+     * @param borrows the change of total borrows
+     * @param activeLoans the change of active loans
+     * @param overdueLoans the change of overdue loans
+     * @param borrowDate a borrow date to record as the last one if it is later, or null
+     * @return the number of rows updated: 1, or 0 if the entity does not exist
+     */
+    public static int adjust(Session session, Owner owner, UUID id, long borrows, long activeLoans, long overdueLoans,
+                             LocalDate borrowDate) {
+        String lastBorrowed = borrowDate == null ? "" : ", last_borrowed_date = CASE WHEN last_borrowed_date IS NULL "
+                + "OR last_borrowed_date < :borrowDate THEN :borrowDate ELSE last_borrowed_date END";
+        MutationQuery update = RowUpdates.nativeUpdate(session, "UPDATE " + owner.table + " SET "
+                        + "total_borrows = total_borrows + :borrows, "
+                        + "active_loans = active_loans + :activeLoans, "
+                        + "overdue_loans = overdue_loans + :overdueLoans" + lastBorrowed
+                        + " WHERE id = :id")
+                .setParameter("borrows", borrows)
+                .setParameter("activeLoans", activeLoans)
+                .setParameter("overdueLoans", overdueLoans)
+                .setParameter("id", id);
+        if (borrowDate != null) {
+            update.setParameter("borrowDate", borrowDate);
+        }
+        int updated = update.executeUpdate();
+        if (updated > 0) {
+            RowUpdates.evict(session, owner.entityClass, List.of(id));
+        }
+        return updated;
+    }
+
+    /**
+     * Recompute the counters of the given entities from the Borrowings table.
+     *
+     * @param session the current session
+     * @param owner the entity holding the counters
+     * @param ids the entity IDs
+     * @return the number of rows updated
+     */
+    public static int recount(Session session, Owner owner, Collection<UUID> ids) {
+        String loans = "FROM Borrowings br WHERE br." + owner.association + "_id = " + owner.table + ".id";
+        String sql = "UPDATE " + owner.table + " SET "
+                + "total_borrows = (SELECT COUNT(*) " + loans + "), "
+                + "active_loans = (SELECT COUNT(*) " + loans + " AND br.status IN (:active)), "
+                + "overdue_loans = (SELECT COUNT(*) " + loans + " AND br.status = :overdue), "
+                + "last_borrowed_date = (SELECT MAX(br.borrow_date) " + loans + ") "
+                + "WHERE id IN (:ids)";
+        List<UUID> pending = new ArrayList<>(ids);
+        int updated = 0;
+        for (int from = 0; from < pending.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<UUID> chunk = pending.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, pending.size()));
+            session.createNativeQuery("SELECT id FROM " + owner.table + " WITH (UPDLOCK, ROWLOCK) WHERE id IN (:ids) ORDER BY id",
+                            Object.class)
+                    .setParameterList("ids", chunk)
+                    .getResultList();
+            updated += RowUpdates.nativeUpdate(session, sql)
+                    .setParameterList("ids", chunk)
+                    .setParameterList("active", ACTIVE_STATUSES)
+                    .setParameter("overdue", BorrowingStatus.OVERDUE.name())
+                    .executeUpdate();
+        }
+        RowUpdates.evict(session, owner.entityClass, pending);
+        return updated;
+    }
+
+    /**
+     * Recompute the counters of the entities the given borrowings refer to.
+     *
+     * @param session the current session
+     * @param owner the entity holding the counters
+     * @param borrowingIds the borrowing IDs
+     * @return the number of rows updated
+     */
+    public static int recountOfBorrowings(Session session, Owner owner, Collection<UUID> borrowingIds) {
+        List<UUID> pending = new ArrayList<>(borrowingIds);
+        Set<UUID> ids = new LinkedHashSet<>();
+        for (int from = 0; from < pending.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            ids.addAll(session.createQuery("SELECT DISTINCT br." + owner.association + ".id FROM Borrowing br WHERE br.id IN (:ids)",
+                            UUID.class)
+                    .setParameterList("ids", pending.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, pending.size())))
+                    .getResultList());
+        }
+        return recount(session, owner, ids);
+    }
+}
@@ -0,0 +1,44 @@
+package com.tuankiet.repositories.support;
+
+import jakarta.persistence.Tuple;
+
+/**
+ * Read-only projection of an entity query onto a result type.
+ * The query selects only the columns returned by {@link #select}, and each result row is built
+ * from that tuple by {@link #map}, so no entity is hydrated or attached to the persistence context.
+ * The HQL fragments are only rendered when a query shape is built; projections are used as part
+ * of the shape key and are therefore expected to be shared constants.
+ *
+ * @param <T> the queried entity type
+ * @param <R> the result type
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public interface Projection<T, R> {
+
+    /**
+     * Render the select list for the given root alias.
+     *
+     * @param alias the root alias
+     * @return the selected expressions, in the order {@link #map} reads them
+     */
+    String select(String alias);
+
+    /**
+     * Render the FROM clause: the root entity with the given alias and the joins the select list needs.
+     *
+     * @param alias the root alias
+     * @return the FROM clause without the FROM keyword
+     */
+    String from(String alias);
+
+    /**
+     * Build one result from a row. Columns after the ones selected by {@link #select}
+     * may be present (e.g. keyset keys or a window count) and must be ignored.
+     *
+     * @param tuple the row
+     * @return the result
+     */
+    R map(Tuple tuple);
+}
@@ -0,0 +1,33 @@
+package com.tuankiet.repositories.support;
+
+/**
+ * The pre-built HQL of one search shape: the content query and, where the search needs a total,
+ * the matching count query.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class QueryShape {
+
+    private final String contentHql;
+    private final String countHql;
+
+    public QueryShape(String contentHql, String countHql) {
+        this.contentHql = contentHql;
+        this.countHql = countHql;
+    }
+
+    public String getContentHql() {
+        return contentHql;
+    }
+
+    /**
+     * Get the count query with the same filter as the content query.
+     *
+     * @return the count HQL, or null if the shape has none
+     */
+    public String getCountHql() {
+        return countHql;
+    }
+}
@@ -0,0 +1,93 @@
+package com.tuankiet.repositories.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache of pre-built search HQL keyed by query shape: the entity, the selected columns,
+ * which filter conditions are present and the sort specification, but never the filter values.
+ * Every search with the same shape reuses the exact same HQL strings, so no string building
+ * happens on a hit and Hibernate's query plan cache always finds the interpreted query.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class QueryShapeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryShapeCache.class);
+
+    private final Map<Object, QueryShape> shapes = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final int maxShapes;
+
+    public QueryShapeCache(@Value("${search.query-shape-cache.max-shapes:1024}") int maxShapes) {
+        this.maxShapes = maxShapes;
+    }
+
+    /**
+     * Get the queries for the shape, building them on a miss.
+     * Once full, new shapes are built on every call instead of evicting the ones already cached.
+     *
+     * @param key the shape key; must implement value equality and not contain filter values
+     * @param builder builds the queries on a miss
+     * @return the content and count queries for the shape
+     */
+    public QueryShape get(Object key, Supplier<QueryShape> builder) {
+        QueryShape shape = shapes.get(key);
+        if (shape != null) {
+            hits.increment();
+            return shape;
+        }
+        misses.increment();
+        shape = builder.get();
+        if (shapes.size() < maxShapes) {
+            shapes.putIfAbsent(key, shape);
+        } else {
+            logger.warn("Query shape cache is full ({} shapes), not caching shape {}", maxShapes, key);
+        }
+        logger.debug("Query shape cache miss for key {}: {}", key, shape.getContentHql());
+        return shape;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the share of lookups served from the cache.
+     *
+     * @return the hit ratio between 0 and 1, or 0 before the first lookup
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public int size() {
+        return shapes.size();
+    }
+
+    @Override
+    public String toString() {
+        return "QueryShapeCache{" +
+                "shapes=" + size() +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                '}';
+    }
+}
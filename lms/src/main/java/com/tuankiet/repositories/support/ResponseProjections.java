@@ -0,0 +1,188 @@
+package com.tuankiet.repositories.support;
+
+import com.tuankiet.dto.response.AuthorResponse;
+import com.tuankiet.dto.response.BookResponse;
+import com.tuankiet.dto.response.BorrowingResponse;
+import com.tuankiet.dto.response.MemberResponse;
+import com.tuankiet.entities.Author;
+import com.tuankiet.entities.Book;
+import com.tuankiet.entities.Borrowing;
+import com.tuankiet.entities.Member;
+import com.tuankiet.enums.BookCategory;
+import com.tuankiet.enums.BorrowingStatus;
+import jakarta.persistence.Tuple;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+/**
+ * Projections that select exactly the columns of the response DTOs, for the read paths.
+ * Associations are joined in the same query: a book's author with a LEFT join, a borrowing's
+ * book and member with inner joins (both are mandatory). Join aliases are derived from the
+ * root alias (e.g. {@code bAuthor}), so filters must not reuse those names.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class ResponseProjections {
+
+    private static final String[] AUTHOR_FIELDS = {"id", "firstName", "lastName", "biography", "createdAt", "updatedAt"};
+    private static final String[] BOOK_FIELDS = {"id", "title", "isbn", "publicationYear", "category",
+                                                 "availableCopies", "totalCopies", "createdAt", "updatedAt"};
+    private static final String[] MEMBER_FIELDS = {"id", "firstName", "lastName", "email", "phoneNumber", "address",
+                                                   "registrationDate", "createdAt", "updatedAt"};
+    private static final String[] BORROWING_FIELDS = {"id", "borrowDate", "returnDate", "dueDate", "status",
+                                                      "createdAt", "updatedAt"};
+
+    /**
+     * Author columns into {@link AuthorResponse}.
+     */
+    public static final Projection<Author, AuthorResponse> AUTHOR = new Projection<>() {
+        @Override
+        public String select(String alias) {
+            return columns(alias, AUTHOR_FIELDS);
+        }
+
+        @Override
+        public String from(String alias) {
+            return "Author " + alias;
+        }
+
+        @Override
+        public AuthorResponse map(Tuple tuple) {
+            return author(tuple, 0);
+        }
+    };
+
+    /**
+     * Book columns plus its author into {@link BookResponse}.
+     */
+    public static final Projection<Book, BookResponse> BOOK = new Projection<>() {
+        @Override
+        public String select(String alias) {
+            return columns(alias, BOOK_FIELDS) + ", " + columns(alias + "Author", AUTHOR_FIELDS);
+        }
+
+        @Override
+        public String from(String alias) {
+            return "Book " + alias + " LEFT JOIN " + alias + ".author " + alias + "Author";
+        }
+
+        @Override
+        public BookResponse map(Tuple tuple) {
+            return book(tuple, 0);
+        }
+    };
+
+    /**
+     * Member columns into {@link MemberResponse}.
+     */
+    public static final Projection<Member, MemberResponse> MEMBER = new Projection<>() {
+        @Override
+        public String select(String alias) {
+            return columns(alias, MEMBER_FIELDS);
+        }
+
+        @Override
+        public String from(String alias) {
+            return "Member " + alias;
+        }
+
+        @Override
+        public MemberResponse map(Tuple tuple) {
+            return member(tuple, 0);
+        }
+    };
+
+    /**
+     * Borrowing columns plus its book, the book's author and the member into {@link BorrowingResponse}.
+     */
+    public static final Projection<Borrowing, BorrowingResponse> BORROWING = new Projection<>() {
+        @Override
+        public String select(String alias) {
+            return columns(alias, BORROWING_FIELDS)
+                    + ", " + columns(alias + "Book", BOOK_FIELDS)
+                    + ", " + columns(alias + "BookAuthor", AUTHOR_FIELDS)
+                    + ", " + columns(alias + "Member", MEMBER_FIELDS);
+        }
+
+        @Override
+        public String from(String alias) {
+            return "Borrowing " + alias
+                    + " JOIN " + alias + ".book " + alias + "Book"
+                    + " LEFT JOIN " + alias + "Book.author " + alias + "BookAuthor"
+                    + " JOIN " + alias + ".member " + alias + "Member";
+        }
+
+        @Override
+        public BorrowingResponse map(Tuple tuple) {
+            int book = BORROWING_FIELDS.length;
+            int member = book + BOOK_FIELDS.length + AUTHOR_FIELDS.length;
+            return new BorrowingResponse(
+                    tuple.get(0, UUID.class),
+                    book(tuple, book),
+                    member(tuple, member),
+                    tuple.get(1, LocalDate.class),
+                    tuple.get(2, LocalDate.class),
+                    tuple.get(3, LocalDate.class),
+                    tuple.get(4, BorrowingStatus.class),
+                    tuple.get(5, LocalDateTime.class),
+                    tuple.get(6, LocalDateTime.class));
+        }
+    };
+
+    private ResponseProjections() {
+    }
+
+    private static String columns(String alias, String[] fields) {
+        StringJoiner columns = new StringJoiner(", ");
+        for (String field : fields) {
+            columns.add(alias + "." + field);
+        }
+        return columns.toString();
+    }
+
+    private static AuthorResponse author(Tuple tuple, int from) {
+        UUID id = tuple.get(from, UUID.class);
+        if (id == null) {
+            return null;
+        }
+        return new AuthorResponse(
+                id,
+                tuple.get(from + 1, String.class),
+                tuple.get(from + 2, String.class),
+                tuple.get(from + 3, String.class),
+                tuple.get(from + 4, LocalDateTime.class),
+                tuple.get(from + 5, LocalDateTime.class));
+    }
+
+    private static BookResponse book(Tuple tuple, int from) {
+        return new BookResponse(
+                tuple.get(from, UUID.class),
+                tuple.get(from + 1, String.class),
+                tuple.get(from + 2, String.class),
+                tuple.get(from + 3, Integer.class),
+                tuple.get(from + 4, BookCategory.class),
+                tuple.get(from + 5, Integer.class),
+                tuple.get(from + 6, Integer.class),
+                author(tuple, from + BOOK_FIELDS.length),
+                tuple.get(from + 7, LocalDateTime.class),
+                tuple.get(from + 8, LocalDateTime.class));
+    }
+
+    private static MemberResponse member(Tuple tuple, int from) {
+        return new MemberResponse(
+                tuple.get(from, UUID.class),
+                tuple.get(from + 1, String.class),
+                tuple.get(from + 2, String.class),
+                tuple.get(from + 3, String.class),
+                tuple.get(from + 4, String.class),
+                tuple.get(from + 5, String.class),
+                tuple.get(from + 6, LocalDate.class),
+                tuple.get(from + 7, LocalDateTime.class),
+                tuple.get(from + 8, LocalDateTime.class));
+    }
+}
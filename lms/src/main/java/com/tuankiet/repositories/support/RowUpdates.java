@@ -0,0 +1,71 @@
+package com.tuankiet.repositories.support;
+
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.query.MutationQuery;
+import org.hibernate.query.SynchronizeableQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Set-based updates of a few rows of a cached entity that keep the rest of its second-level cache.
+ * <p>
+ * After an HQL bulk UPDATE, or a native one synchronized on the entity, Hibernate drops the entity's whole
+ * cache region and its natural-id region, as it cannot tell which rows changed. A hot conditional update
+ * such as a checkout would then empty the Book cache on every call. These updates are native statements
+ * synchronized on a query space that no entity uses, so no region is dropped, and the caller evicts the
+ * rows it updated by ID instead.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class RowUpdates {
+
+    /** Query space of the updates: no entity maps it, so no cache region is affected. */
+    private static final String UNMAPPED_QUERY_SPACE = "row_updates";
+
+    private RowUpdates() {
+    }
+
+    /**
+     * Create a native UPDATE. Pending changes are flushed first, as the statement's query space
+     * does not trigger Hibernate's automatic flush.
+     *
+     * @param session the current session
+     * @param sql the native UPDATE statement, with named parameters
+     * @return the query, to bind and execute
+     */
+    public static MutationQuery nativeUpdate(Session session, String sql) {
+        session.flush();
+        MutationQuery update = session.createNativeMutationQuery(sql);
+        ((SynchronizeableQuery) update).addSynchronizedQuerySpace(UNMAPPED_QUERY_SPACE);
+        return update;
+    }
+
+    /**
+     * Evict updated rows from the second-level cache now, and again once the current transaction has
+     * completed, since another transaction may cache the old row before this one commits.
+     *
+     * @param session the current session
+     * @param entityClass the entity class
+     * @param ids the IDs of the updated rows
+     */
+    public static void evict(Session session, Class<?> entityClass, Collection<UUID> ids) {
+        Cache cache = session.getSessionFactory().getCache();
+        List<UUID> evicted = List.copyOf(ids);
+        evicted.forEach(id -> cache.evictEntityData(entityClass, id));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evicted.forEach(id -> cache.evictEntityData(entityClass, id));
+                }
+            });
+        }
+    }
+}
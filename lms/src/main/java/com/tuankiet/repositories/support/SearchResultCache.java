@@ -0,0 +1,323 @@
+package com.tuankiet.repositories.support;
+
+import com.tuankiet.config.DatabaseProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Opt-in cache of search results ({@code search.result-cache.enabled}), keyed by the normalized
+ * filter and page request.
+ * <p>
+ * Each entry records the query spaces (entity names) it was read from and the logical time at which
+ * its query started. Repositories {@link #touch} an entity's space when a write to it commits, which
+ * makes every older entry depending on that space stale. Only the writes that go through the
+ * repositories' save and delete methods touch a space: the conditional availability updates run on
+ * every checkout and return do not, so borrowing churn leaves catalog results cached. Results that
+ * depend on availability are kept in the {@link Region#AVAILABILITY} region, whose short TTL bounds
+ * how stale they get.
+ * <p>
+ * Searches run in read-only transactions, which may read a replica that has not received a write yet.
+ * A search that starts within the replica lag window ({@code db.replica.max-lag-ms}) after one of its
+ * spaces was touched is returned but not cached, since it may still hold the state from before the write.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class SearchResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchResultCache.class);
+
+    /** Rough per-row overhead of a cached result object, in bytes. */
+    private static final long ROW_OVERHEAD_BYTES = 64;
+
+    /**
+     * Cache regions, each with its own TTL and size.
+     */
+    public enum Region {
+        /** Results that only change with catalog writes. */
+        CATALOG,
+        /** Results filtered on availability, which changes without catalog writes. */
+        AVAILABILITY
+    }
+
+    private final boolean enabled;
+    private final long lagWindowMillis;
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<String, Long> spaceTimestamps = new ConcurrentHashMap<>();
+    /** Wall-clock time of each space's last touch, for the replica lag window. */
+    private final Map<String, Long> spaceTouchedAt = new ConcurrentHashMap<>();
+    private final Map<Region, RegionCache> regions = new EnumMap<>(Region.class);
+
+    public SearchResultCache(@Value("${search.result-cache.enabled:false}") boolean enabled,
+                             @Value("${search.result-cache.max-entries:500}") int maxEntries,
+                             @Value("${search.result-cache.catalog.ttl-seconds:600}") long catalogTtlSeconds,
+                             @Value("${search.result-cache.availability.ttl-seconds:5}") long availabilityTtlSeconds,
+                             DatabaseProperties databaseProperties) {
+        this.enabled = enabled;
+        this.lagWindowMillis = databaseProperties.getReplicaLagWindowMillis();
+        regions.put(Region.CATALOG, new RegionCache(maxEntries, catalogTtlSeconds * 1000));
+        regions.put(Region.AVAILABILITY, new RegionCache(maxEntries, availabilityTtlSeconds * 1000));
+    }
+
+    /**
+     * Get the cached result for the key, loading and caching it if absent, expired or stale.
+     *
+     * @param region the region to cache the result in
+     * @param key the normalized search key; must implement equals and hashCode
+     * @param spaces the entity names the result is read from
+     * @param loader runs the search on a miss
+     * @param weigher estimates the result's size in bytes
+     * @param <V> the result type
+     * @return the search result
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(Region region, Object key, Set<String> spaces, Supplier<V> loader, ToLongFunction<V> weigher) {
+        if (!enabled) {
+            return loader.get();
+        }
+        RegionCache cache = regions.get(region);
+        long now = System.currentTimeMillis();
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            if (entry.expiresAt > now && isCurrent(entry.timestamp, entry.spaces)) {
+                cache.hits.increment();
+                logger.debug("Search result cache hit in region {} for key {}", region, key);
+                return (V) entry.value;
+            }
+            cache.remove(key, entry);
+            cache.invalidations.increment();
+        }
+        cache.misses.increment();
+
+        // Taken before the query runs, so that a write committing meanwhile makes the result stale
+        long timestamp = clock.get();
+        V value = loader.get();
+        if (isCurrent(timestamp, spaces) && isSettled(now, spaces)) {
+            cache.put(key, new Entry(value, timestamp, now + cache.ttlMillis, Set.copyOf(spaces), weigher.applyAsLong(value)));
+        }
+        logger.debug("Search result cache miss in region {} for key {}", region, key);
+        return value;
+    }
+
+    /**
+     * Mark the results read from an entity as stale, once a write to it has committed.
+     *
+     * @param space the entity name
+     */
+    public void touch(String space) {
+        if (enabled) {
+            spaceTimestamps.put(space, clock.incrementAndGet());
+            spaceTouchedAt.put(space, System.currentTimeMillis());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the statistics of each region.
+     *
+     * @return a read-only snapshot of the region statistics, by region
+     */
+    public Map<Region, RegionStats> getStats() {
+        Map<Region, RegionStats> stats = new EnumMap<>(Region.class);
+        regions.forEach((region, cache) -> stats.put(region, cache.stats()));
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Estimate the heap size of a list of result rows from their string form.
+     * This is only meant to compare regions and spot growth, not to account memory exactly.
+     *
+     * @param rows the result rows
+     * @return the estimated size in bytes
+     */
+    public static long estimateBytes(Collection<?> rows) {
+        long bytes = 0;
+        for (Object row : rows) {
+            bytes += ROW_OVERHEAD_BYTES + 2L * String.valueOf(row).length();
+        }
+        return bytes;
+    }
+
+    private boolean isCurrent(long timestamp, Set<String> spaces) {
+        for (String space : spaces) {
+            if (spaceTimestamps.getOrDefault(space, 0L) > timestamp) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check that no space was touched within the replica lag window before a search started.
+     */
+    private boolean isSettled(long startedAt, Set<String> spaces) {
+        if (lagWindowMillis == 0) {
+            return true;
+        }
+        for (String space : spaces) {
+            Long touchedAt = spaceTouchedAt.get(space);
+            if (touchedAt != null && startedAt - touchedAt < lagWindowMillis) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResultCache{enabled=" + enabled + ", regions=" + getStats() + '}';
+    }
+
+    /**
+     * LRU map of one region's entries, bounded by entry count.
+     */
+    private static final class RegionCache {
+
+        private final long ttlMillis;
+        private final Map<Object, Entry> entries;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder invalidations = new LongAdder();
+        private long bytes;
+
+        private RegionCache(int maxEntries, long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                    if (size() > maxEntries) {
+                        bytes -= eldest.getValue().bytes;
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private synchronized Entry get(Object key) {
+            return entries.get(key);
+        }
+
+        private synchronized void put(Object key, Entry entry) {
+            Entry previous = entries.put(key, entry);
+            bytes += entry.bytes - (previous != null ? previous.bytes : 0);
+        }
+
+        private synchronized void remove(Object key, Entry entry) {
+            if (entries.remove(key, entry)) {
+                bytes -= entry.bytes;
+            }
+        }
+
+        private synchronized RegionStats stats() {
+            return new RegionStats(hits.sum(), misses.sum(), invalidations.sum(), entries.size(), bytes);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long timestamp;
+        private final long expiresAt;
+        private final Set<String> spaces;
+        private final long bytes;
+
+        private Entry(Object value, long timestamp, long expiresAt, Set<String> spaces, long bytes) {
+            this.value = value;
+            this.timestamp = timestamp;
+            this.expiresAt = expiresAt;
+            this.spaces = spaces;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Counters and size of one region.
+     */
+    public static final class RegionStats {
+
+        private final long hits;
+        private final long misses;
+        private final long invalidations;
+        private final int entries;
+        private final long estimatedBytes;
+
+        private RegionStats(long hits, long misses, long invalidations, int entries, long estimatedBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.invalidations = invalidations;
+            this.entries = entries;
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Get the number of entries dropped on lookup because they had expired or were stale.
+         *
+         * @return the invalidation count
+         */
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        /**
+         * Get the estimated heap size of the cached results.
+         *
+         * @return the size in bytes, see {@link SearchResultCache#estimateBytes}
+         */
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        /**
+         * Get the share of lookups served from the cache.
+         *
+         * @return the hit ratio between 0 and 1, or 0 before the first lookup
+         */
+        public double getHitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "{hits=" + hits +
+                    ", misses=" + misses +
+                    ", invalidations=" + invalidations +
+                    ", entries=" + entries +
+                    ", estimatedBytes=" + estimatedBytes +
+                    ", hitRatio=" + String.format("%.3f", getHitRatio()) +
+                    '}';
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.tuankiet.services;
 
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Slice;
+import com.tuankiet.dto.common.TotalCountStrategy;
 import com.tuankiet.entities.BaseEntity;
 
 import java.util.List;
@@ -65,6 +69,25 @@ public interface BaseService<T extends BaseEntity, R, C, U, S> {
    */
   Page<R> search(S criteria, PageRequest pageRequest);
 
+  /**
+   * Searches for entities based on provided criteria with keyset pagination.
+   * Intended for "next page" browsing, where every page costs the same regardless of depth.
+   * @param criteria The search criteria DTO.
+   * @param pageRequest The page size, sorting and continuation token.
+   * @return A CursorPage of response DTOs matching the criteria.
+   */
+  CursorPage<R> search(S criteria, CursorPageRequest pageRequest);
+
+  /**
+   * Searches for entities based on provided criteria with offset pagination but without a mandatory COUNT.
+   * The total is only computed as requested by the strategy and is null otherwise.
+   * @param criteria The search criteria DTO.
+   * @param pageRequest The pagination and sorting information.
+   * @param totalCountStrategy How the optional total is obtained.
+   * @return A Slice of response DTOs matching the criteria.
+   */
+  Slice<R> search(S criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy);
+
   /**
    * Counts the total number of entities.
    * @return The total count of entities.
@@ -6,6 +6,9 @@ import com.tuankiet.dto.response.BookResponse;
 import com.tuankiet.dto.search.BookSearchCriteria;
 import com.tuankiet.entities.Book;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -26,6 +29,22 @@ public interface BookService extends BaseService<Book, BookResponse, CreateBookR
    */
   BookResponse getByIsbn(String isbn);
 
+  /**
+   * Retrieves several books, loading those that are not cached with one query.
+   * @param ids The IDs of the books.
+   * @return The response DTOs of the books found, by ID; books that do not exist are missing.
+   */
+  Map<UUID, BookResponse> getAllById(Collection<UUID> ids);
+
+  /**
+   * Creates many books in one transaction with batched inserts.
+   * ISBN uniqueness is checked for the whole batch up front.
+   * @param createRequests The book creation requests.
+   * @return The response DTOs of the created books, in request order.
+   * @throws com.tuankiet.exceptions.DuplicateEntityException if an ISBN is repeated or already exists.
+   */
+  List<BookResponse> createAll(List<CreateBookRequest> createRequests);
+
   /**
    * Decrements the available copies of a book.
    * @param bookId The ID of the book.
@@ -41,4 +60,12 @@ public interface BookService extends BaseService<Book, BookResponse, CreateBookR
    * @throws com.tuankiet.exceptions.BusinessRuleViolationException if incrementing exceeds total copies.
    */
   void incrementAvailableCopies(UUID bookId, int quantity);
+
+  /**
+   * Gets the live available copies of several books, e.g. a page of search results, from the
+   * in-memory availability index without a database round-trip.
+   * @param bookIds The IDs of the books.
+   * @return The available copies by book ID; books that are not indexed are missing.
+   */
+  Map<UUID, Integer> getAvailableCopies(Collection<UUID> bookIds);
 }
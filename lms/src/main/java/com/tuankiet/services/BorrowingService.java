@@ -1,11 +1,13 @@
 package com.tuankiet.services;
 
+import com.tuankiet.dto.common.BatchItemResult;
 import com.tuankiet.dto.request.CreateBorrowingRequest;
 import com.tuankiet.dto.request.UpdateBorrowingRequest;
 import com.tuankiet.dto.response.BorrowingResponse;
 import com.tuankiet.dto.search.BorrowingSearchCriteria;
 import com.tuankiet.entities.Borrowing;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -35,4 +37,15 @@ public interface BorrowingService extends BaseService<Borrowing, BorrowingRespon
    * @throws com.tuankiet.exceptions.BusinessRuleViolationException if the book is already returned or lost.
    */
   BorrowingResponse markAsLost(UUID borrowingId);
+
+  /**
+   * Checks out many books in one transaction, as a group commit of independent checkout requests.
+   * Members, availability and active borrowings are read once for the whole batch and each request is
+   * admitted in memory, in order, against what the earlier requests of the batch already took.
+   * The admitted borrowings are inserted in JDBC batches and each book's copies are taken with one
+   * conditional update for all its admitted requests.
+   * @param createRequests The checkout requests.
+   * @return One result per request, in request order: the created borrowing or the exception that rejected it.
+   */
+  List<BatchItemResult<BorrowingResponse>> checkoutAll(List<CreateBorrowingRequest> createRequests);
 }
@@ -6,6 +6,11 @@ import com.tuankiet.dto.response.MemberResponse;
 import com.tuankiet.dto.search.MemberSearchCriteria;
 import com.tuankiet.entities.Member;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
 /**
 * Service interface for managing Member entities.
 * Extends BaseService for common operations.
@@ -23,4 +28,19 @@ public interface MemberService extends BaseService<Member, MemberResponse, Creat
    * @throws com.tuankiet.exceptions.EntityNotFoundException if the member is not found.
    */
   MemberResponse getByEmail(String email);
+
+  /**
+   * Retrieves several members, loading those that are not cached with one query.
+   * @param ids The IDs of the members.
+   * @return The response DTOs of the members found, by ID; members that do not exist are missing.
+   */
+  Map<UUID, MemberResponse> getAllById(Collection<UUID> ids);
+
+  /**
+   * Creates many members in one transaction with batched inserts.
+   * @param createRequests The member creation requests.
+   * @return The response DTOs of the created members, in request order.
+   * @throws com.tuankiet.exceptions.DuplicateEntityException if an email is repeated or already registered.
+   */
+  List<MemberResponse> createAll(List<CreateMemberRequest> createRequests);
 }
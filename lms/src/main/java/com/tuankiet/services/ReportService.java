@@ -3,10 +3,15 @@ package com.tuankiet.services;
 import com.tuankiet.dto.response.BookBorrowingStats;
 import com.tuankiet.dto.response.MemberBorrowingStats;
 import com.tuankiet.dto.response.BorrowingResponse;
+import com.tuankiet.dto.response.DailyBorrowingSummary;
+import com.tuankiet.enums.BookCategory;
+import com.tuankiet.enums.BorrowingStatus;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
 * Service interface for generating various reports.
@@ -23,12 +28,26 @@ public interface ReportService {
    */
   List<BorrowingResponse> getCurrentlyBorrowedBooks();
 
+  /**
+   * Streams all currently borrowed books to the consumer one record at a time, without building a list.
+   * @param consumer Receives each BorrowingResponse as it is read.
+   * @return The number of records emitted.
+   */
+  long streamCurrentlyBorrowedBooks(Consumer<BorrowingResponse> consumer);
+
   /**
    * Retrieves a list of all overdue borrowing records.
    * @return A list of BorrowingResponse DTOs for overdue books.
    */
   List<BorrowingResponse> getOverdueBooks();
 
+  /**
+   * Streams all overdue borrowing records to the consumer one record at a time.
+   * @param consumer Receives each BorrowingResponse as it is read.
+   * @return The number of records emitted.
+   */
+  long streamOverdueBooks(Consumer<BorrowingResponse> consumer);
+
   /**
    * Retrieves borrowing history for a specific member.
    * @param memberId The ID of the member.
@@ -36,6 +55,14 @@ public interface ReportService {
    */
   List<BorrowingResponse> getMemberBorrowingHistory(UUID memberId);
 
+  /**
+   * Streams the borrowing history of a specific member to the consumer one record at a time.
+   * @param memberId The ID of the member.
+   * @param consumer Receives each BorrowingResponse as it is read.
+   * @return The number of records emitted.
+   */
+  long streamMemberBorrowingHistory(UUID memberId, Consumer<BorrowingResponse> consumer);
+
   /**
    * Retrieves borrowing history for a specific book.
    * @param bookId The ID of the book.
@@ -43,6 +70,14 @@ public interface ReportService {
    */
   List<BorrowingResponse> getBookBorrowingHistory(UUID bookId);
 
+  /**
+   * Streams the borrowing history of a specific book to the consumer one record at a time.
+   * @param bookId The ID of the book.
+   * @param consumer Receives each BorrowingResponse as it is read.
+   * @return The number of records emitted.
+   */
+  long streamBookBorrowingHistory(UUID bookId, Consumer<BorrowingResponse> consumer);
+
   /**
    * Retrieves statistics for a specific book, including total borrows, current borrows, and overdue borrows.
    * @param bookId The ID of the book.
@@ -57,6 +92,20 @@ public interface ReportService {
    */
   MemberBorrowingStats getMemberBorrowingStatistics(UUID memberId);
 
+  /**
+   * Retrieves the statistics of several books in one query, e.g. for the books of a page.
+   * @param bookIds The IDs of the books.
+   * @return BookBorrowingStats DTOs in the order of the IDs; books that do not exist are left out.
+   */
+  List<BookBorrowingStats> getBookBorrowingStatistics(Collection<UUID> bookIds);
+
+  /**
+   * Retrieves the statistics of several members in one query, e.g. for the members of a page.
+   * @param memberIds The IDs of the members.
+   * @return MemberBorrowingStats DTOs in the order of the IDs; members that do not exist are left out.
+   */
+  List<MemberBorrowingStats> getMemberBorrowingStatistics(Collection<UUID> memberIds);
+
   /**
    * Retrieves a list of books borrowed within a specific date range.
    * @param startDate The start date of the range.
@@ -64,4 +113,36 @@ public interface ReportService {
    * @return A list of BorrowingResponse DTOs for books borrowed within the range.
    */
   List<BorrowingResponse> getBooksBorrowedInDateRange(LocalDate startDate, LocalDate endDate);
+
+  /**
+   * Streams the books borrowed within a specific date range to the consumer one record at a time.
+   * @param startDate The start date of the range.
+   * @param endDate The end date of the range.
+   * @param consumer Receives each BorrowingResponse as it is read.
+   * @return The number of records emitted.
+   */
+  long streamBooksBorrowedInDateRange(LocalDate startDate, LocalDate endDate, Consumer<BorrowingResponse> consumer);
+
+  /**
+   * Streams the books borrowed within a specific date range to the consumer one record at a time,
+   * optionally restricted to a status and a book category.
+   * @param startDate The start date of the range.
+   * @param endDate The end date of the range.
+   * @param status The status to match, or null for any status.
+   * @param category The book category to match, or null for any category.
+   * @param consumer Receives each BorrowingResponse as it is read, in borrow date order.
+   * @return The number of records emitted.
+   */
+  long streamBooksBorrowedInDateRange(LocalDate startDate, LocalDate endDate, BorrowingStatus status, BookCategory category,
+                                      Consumer<BorrowingResponse> consumer);
+
+  /**
+   * Counts the books borrowed within a specific date range per day and book category, computed by the database.
+   * @param startDate The start date of the range.
+   * @param endDate The end date of the range.
+   * @param status The status to match, or null for any status.
+   * @param category The book category to match, or null for any category.
+   * @return The counts, ordered by day and category; days without borrowings are missing.
+   */
+  List<DailyBorrowingSummary> getDailyBorrowingSummary(LocalDate startDate, LocalDate endDate, BorrowingStatus status, BookCategory category);
 }
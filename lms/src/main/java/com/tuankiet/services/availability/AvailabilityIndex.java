@@ -0,0 +1,277 @@
+package com.tuankiet.services.availability;
+
+import com.tuankiet.repositories.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process index of the available copies of every book, answering "is it on the shelf" without
+ * a database round-trip. It is seeded from {@code Book.availableCopies} when the application starts.
+ * After that, every write to the available copies in this process updates it when the write's
+ * transaction commits: checkouts, returns and the book service's writes. Marking a borrowing as lost
+ * leaves the count as it is, since the copy was already taken at checkout.
+ * <p>
+ * The index is reconciled against the database every {@code availability.index.reconcile-interval-ms}, to
+ * correct changes made outside this process. It reads the primary, in a read-write transaction, since a
+ * replica may lag behind commits the index has already applied. Reads and updates are lock-free. A
+ * reconciliation does not overwrite a count that has a write in flight, registered but not yet applied
+ * after its commit, nor one updated after the reconciliation started reading: the database value it read
+ * may already include that write, and applying it again would count it twice. Such counts are left for
+ * the next pass.
+ * <p>
+ * The database stays authoritative: checkouts still take copies with a conditional UPDATE, and the
+ * index only lets them fail fast when it already knows no copy is left.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class AvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate primaryTransaction;
+    private final Map<UUID, Counter> counters = new ConcurrentHashMap<>();
+    /** Books with writes registered in a transaction that has not completed yet, by number of writes. */
+    private final Map<UUID, Integer> inFlightWrites = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder unknownLookups = new LongAdder();
+    private final LongAdder corrections = new LongAdder();
+    private final LongAdder reconciliations = new LongAdder();
+    private volatile boolean seeded;
+
+    public AvailabilityIndex(BookRepository bookRepository, PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Seed the index once the application context is ready. A failure is logged and left to the
+     * next scheduled reconciliation, so that the application starts without the index.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void seed() {
+        if (!seeded) {
+            try {
+                reconcile();
+            } catch (RuntimeException e) {
+                logger.warn("Could not seed the availability index, it stays empty until the next reconciliation: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Bring the index in line with the database.
+     */
+    @Scheduled(fixedDelayString = "${availability.index.reconcile-interval-ms:60000}",
+               initialDelayString = "${availability.index.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        long start = clock.get();
+        Map<UUID, Integer> current = primaryTransaction.execute(status -> bookRepository.findAllAvailableCopies());
+        int corrected = 0;
+        for (Map.Entry<UUID, Integer> entry : current.entrySet()) {
+            Counter counter = counters.computeIfAbsent(entry.getKey(), id -> new Counter(entry.getValue()));
+            // Read the count before the stamp: an update between the two either shows in the stamp or fails the CAS.
+            // A write is counted in flight until its update has been applied, so checking it after the stamp is safe.
+            int indexed = counter.available.get();
+            if (indexed != entry.getValue() && counter.modifiedAt <= start && !inFlightWrites.containsKey(entry.getKey())
+                    && counter.available.compareAndSet(indexed, entry.getValue())) {
+                corrected++;
+            }
+        }
+        // Books deleted outside this process
+        counters.entrySet().removeIf(entry -> !current.containsKey(entry.getKey()) && entry.getValue().modifiedAt <= start
+                && !inFlightWrites.containsKey(entry.getKey()));
+        corrections.add(corrected);
+        reconciliations.increment();
+        seeded = true;
+        if (corrected > 0) {
+            logger.info("Availability index reconciled: {} of {} counts corrected", corrected, current.size());
+        } else {
+            logger.debug("Availability index reconciled: {} books, no correction", current.size());
+        }
+    }
+
+    /**
+     * Get the available copies of a book.
+     *
+     * @param bookId the book ID
+     * @return the available copies, or null if the book is not indexed
+     */
+    public Integer getAvailableCopies(UUID bookId) {
+        lookups.increment();
+        Counter counter = counters.get(bookId);
+        if (counter == null) {
+            unknownLookups.increment();
+            return null;
+        }
+        return counter.available.get();
+    }
+
+    /**
+     * Get the available copies of several books, e.g. a page of search results.
+     *
+     * @param bookIds the book IDs
+     * @return the available copies by book ID; books that are not indexed are missing
+     */
+    public Map<UUID, Integer> getAvailableCopies(Collection<UUID> bookIds) {
+        Map<UUID, Integer> availableCopies = new HashMap<>();
+        for (UUID bookId : bookIds) {
+            Integer available = getAvailableCopies(bookId);
+            if (available != null) {
+                availableCopies.put(bookId, available);
+            }
+        }
+        return availableCopies;
+    }
+
+    /**
+     * Check whether the index knows that no copy of a book is available.
+     *
+     * @param bookId the book ID
+     * @return true if the book is indexed with no available copy; false if copies are available or the book is unknown
+     */
+    public boolean isKnownUnavailable(UUID bookId) {
+        Integer available = getAvailableCopies(bookId);
+        return available != null && available <= 0;
+    }
+
+    /**
+     * Add to or take from a book's available copies once the current transaction commits.
+     *
+     * @param bookId the book ID
+     * @param delta the change, negative when copies are taken
+     */
+    public void adjust(UUID bookId, int delta) {
+        afterCommit(bookId, () -> {
+            Counter counter = counters.get(bookId);
+            if (counter != null) {
+                counter.modifiedAt = clock.incrementAndGet();
+                counter.available.addAndGet(delta);
+            }
+        });
+    }
+
+    /**
+     * Set a book's available copies once the current transaction commits, e.g. after it was created or edited.
+     *
+     * @param bookId the book ID
+     * @param availableCopies the available copies
+     */
+    public void set(UUID bookId, int availableCopies) {
+        afterCommit(bookId, () -> {
+            Counter counter = counters.computeIfAbsent(bookId, id -> new Counter(availableCopies));
+            counter.modifiedAt = clock.incrementAndGet();
+            counter.available.set(availableCopies);
+        });
+    }
+
+    /**
+     * Drop a book from the index once the current transaction commits.
+     *
+     * @param bookId the book ID
+     */
+    public void remove(UUID bookId) {
+        afterCommit(bookId, () -> counters.remove(bookId));
+    }
+
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public int getSize() {
+        return counters.size();
+    }
+
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    /**
+     * Get the number of lookups of books that were not indexed.
+     *
+     * @return the unknown lookup count
+     */
+    public long getUnknownLookupCount() {
+        return unknownLookups.sum();
+    }
+
+    /**
+     * Get the number of counts that reconciliations found different from the database.
+     *
+     * @return the correction count
+     */
+    public long getCorrectionCount() {
+        return corrections.sum();
+    }
+
+    public long getReconciliationCount() {
+        return reconciliations.sum();
+    }
+
+    /**
+     * Run an update of a book's count once the current transaction commits. The book is marked as having a
+     * write in flight from now until the transaction completes, so that a reconciliation reading the
+     * committed row meanwhile does not correct the count before the update is applied.
+     */
+    private void afterCommit(UUID bookId, Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            inFlightWrites.merge(bookId, 1, Integer::sum);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    inFlightWrites.computeIfPresent(bookId, (id, writes) -> writes > 1 ? writes - 1 : null);
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AvailabilityIndex{" +
+                "seeded=" + seeded +
+                ", size=" + getSize() +
+                ", lookups=" + getLookupCount() +
+                ", unknownLookups=" + getUnknownLookupCount() +
+                ", corrections=" + getCorrectionCount() +
+                ", reconciliations=" + getReconciliationCount() +
+                '}';
+    }
+
+    private static final class Counter {
+
+        private final AtomicInteger available;
+        private volatile long modifiedAt;
+
+        private Counter(int available) {
+            this.available = new AtomicInteger(available);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.tuankiet.services.cache;
+
+import com.tuankiet.repositories.support.SearchResultCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Second-level cache statistics per region, to check that entity lookups are served from the cache.
+ * Hits, misses and puts come from Hibernate's statistics (enabled with {@code hibernate.generate_statistics});
+ * evictions are only known to the cache provider and are read from its JCache statistics MBeans.
+ * The statistics of the application's {@link SearchResultCache} and {@link ResponseCaches} are reported alongside.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class CacheStatistics {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheStatistics.class);
+
+    private final SessionFactory sessionFactory;
+    private final SearchResultCache searchResultCache;
+    private final ResponseCaches responseCaches;
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    public CacheStatistics(SessionFactory sessionFactory, SearchResultCache searchResultCache, ResponseCaches responseCaches) {
+        this.sessionFactory = sessionFactory;
+        this.searchResultCache = searchResultCache;
+        this.responseCaches = responseCaches;
+    }
+
+    /**
+     * Get the statistics of every second-level cache region, by region name.
+     *
+     * @return a sorted, read-only snapshot of the region statistics
+     */
+    public Map<String, RegionStats> getRegionStats() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, RegionStats> regions = new TreeMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(regionName);
+            if (region != null) {
+                regions.put(regionName, new RegionStats(region.getHitCount(), region.getMissCount(),
+                        region.getPutCount(), evictionCount(regionName)));
+            }
+        }
+        return Collections.unmodifiableMap(regions);
+    }
+
+    /**
+     * Get the statistics of the query result cache.
+     *
+     * @return a snapshot of the query cache statistics
+     */
+    public RegionStats getQueryCacheStats() {
+        Statistics statistics = sessionFactory.getStatistics();
+        return new RegionStats(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount(), evictionCount("default-query-results-region"));
+    }
+
+    /**
+     * Get the statistics of the search result cache regions.
+     *
+     * @return the region statistics, by region; all zero if the search result cache is disabled
+     */
+    public Map<SearchResultCache.Region, SearchResultCache.RegionStats> getSearchResultStats() {
+        return searchResultCache.getStats();
+    }
+
+    /**
+     * Get the service response caches, whose size, hit and latency figures are read directly.
+     *
+     * @return the response caches
+     */
+    public List<ResponseCache<?, ?>> getResponseCaches() {
+        return responseCaches.getAll();
+    }
+
+    public boolean isSearchResultCacheEnabled() {
+        return searchResultCache.isEnabled();
+    }
+
+    public boolean isEnabled() {
+        return sessionFactory.getStatistics().isStatisticsEnabled();
+    }
+
+    /**
+     * Reset Hibernate's counters; the provider's eviction counts are not affected.
+     */
+    public void reset() {
+        sessionFactory.getStatistics().clear();
+    }
+
+    /**
+     * Read the eviction count of a region from the JCache statistics MBean of its cache.
+     *
+     * @param regionName the region name, which is also the cache name
+     * @return the eviction count, or -1 if the provider does not publish statistics for the cache
+     */
+    private long evictionCount(String regionName) {
+        try {
+            // JCache MBean names replace the characters that are not allowed in an ObjectName value
+            ObjectName pattern = new ObjectName("javax.cache:type=CacheStatistics,CacheManager=*,Cache="
+                    + regionName.replaceAll("[,:=\n]", "."));
+            Set<ObjectName> names = mBeanServer.queryNames(pattern, null);
+            if (names.isEmpty()) {
+                return -1;
+            }
+            return ((Number) mBeanServer.getAttribute(names.iterator().next(), "CacheEvictions")).longValue();
+        } catch (Exception e) {
+            logger.debug("No eviction statistics for cache region {}: {}", regionName, e.getMessage());
+            return -1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{regions=" + getRegionStats() +
+                ", queryCache=" + getQueryCacheStats() +
+                ", searchResults=" + getSearchResultStats() +
+                ", responseCaches=" + getResponseCaches() +
+                '}';
+    }
+
+    /**
+     * Counters of one cache region.
+     */
+    public static final class RegionStats {
+
+        private final long hits;
+        private final long misses;
+        private final long puts;
+        private final long evictions;
+
+        private RegionStats(long hits, long misses, long puts, long evictions) {
+            this.hits = hits;
+            this.misses = misses;
+            this.puts = puts;
+            this.evictions = evictions;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getPuts() {
+            return puts;
+        }
+
+        /**
+         * Get the number of entries evicted to stay within the region's size.
+         *
+         * @return the eviction count, or -1 if unknown
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * Get the share of lookups served from the cache.
+         *
+         * @return the hit ratio between 0 and 1, or 0 before the first lookup
+         */
+        public double getHitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "{hits=" + hits +
+                    ", misses=" + misses +
+                    ", puts=" + puts +
+                    ", evictions=" + evictions +
+                    ", hitRatio=" + String.format("%.3f", getHitRatio()) +
+                    '}';
+        }
+    }
+}
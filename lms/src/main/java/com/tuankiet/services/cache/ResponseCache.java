@@ -0,0 +1,405 @@
+package com.tuankiet.services.cache;
+
+import com.tuankiet.services.concurrency.WaitTimeHistogram;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, concurrent cache of service responses with segmented LRU eviction.
+ * Keys are spread over independently locked segments. Within a segment, new entries enter a probation
+ * area and move to a protected area on their second hit; the protected area's least recently used
+ * entries are demoted back to probation, and evictions take probation's least recently used entry first.
+ * A scan of one-off lookups therefore cannot flush the entries that are read repeatedly.
+ * <p>
+ * Invalidation removes the entry at once and again when the current transaction completes. A response
+ * loaded while an invalidation happened is not cached, so a reader racing with a writer cannot put back
+ * the state from before the write. Cached responses are shared and must not be modified by callers.
+ * <p>
+ * Loaders run in read-only transactions, which may read a replica that has not yet received a write.
+ * For a lag window after an entry is invalidated, a response loaded for it is returned but not cached,
+ * so a lagging replica cannot put back the state from before the write. Invalidations by predicate
+ * pause caching for the whole cache during that window. Responses also expire after a time to live,
+ * which bounds how long changes made outside the services go unnoticed.
+ *
+ * @param <K> the key type
+ * @param <V> the response type
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class ResponseCache<K, V> {
+
+    private static final int SEGMENTS = 16;
+
+    /** Share of a segment reserved for entries that were hit more than once. */
+    private static final double PROTECTED_SHARE = 0.8;
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long lagWindowNanos;
+    private final AtomicLong bulkInvalidatedAt;
+    private final List<Segment> segments;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final WaitTimeHistogram hitLatency = new WaitTimeHistogram();
+    private final WaitTimeHistogram loadLatency = new WaitTimeHistogram();
+
+    /**
+     * Create a cache.
+     *
+     * @param name the cache name, for monitoring
+     * @param maxSize the maximum number of entries
+     * @param ttlMillis how long a response is served after it was loaded, or 0 to keep it until it is invalidated or evicted
+     * @param lagWindowMillis how long after an invalidation loaded responses are not cached, or 0 when reads see every commit
+     */
+    public ResponseCache(String name, int maxSize, long ttlMillis, long lagWindowMillis) {
+        this.name = name;
+        this.maxSize = Math.max(SEGMENTS, maxSize);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+        this.lagWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lagWindowMillis));
+        this.bulkInvalidatedAt = new AtomicLong(System.nanoTime() - lagWindowNanos);
+        this.segments = new ArrayList<>(SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments.add(new Segment(this.maxSize / SEGMENTS));
+        }
+    }
+
+    /**
+     * Get the cached response for the key, loading and caching it on a miss.
+     * Exceptions thrown by the loader, e.g. for a missing entity, are propagated and nothing is cached.
+     *
+     * @param key the key
+     * @param loader builds the response on a miss
+     * @return the response
+     */
+    public V get(K key, Function<K, V> loader) {
+        long start = System.nanoTime();
+        Segment segment = segmentFor(key);
+        V value = segment.get(key);
+        if (value != null) {
+            hits.increment();
+            hitLatency.record(System.nanoTime() - start);
+            return value;
+        }
+        misses.increment();
+        long invalidationsBefore = invalidations.get();
+        value = loader.apply(key);
+        if (value != null && invalidations.get() == invalidationsBefore && !inBulkLagWindow(System.nanoTime())) {
+            segment.putIfSettled(key, value);
+        }
+        loadLatency.record(System.nanoTime() - start);
+        return value;
+    }
+
+    /**
+     * Get the cached responses for several keys, loading all the misses with one call to the loader.
+     * Keys the loader returns no response for are missing from the result rather than failing the lookup.
+     *
+     * @param keys the keys
+     * @param loader builds the responses of the missed keys, by key
+     * @return the responses by key
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        long start = System.nanoTime();
+        Map<K, V> values = new HashMap<>();
+        Set<K> missed = new LinkedHashSet<>();
+        for (K key : keys) {
+            V value = segmentFor(key).get(key);
+            if (value != null) {
+                values.put(key, value);
+            } else {
+                missed.add(key);
+            }
+        }
+        hits.add(values.size());
+        if (missed.isEmpty()) {
+            hitLatency.record(System.nanoTime() - start);
+            return values;
+        }
+        misses.add(missed.size());
+        long invalidationsBefore = invalidations.get();
+        Map<K, V> loaded = loader.apply(missed);
+        boolean cacheable = invalidations.get() == invalidationsBefore && !inBulkLagWindow(System.nanoTime());
+        loaded.forEach((key, value) -> {
+            if (value != null && missed.contains(key)) {
+                values.put(key, value);
+                if (cacheable) {
+                    segmentFor(key).putIfSettled(key, value);
+                }
+            }
+        });
+        loadLatency.record(System.nanoTime() - start);
+        return values;
+    }
+
+    /**
+     * Remove the entry for the key now and when the current transaction completes.
+     *
+     * @param key the key
+     */
+    public void invalidate(K key) {
+        invalidateNowAndOnCompletion(() -> segmentFor(key).remove(key, System.nanoTime()));
+    }
+
+    /**
+     * Remove the entries matching the predicate now and when the current transaction completes.
+     * This scans the whole cache and is meant for rare writes, e.g. an author rename affecting
+     * the cached books of that author.
+     *
+     * @param predicate selects the entries to remove, by key and response
+     */
+    public void invalidateIf(EntryPredicate<K, V> predicate) {
+        invalidateNowAndOnCompletion(() -> {
+            bulkInvalidatedAt.set(System.nanoTime());
+            for (Segment segment : segments) {
+                segment.removeIf(predicate);
+            }
+        });
+    }
+
+    /**
+     * Remove the entries whose response matches the predicate now and when the current transaction completes.
+     *
+     * @param predicate selects the entries to remove, by response
+     */
+    public void invalidateValues(Predicate<V> predicate) {
+        invalidateIf((key, value) -> predicate.test(value));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getTtlMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(ttlNanos);
+    }
+
+    public long getLagWindowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lagWindowNanos);
+    }
+
+    public int getSize() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Get the share of lookups served from the cache.
+     *
+     * @return the hit ratio between 0 and 1, or 0 before the first lookup
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Get the latency of lookups served from the cache.
+     *
+     * @return the hit latency histogram
+     */
+    public WaitTimeHistogram getHitLatency() {
+        return hitLatency;
+    }
+
+    /**
+     * Get the latency of lookups that loaded the response, including the loading.
+     *
+     * @return the miss latency histogram
+     */
+    public WaitTimeHistogram getLoadLatency() {
+        return loadLatency;
+    }
+
+    private Segment segmentFor(K key) {
+        int hash = key.hashCode();
+        return segments.get((hash ^ (hash >>> 16)) & (SEGMENTS - 1));
+    }
+
+    private boolean inBulkLagWindow(long now) {
+        return now - bulkInvalidatedAt.get() < lagWindowNanos;
+    }
+
+    private void invalidateNowAndOnCompletion(Runnable removal) {
+        invalidations.incrementAndGet();
+        removal.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidations.incrementAndGet();
+                    removal.run();
+                }
+            });
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCache{" +
+                "name='" + name + '\'' +
+                ", size=" + getSize() +
+                ", maxSize=" + maxSize +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                ", hitRatio=" + String.format("%.3f", getHitRatio()) +
+                '}';
+    }
+
+    /**
+     * Selects cache entries by key and response.
+     *
+     * @param <K> the key type
+     * @param <V> the response type
+     */
+    @FunctionalInterface
+    public interface EntryPredicate<K, V> {
+        boolean test(K key, V value);
+    }
+
+    /**
+     * A cached response and the time it expires at.
+     */
+    private final class Entry {
+
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value) {
+            this.value = value;
+            this.expiresAt = System.nanoTime() + ttlNanos;
+        }
+
+        private boolean isExpired(long now) {
+            return ttlNanos > 0 && now - expiresAt >= 0;
+        }
+    }
+
+    /**
+     * One lock's share of the entries, split into a probation and a protected LRU area.
+     */
+    private final class Segment {
+
+        private final int capacity;
+        private final int protectedCapacity;
+        private final LinkedHashMap<K, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<K, Entry> protectedArea = new LinkedHashMap<>(16, 0.75f, true);
+        /** Keys invalidated within the lag window, oldest first. */
+        private final LinkedHashMap<K, Long> invalidatedAt = new LinkedHashMap<>();
+
+        private Segment(int capacity) {
+            this.capacity = Math.max(1, capacity);
+            this.protectedCapacity = (int) (this.capacity * PROTECTED_SHARE);
+        }
+
+        private synchronized V get(K key) {
+            long now = System.nanoTime();
+            Entry entry = protectedArea.get(key);
+            if (entry != null) {
+                if (entry.isExpired(now)) {
+                    protectedArea.remove(key);
+                    return null;
+                }
+                return entry.value;
+            }
+            entry = probation.remove(key);
+            if (entry == null || entry.isExpired(now)) {
+                return null;
+            }
+            // Second hit: promote, demoting the protected area's least recently used entry if it is full
+            protectedArea.put(key, entry);
+            if (protectedArea.size() > protectedCapacity) {
+                Iterator<Map.Entry<K, Entry>> eldest = protectedArea.entrySet().iterator();
+                Map.Entry<K, Entry> demoted = eldest.next();
+                eldest.remove();
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+            return entry.value;
+        }
+
+        private synchronized void putIfSettled(K key, V value) {
+            if (lagWindowNanos > 0) {
+                long now = System.nanoTime();
+                Iterator<Long> oldest = invalidatedAt.values().iterator();
+                while (oldest.hasNext() && now - oldest.next() >= lagWindowNanos) {
+                    oldest.remove();
+                }
+                if (invalidatedAt.containsKey(key)) {
+                    return;
+                }
+            }
+            Entry entry = new Entry(value);
+            if (protectedArea.containsKey(key)) {
+                protectedArea.put(key, entry);
+                return;
+            }
+            probation.put(key, entry);
+            while (probation.size() + protectedArea.size() > capacity) {
+                LinkedHashMap<K, Entry> victims = probation.isEmpty() ? protectedArea : probation;
+                Iterator<K> eldest = victims.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+
+        private synchronized void remove(K key, long now) {
+            if (probation.remove(key) == null) {
+                protectedArea.remove(key);
+            }
+            if (lagWindowNanos > 0) {
+                // Re-inserted, so that the map stays ordered by invalidation time
+                invalidatedAt.remove(key);
+                invalidatedAt.put(key, now);
+            }
+        }
+
+        private synchronized void removeIf(EntryPredicate<K, V> predicate) {
+            probation.entrySet().removeIf(entry -> predicate.test(entry.getKey(), entry.getValue().value));
+            protectedArea.entrySet().removeIf(entry -> predicate.test(entry.getKey(), entry.getValue().value));
+        }
+
+        private synchronized int size() {
+            return probation.size() + protectedArea.size();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.tuankiet.services.cache;
+
+import com.tuankiet.config.DatabaseProperties;
+import com.tuankiet.dto.response.AuthorResponse;
+import com.tuankiet.dto.response.BookResponse;
+import com.tuankiet.dto.response.MemberResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The response caches in front of the book, member and author getters.
+ * Lookups by ISBN or email go through an index from the natural id to the entity id, so that each
+ * response is cached once, under its id, and invalidating the id covers every way of reaching it.
+ * The services writing an entity invalidate its entries, including the borrowing service, whose
+ * checkouts and returns change a book's available copies. Responses loaded within
+ * {@code db.replica.max-lag-ms} of an invalidation are not cached, as they may come from a replica that
+ * has not received the write yet. Responses expire after {@code cache.response.ttl-ms}.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class ResponseCaches {
+
+    private final ResponseCache<UUID, BookResponse> books;
+    private final ResponseCache<String, UUID> bookIdsByIsbn;
+    private final ResponseCache<UUID, MemberResponse> members;
+    private final ResponseCache<String, UUID> memberIdsByEmail;
+    private final ResponseCache<UUID, AuthorResponse> authors;
+
+    public ResponseCaches(@Value("${cache.response.books.max-size:10000}") int maxBooks,
+                          @Value("${cache.response.members.max-size:5000}") int maxMembers,
+                          @Value("${cache.response.authors.max-size:2000}") int maxAuthors,
+                          @Value("${cache.response.ttl-ms:30000}") long ttlMillis,
+                          DatabaseProperties databaseProperties) {
+        long lagWindowMillis = databaseProperties.getReplicaLagWindowMillis();
+        this.books = new ResponseCache<>("books", maxBooks, ttlMillis, lagWindowMillis);
+        this.bookIdsByIsbn = new ResponseCache<>("book-ids-by-isbn", maxBooks, ttlMillis, lagWindowMillis);
+        this.members = new ResponseCache<>("members", maxMembers, ttlMillis, lagWindowMillis);
+        this.memberIdsByEmail = new ResponseCache<>("member-ids-by-email", maxMembers, ttlMillis, lagWindowMillis);
+        this.authors = new ResponseCache<>("authors", maxAuthors, ttlMillis, lagWindowMillis);
+    }
+
+    public ResponseCache<UUID, BookResponse> books() {
+        return books;
+    }
+
+    public ResponseCache<String, UUID> bookIdsByIsbn() {
+        return bookIdsByIsbn;
+    }
+
+    public ResponseCache<UUID, MemberResponse> members() {
+        return members;
+    }
+
+    public ResponseCache<String, UUID> memberIdsByEmail() {
+        return memberIdsByEmail;
+    }
+
+    public ResponseCache<UUID, AuthorResponse> authors() {
+        return authors;
+    }
+
+    /**
+     * Drop a book's response and its ISBN index entry, after a write to the book.
+     *
+     * @param bookId the book ID
+     */
+    public void invalidateBook(UUID bookId) {
+        books.invalidate(bookId);
+        bookIdsByIsbn.invalidateValues(bookId::equals);
+    }
+
+    /**
+     * Drop a book's response after its available copies changed; its ISBN is unaffected.
+     *
+     * @param bookId the book ID
+     */
+    public void invalidateBookAvailability(UUID bookId) {
+        books.invalidate(bookId);
+    }
+
+    /**
+     * Drop a member's response and its email index entry, after a write to the member.
+     *
+     * @param memberId the member ID
+     */
+    public void invalidateMember(UUID memberId) {
+        members.invalidate(memberId);
+        memberIdsByEmail.invalidateValues(memberId::equals);
+    }
+
+    /**
+     * Drop an author's response and the book responses embedding it, after a write to the author.
+     *
+     * @param authorId the author ID
+     */
+    public void invalidateAuthor(UUID authorId) {
+        authors.invalidate(authorId);
+        books.invalidateValues(book -> book.getAuthor() != null && authorId.equals(book.getAuthor().getId()));
+    }
+
+    /**
+     * Drop every cached response, after a bulk delete that bypassed the services.
+     */
+    public void invalidateAll() {
+        getAll().forEach(cache -> cache.invalidateIf((key, value) -> true));
+    }
+
+    /**
+     * Get all caches, for monitoring.
+     *
+     * @return the caches
+     */
+    public List<ResponseCache<?, ?>> getAll() {
+        return List.of(books, bookIdsByIsbn, members, memberIdsByEmail, authors);
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCaches" + getAll();
+    }
+}
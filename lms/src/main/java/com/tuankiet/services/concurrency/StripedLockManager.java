@@ -0,0 +1,159 @@
+package com.tuankiet.services.concurrency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed array of locks indexed by a hash of an entity ID, to serialize work on the same book or member
+ * inside this JVM instead of queueing it on database row locks.
+ * Different IDs may share a stripe, which only costs some extra serialization.
+ * <p>
+ * Multi-key acquisition always takes the stripes in ascending index order, so two threads locking
+ * the same keys in any order cannot deadlock. Locks taken inside a transaction are held until it
+ * completes: releasing them before the commit would let the next thread read the state as it was
+ * before the first one's changes.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class StripedLockManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripedLockManager.class);
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final WaitTimeHistogram waitTimes = new WaitTimeHistogram();
+    private final LongAdder contended = new LongAdder();
+
+    public StripedLockManager(@Value("${locks.stripes:256}") int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Lock the stripes of the given keys, in canonical order.
+     * Inside a transaction the locks are released when it completes and closing the returned handle
+     * does nothing; outside a transaction the caller must close the handle.
+     *
+     * @param keys the entity IDs, e.g. a book ID and a member ID; null keys are ignored
+     * @return the handle releasing the locks
+     */
+    public Handle lock(UUID... keys) {
+        int[] indexes = Arrays.stream(keys).filter(key -> key != null).mapToInt(this::stripeOf).sorted().distinct().toArray();
+        long waited = 0;
+        int acquired = 0;
+        try {
+            for (int index : indexes) {
+                ReentrantLock lock = stripes[index];
+                if (!lock.tryLock()) {
+                    contended.increment();
+                    long start = System.nanoTime();
+                    lock.lock();
+                    waited += System.nanoTime() - start;
+                }
+                acquired++;
+            }
+        } finally {
+            if (acquired < indexes.length) {
+                unlock(indexes, acquired);
+            }
+        }
+        waitTimes.record(waited);
+        if (waited > 0) {
+            logger.debug("Waited {} us for lock stripes {}", waited / 1000, Arrays.toString(indexes));
+        }
+
+        boolean transactionBound = TransactionSynchronizationManager.isSynchronizationActive();
+        Handle handle = new Handle(indexes, transactionBound);
+        if (transactionBound) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    handle.release();
+                }
+            });
+        }
+        return handle;
+    }
+
+    /**
+     * Get the distribution of the time spent waiting per {@link #lock} call, including uncontended calls.
+     *
+     * @return the wait time histogram
+     */
+    public WaitTimeHistogram getWaitTimes() {
+        return waitTimes;
+    }
+
+    /**
+     * Get the number of stripe acquisitions that had to wait for another thread.
+     *
+     * @return the contended acquisition count
+     */
+    public long getContendedCount() {
+        return contended.sum();
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    private int stripeOf(UUID key) {
+        int hash = key.hashCode();
+        // Spread the high bits, as the mask only keeps the low ones
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void unlock(int[] indexes, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+
+    /**
+     * Releases the stripes taken by one {@link #lock} call.
+     */
+    public final class Handle implements AutoCloseable {
+
+        private final int[] indexes;
+        private final boolean transactionBound;
+        private boolean released;
+
+        private Handle(int[] indexes, boolean transactionBound) {
+            this.indexes = indexes;
+            this.transactionBound = transactionBound;
+        }
+
+        private void release() {
+            if (!released) {
+                released = true;
+                unlock(indexes, indexes.length);
+            }
+        }
+
+        /**
+         * Release the locks, unless they are held until the transaction completes.
+         */
+        @Override
+        public void close() {
+            if (!transactionBound) {
+                release();
+            }
+        }
+    }
+}
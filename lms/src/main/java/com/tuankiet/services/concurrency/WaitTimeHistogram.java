@@ -0,0 +1,88 @@
+package com.tuankiet.services.concurrency;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of wait times with power-of-two microsecond buckets:
+ * {@code < 1 us}, {@code < 2 us}, {@code < 4 us}, ... up to an overflow bucket for waits of a second or more.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class WaitTimeHistogram {
+
+    /** Bucket i counts waits below 2^i microseconds; the last bucket counts everything above. */
+    private static final int BUCKETS = 21;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS + 1];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public WaitTimeHistogram() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record one wait.
+     *
+     * @param nanos the wait time in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+        int bucket = micros == 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+        counts[Math.min(bucket, BUCKETS)].increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder adder : counts) {
+            count += adder.sum();
+        }
+        return count;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) totalNanos.sum() / count;
+    }
+
+    /**
+     * Get the non-empty buckets by upper bound.
+     *
+     * @return a read-only map from bucket label (e.g. {@code "< 64 us"}) to count, in bucket order
+     */
+    public Map<String, Long> getBuckets() {
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            long count = counts[i].sum();
+            if (count > 0) {
+                buckets.put(i < BUCKETS ? "< " + (1L << i) + " us" : ">= " + (1L << (BUCKETS - 1)) + " us", count);
+            }
+        }
+        return Collections.unmodifiableMap(buckets);
+    }
+
+    @Override
+    public String toString() {
+        return "WaitTimeHistogram{" +
+                "count=" + getCount() +
+                ", meanMicros=" + String.format("%.1f", getMeanNanos() / 1000) +
+                ", maxMicros=" + TimeUnit.NANOSECONDS.toMicros(getMaxNanos()) +
+                ", buckets=" + getBuckets() +
+                '}';
+    }
+}
@@ -1,7 +1,11 @@
 package com.tuankiet.services.impl;
 
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Slice;
+import com.tuankiet.dto.common.TotalCountStrategy;
 import com.tuankiet.dto.request.CreateAuthorRequest;
 import com.tuankiet.dto.request.UpdateAuthorRequest;
 import com.tuankiet.dto.response.AuthorResponse;
@@ -12,7 +16,9 @@ import com.tuankiet.exceptions.DuplicateEntityException;
 import com.tuankiet.exceptions.EntityNotFoundException;
 import com.tuankiet.repositories.AuthorRepository;
 import com.tuankiet.repositories.BookRepository;
+import com.tuankiet.repositories.support.ResponseProjections;
 import com.tuankiet.services.AuthorService;
+import com.tuankiet.services.cache.ResponseCaches;
 import com.tuankiet.services.validation.ValidationService;
 import com.tuankiet.utils.MapperUtil;
 import org.slf4j.Logger;
@@ -23,7 +29,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * Implementation of the AuthorService interface.
@@ -40,12 +45,14 @@ public class AuthorServiceImpl extends BaseServiceImpl<Author, AuthorResponse, C
 
     private final AuthorRepository authorRepository;
     private final BookRepository bookRepository;
+    private final ResponseCaches responseCaches;
 
     @Autowired
-    public AuthorServiceImpl(AuthorRepository authorRepository, BookRepository bookRepository, ValidationService validationService, MapperUtil mapperUtil) {
+    public AuthorServiceImpl(AuthorRepository authorRepository, BookRepository bookRepository, ResponseCaches responseCaches, ValidationService validationService, MapperUtil mapperUtil) {
         super(authorRepository, validationService, mapperUtil);
         this.authorRepository = authorRepository;
         this.bookRepository = bookRepository;
+        this.responseCaches = responseCaches;
     }
 
     @Override
@@ -68,9 +75,7 @@ public class AuthorServiceImpl extends BaseServiceImpl<Author, AuthorResponse, C
     @Transactional(readOnly = true)
     public AuthorResponse getById(UUID id) {
         logger.debug("Retrieving author with ID: {}", id);
-        Author author = authorRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Author", id));
-        return mapperUtil.map(author, AuthorResponse.class);
+        return responseCaches.authors().get(id, this::loadAuthorResponse);
     }
 
     @Override
@@ -101,6 +106,7 @@ public class AuthorServiceImpl extends BaseServiceImpl<Author, AuthorResponse, C
 
         mapperUtil.map(updateRequest, existingAuthor);
         Author updatedAuthor = authorRepository.save(existingAuthor);
+        responseCaches.invalidateAuthor(updatedAuthor.getId());
         logger.info("Successfully updated author with ID: {}", updatedAuthor.getId());
         return mapperUtil.map(updatedAuthor, AuthorResponse.class);
     }
@@ -122,6 +128,7 @@ public class AuthorServiceImpl extends BaseServiceImpl<Author, AuthorResponse, C
 
         boolean deleted = authorRepository.deleteById(id);
         if (deleted) {
+            responseCaches.invalidateAuthor(id);
             logger.info("Successfully deleted author with ID: {}", id);
         } else {
             logger.warn("Failed to delete author: ID {} not found.", id);
@@ -133,9 +140,7 @@ public class AuthorServiceImpl extends BaseServiceImpl<Author, AuthorResponse, C
     @Transactional(readOnly = true)
     public List<AuthorResponse> getAll() {
         logger.debug("Retrieving all authors.");
-        return authorRepository.findAll().stream()
-                .map(author -> mapperUtil.map(author, AuthorResponse.class))
-                .collect(Collectors.toList());
+        return authorRepository.findAll(ResponseProjections.AUTHOR);
     }
 
     @Override
@@ -143,10 +148,28 @@ public class AuthorServiceImpl extends BaseServiceImpl<Author, AuthorResponse, C
     public Page<AuthorResponse> search(AuthorSearchCriteria criteria, PageRequest pageRequest) {
         logger.debug("Searching authors with criteria: {} and page request: {}", criteria, pageRequest);
         validationService.validate(pageRequest);
-        Page<Author> authorPage = authorRepository.searchAuthors(criteria, pageRequest);
-        List<AuthorResponse> content = authorPage.getContent().stream()
-                .map(author -> mapperUtil.map(author, AuthorResponse.class))
-                .collect(Collectors.toList());
-        return new Page<>(content, authorPage.getTotalElements(), authorPage.getCurrentPage(), authorPage.getPageSize());
+        return authorRepository.searchAuthors(criteria, pageRequest, ResponseProjections.AUTHOR);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<AuthorResponse> search(AuthorSearchCriteria criteria, CursorPageRequest pageRequest) {
+        logger.debug("Searching authors with criteria: {} and cursor page request: {}", criteria, pageRequest);
+        validationService.validate(pageRequest);
+        return authorRepository.searchAuthors(criteria, pageRequest, ResponseProjections.AUTHOR);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<AuthorResponse> search(AuthorSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy) {
+        logger.debug("Searching authors with criteria: {}, page request: {} and total strategy {}", criteria, pageRequest, totalCountStrategy);
+        validationService.validate(pageRequest);
+        return authorRepository.searchAuthors(criteria, pageRequest, totalCountStrategy, ResponseProjections.AUTHOR);
+    }
+
+    private AuthorResponse loadAuthorResponse(UUID id) {
+        Author author = authorRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Author", id));
+        return mapperUtil.map(author, AuthorResponse.class);
     }
 }
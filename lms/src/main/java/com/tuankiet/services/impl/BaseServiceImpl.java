@@ -1,7 +1,11 @@
 package com.tuankiet.services.impl;
 
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Slice;
+import com.tuankiet.dto.common.TotalCountStrategy;
 import com.tuankiet.entities.BaseEntity;
 import com.tuankiet.exceptions.EntityNotFoundException;
 import com.tuankiet.repositories.BaseRepository;
@@ -121,6 +125,20 @@ public abstract class BaseServiceImpl<T extends BaseEntity, R, C, U, S> implemen
         throw new UnsupportedOperationException("Search method must be implemented by concrete service classes.");
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<R> search(S criteria, CursorPageRequest pageRequest) {
+        // Keyset search is entity specific as well
+        throw new UnsupportedOperationException("Search method must be implemented by concrete service classes.");
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<R> search(S criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy) {
+        // Slice search is entity specific as well
+        throw new UnsupportedOperationException("Search method must be implemented by concrete service classes.");
+    }
+
     @Override
     @Transactional(readOnly = true)
     public long count() {
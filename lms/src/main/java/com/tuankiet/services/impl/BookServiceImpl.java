@@ -1,7 +1,11 @@
 package com.tuankiet.services.impl;
 
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Slice;
+import com.tuankiet.dto.common.TotalCountStrategy;
 import com.tuankiet.dto.request.CreateBookRequest;
 import com.tuankiet.dto.request.UpdateBookRequest;
 import com.tuankiet.dto.response.AuthorResponse;
@@ -14,7 +18,12 @@ import com.tuankiet.exceptions.DuplicateEntityException;
 import com.tuankiet.exceptions.EntityNotFoundException;
 import com.tuankiet.repositories.AuthorRepository;
 import com.tuankiet.repositories.BookRepository;
+import com.tuankiet.repositories.support.FetchPlan;
+import com.tuankiet.repositories.support.ResponseProjections;
 import com.tuankiet.services.BookService;
+import com.tuankiet.services.availability.AvailabilityIndex;
+import com.tuankiet.services.cache.ResponseCaches;
+import com.tuankiet.services.retry.OptimisticRetry;
 import com.tuankiet.services.validation.ValidationService;
 import com.tuankiet.utils.MapperUtil;
 import org.slf4j.Logger;
@@ -23,7 +32,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -42,12 +57,16 @@ public class BookServiceImpl extends BaseServiceImpl<Book, BookResponse, CreateB
 
   private final BookRepository bookRepository;
   private final AuthorRepository authorRepository;
+  private final ResponseCaches responseCaches;
+  private final AvailabilityIndex availabilityIndex;
 
   @Autowired
-  public BookServiceImpl(BookRepository bookRepository, AuthorRepository authorRepository, ValidationService validationService, MapperUtil mapperUtil) {
+  public BookServiceImpl(BookRepository bookRepository, AuthorRepository authorRepository, ResponseCaches responseCaches, AvailabilityIndex availabilityIndex, ValidationService validationService, MapperUtil mapperUtil) {
       super(bookRepository, validationService, mapperUtil);
       this.bookRepository = bookRepository;
       this.authorRepository = authorRepository;
+      this.responseCaches = responseCaches;
+      this.availabilityIndex = availabilityIndex;
   }
 
   @Override
@@ -68,30 +87,75 @@ public class BookServiceImpl extends BaseServiceImpl<Book, BookResponse, CreateB
       book.setAvailableCopies(book.getTotalCopies()); // Initialize available copies
 
       Book savedBook = bookRepository.save(book);
+      availabilityIndex.set(savedBook.getId(), savedBook.getAvailableCopies());
       logger.info("Successfully created book with ID: {}", savedBook.getId());
       return mapBookToResponse(savedBook);
   }
 
+  @Override
+  @Transactional
+  public List<BookResponse> createAll(List<CreateBookRequest> createRequests) {
+      logger.info("Attempting to create {} books in bulk", createRequests.size());
+      Set<String> isbns = new HashSet<>();
+      for (CreateBookRequest createRequest : createRequests) {
+          validationService.validate(createRequest);
+          if (!isbns.add(createRequest.getIsbn())) {
+              throw new DuplicateEntityException("Book", "ISBN", createRequest.getIsbn());
+          }
+      }
+      List<String> existingIsbns = bookRepository.findExistingIsbns(isbns);
+      if (!existingIsbns.isEmpty()) {
+          throw new DuplicateEntityException("Book", "ISBN", existingIsbns.get(0));
+      }
+
+      Map<UUID, Author> authors = new HashMap<>();
+      List<Book> books = new ArrayList<>(createRequests.size());
+      for (CreateBookRequest createRequest : createRequests) {
+          Author author = authors.computeIfAbsent(createRequest.getAuthorId(), authorId -> authorRepository.findById(authorId)
+                  .orElseThrow(() -> new EntityNotFoundException("Author", authorId)));
+          Book book = mapperUtil.map(createRequest, Book.class);
+          book.setAuthor(author);
+          book.setAvailableCopies(book.getTotalCopies()); // Initialize available copies
+          books.add(book);
+      }
+
+      List<Book> savedBooks = bookRepository.saveAll(books);
+      savedBooks.forEach(savedBook -> availabilityIndex.set(savedBook.getId(), savedBook.getAvailableCopies()));
+      logger.info("Successfully created {} books", savedBooks.size());
+      return savedBooks.stream()
+              .map(this::mapBookToResponse)
+              .collect(Collectors.toList());
+  }
+
   @Override
   @Transactional(readOnly = true)
   public BookResponse getById(UUID id) {
       logger.debug("Retrieving book with ID: {}", id);
-      Book book = bookRepository.findById(id)
-              .orElseThrow(() -> new EntityNotFoundException("Book", id));
-      return mapBookToResponse(book);
+      return responseCaches.books().get(id, this::loadBookResponse);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Map<UUID, BookResponse> getAllById(Collection<UUID> ids) {
+      logger.debug("Retrieving {} books by ID", ids.size());
+      return responseCaches.books().getAll(ids, missed -> bookRepository.findAllById(missed, FetchPlan.BOOK_WITH_AUTHOR).stream()
+              .collect(Collectors.toMap(Book::getId, this::mapBookToResponse)));
   }
 
   @Override
   @Transactional(readOnly = true)
   public BookResponse getByIsbn(String isbn) {
       logger.debug("Retrieving book with ISBN: {}", isbn);
-      Book book = bookRepository.findByIsbn(isbn)
-              .orElseThrow(() -> new EntityNotFoundException("Book with ISBN " + isbn + " not found."));
-      return mapBookToResponse(book);
+      // On a miss the book is loaded into the session, so building its response below does not query again
+      UUID id = responseCaches.bookIdsByIsbn().get(isbn, key -> bookRepository.findByIsbn(key)
+              .orElseThrow(() -> new EntityNotFoundException("Book with ISBN " + isbn + " not found."))
+              .getId());
+      return responseCaches.books().get(id, this::loadBookResponse);
   }
 
   @Override
   @Transactional
+  @OptimisticRetry("book.update")
   public BookResponse update(UpdateBookRequest updateRequest) {
       logger.info("Attempting to update book with ID: {}", updateRequest.getId());
       validationService.validate(updateRequest);
@@ -122,6 +186,8 @@ public class BookServiceImpl extends BaseServiceImpl<Book, BookResponse, CreateB
       existingBook.setAuthor(author);
 
       Book updatedBook = bookRepository.save(existingBook);
+      responseCaches.invalidateBook(updatedBook.getId());
+      availabilityIndex.set(updatedBook.getId(), updatedBook.getAvailableCopies());
       logger.info("Successfully updated book with ID: {}", updatedBook.getId());
       return mapBookToResponse(updatedBook);
   }
@@ -137,6 +203,8 @@ public class BookServiceImpl extends BaseServiceImpl<Book, BookResponse, CreateB
       }
       boolean deleted = bookRepository.deleteById(id);
       if (deleted) {
+          responseCaches.invalidateBook(id);
+          availabilityIndex.remove(id);
           logger.info("Successfully deleted book with ID: {}", id);
       } else {
           logger.warn("Failed to delete book: ID {} not found.", id);
@@ -148,39 +216,41 @@ public class BookServiceImpl extends BaseServiceImpl<Book, BookResponse, CreateB
   @Transactional
   public void decrementAvailableCopies(UUID bookId, int quantity) {
       logger.debug("Decrementing {} available copies for book ID: {}", quantity, bookId);
-      Book book = bookRepository.findById(bookId)
-              .orElseThrow(() -> new EntityNotFoundException("Book", bookId));
-
-      if (book.getAvailableCopies() < quantity) {
+      if (bookRepository.decrementAvailableCopies(bookId, quantity) == 0) {
+          // Only read the book to explain why the conditional update did not apply
+          Book book = bookRepository.findById(bookId)
+                  .orElseThrow(() -> new EntityNotFoundException("Book", bookId));
           throw new BusinessRuleViolationException("Not enough available copies for book '" + book.getTitle() + "'. Available: " + book.getAvailableCopies() + ", Requested: " + quantity);
       }
-      book.setAvailableCopies(book.getAvailableCopies() - quantity);
-      bookRepository.save(book);
-      logger.info("Decremented available copies for book ID {}. New available: {}", bookId, book.getAvailableCopies());
+      responseCaches.invalidateBookAvailability(bookId);
+      availabilityIndex.adjust(bookId, -quantity);
+      logger.info("Decremented available copies for book ID {} by {}", bookId, quantity);
   }
 
   @Override
   @Transactional
   public void incrementAvailableCopies(UUID bookId, int quantity) {
       logger.debug("Incrementing {} available copies for book ID: {}", quantity, bookId);
-      Book book = bookRepository.findById(bookId)
-              .orElseThrow(() -> new EntityNotFoundException("Book", bookId));
-
-      if (book.getAvailableCopies() + quantity > book.getTotalCopies()) {
+      if (bookRepository.incrementAvailableCopies(bookId, quantity) == 0) {
+          Book book = bookRepository.findById(bookId)
+                  .orElseThrow(() -> new EntityNotFoundException("Book", bookId));
           throw new BusinessRuleViolationException("Cannot increment available copies beyond total copies for book '" + book.getTitle() + "'. Total: " + book.getTotalCopies() + ", Current Available: " + book.getAvailableCopies() + ", Increment: " + quantity);
       }
-      book.setAvailableCopies(book.getAvailableCopies() + quantity);
-      bookRepository.save(book);
-      logger.info("Incremented available copies for book ID {}. New available: {}", bookId, book.getAvailableCopies());
+      responseCaches.invalidateBookAvailability(bookId);
+      availabilityIndex.adjust(bookId, quantity);
+      logger.info("Incremented available copies for book ID {} by {}", bookId, quantity);
+  }
+
+  @Override
+  public Map<UUID, Integer> getAvailableCopies(Collection<UUID> bookIds) {
+      return availabilityIndex.getAvailableCopies(bookIds);
   }
 
   @Override
   @Transactional(readOnly = true)
   public List<BookResponse> getAll() {
       logger.debug("Retrieving all books.");
-      return bookRepository.findAll().stream()
-              .map(this::mapBookToResponse)
-              .collect(Collectors.toList());
+      return bookRepository.findAll(ResponseProjections.BOOK);
   }
 
   @Override
@@ -188,11 +258,29 @@ public class BookServiceImpl extends BaseServiceImpl<Book, BookResponse, CreateB
   public Page<BookResponse> search(BookSearchCriteria criteria, PageRequest pageRequest) {
       logger.debug("Searching books with criteria: {} and page request: {}", criteria, pageRequest);
       validationService.validate(pageRequest);
-      Page<Book> bookPage = bookRepository.searchBooks(criteria, pageRequest);
-      List<BookResponse> content = bookPage.getContent().stream()
-              .map(this::mapBookToResponse)
-              .collect(Collectors.toList());
-      return new Page<>(content, bookPage.getTotalElements(), bookPage.getCurrentPage(), bookPage.getPageSize());
+      return bookRepository.searchBooks(criteria, pageRequest, ResponseProjections.BOOK);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public CursorPage<BookResponse> search(BookSearchCriteria criteria, CursorPageRequest pageRequest) {
+      logger.debug("Searching books with criteria: {} and cursor page request: {}", criteria, pageRequest);
+      validationService.validate(pageRequest);
+      return bookRepository.searchBooks(criteria, pageRequest, ResponseProjections.BOOK);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Slice<BookResponse> search(BookSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy) {
+      logger.debug("Searching books with criteria: {}, page request: {} and total strategy {}", criteria, pageRequest, totalCountStrategy);
+      validationService.validate(pageRequest);
+      return bookRepository.searchBooks(criteria, pageRequest, totalCountStrategy, ResponseProjections.BOOK);
+  }
+
+  private BookResponse loadBookResponse(UUID id) {
+      Book book = bookRepository.findById(id)
+              .orElseThrow(() -> new EntityNotFoundException("Book", id));
+      return mapBookToResponse(book);
   }
 
   private BookResponse mapBookToResponse(Book book) {
@@ -1,7 +1,12 @@
 package com.tuankiet.services.impl;
 
+import com.tuankiet.dto.common.BatchItemResult;
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Slice;
+import com.tuankiet.dto.common.TotalCountStrategy;
 import com.tuankiet.dto.request.CreateBorrowingRequest;
 import com.tuankiet.dto.request.UpdateBorrowingRequest;
 import com.tuankiet.dto.response.AuthorResponse;
@@ -18,7 +23,14 @@ import com.tuankiet.exceptions.EntityNotFoundException;
 import com.tuankiet.repositories.BookRepository;
 import com.tuankiet.repositories.BorrowingRepository;
 import com.tuankiet.repositories.MemberRepository;
+import com.tuankiet.repositories.support.FetchPlan;
+import com.tuankiet.repositories.support.ResponseProjections;
 import com.tuankiet.services.BorrowingService;
+import com.tuankiet.services.availability.AvailabilityIndex;
+import com.tuankiet.services.cache.ResponseCaches;
+import com.tuankiet.services.concurrency.StripedLockManager;
+import com.tuankiet.services.loans.ActiveLoanIndex;
+import com.tuankiet.services.retry.OptimisticRetry;
 import com.tuankiet.services.validation.ValidationService;
 import com.tuankiet.utils.MapperUtil;
 import org.slf4j.Logger;
@@ -28,9 +40,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
 * Implementation of the BorrowingService interface.
@@ -48,35 +66,59 @@ public class BorrowingServiceImpl extends BaseServiceImpl<Borrowing, BorrowingRe
   private final BorrowingRepository borrowingRepository;
   private final BookRepository bookRepository;
   private final MemberRepository memberRepository;
+  private final StripedLockManager lockManager;
+  private final ResponseCaches responseCaches;
+  private final AvailabilityIndex availabilityIndex;
+  private final ActiveLoanIndex activeLoanIndex;
 
   @Autowired
-  public BorrowingServiceImpl(BorrowingRepository borrowingRepository, BookRepository bookRepository, MemberRepository memberRepository, ValidationService validationService, MapperUtil mapperUtil) {
+  public BorrowingServiceImpl(BorrowingRepository borrowingRepository, BookRepository bookRepository, MemberRepository memberRepository, StripedLockManager lockManager, ResponseCaches responseCaches, AvailabilityIndex availabilityIndex, ActiveLoanIndex activeLoanIndex, ValidationService validationService, MapperUtil mapperUtil) {
       super(borrowingRepository, validationService, mapperUtil);
       this.borrowingRepository = borrowingRepository;
       this.bookRepository = bookRepository;
       this.memberRepository = memberRepository;
+      this.lockManager = lockManager;
+      this.responseCaches = responseCaches;
+      this.availabilityIndex = availabilityIndex;
+      this.activeLoanIndex = activeLoanIndex;
   }
 
   @Override
   @Transactional
+  @OptimisticRetry("borrowing.create")
   public BorrowingResponse create(CreateBorrowingRequest createRequest) {
       logger.info("Attempting to create new borrowing record for book ID: {} and member ID: {}", createRequest.getBookId(), createRequest.getMemberId());
       validationService.validate(createRequest);
 
-      Book book = bookRepository.findById(createRequest.getBookId())
-              .orElseThrow(() -> new EntityNotFoundException("Book", createRequest.getBookId()));
+      // Fail fast, without locking or querying, when the shelf is known to be empty
+      if (availabilityIndex.isKnownUnavailable(createRequest.getBookId())) {
+          throw new BusinessRuleViolationException("Book ID " + createRequest.getBookId() + " has no available copies.");
+      }
+
+      // Serialize checkouts of the same book or by the same member in this JVM; held until commit
+      lockManager.lock(createRequest.getBookId(), createRequest.getMemberId());
+
       Member member = memberRepository.findById(createRequest.getMemberId())
               .orElseThrow(() -> new EntityNotFoundException("Member", createRequest.getMemberId()));
-
-      if (book.getAvailableCopies() <= 0) {
-          throw new BusinessRuleViolationException("Book '" + book.getTitle() + "' has no available copies.");
-      }
+      Book book = bookRepository.getReference(createRequest.getBookId());
 
       // Check if the member already has an active borrowing for this specific book
       List<Borrowing> activeBorrowings = borrowingRepository.findActiveBorrowings(book, member);
       if (!activeBorrowings.isEmpty()) {
-          throw new BusinessRuleViolationException("Member '" + member.getFirstName() + " " + member.getLastName() + "' already has an active borrowing for book '" + book.getTitle() + "'.");
+          // Only this error path loads the book behind the reference
+          String title = bookRepository.findById(createRequest.getBookId()).map(Book::getTitle).orElse(String.valueOf(createRequest.getBookId()));
+          throw new BusinessRuleViolationException("Member '" + member.getFirstName() + " " + member.getLastName() + "' already has an active borrowing for book '" + title + "'.");
+      }
+
+      // Take a copy with one conditional UPDATE instead of reading and writing back the count,
+      // so concurrent checkouts of the same book can neither oversell nor lose an update
+      if (bookRepository.decrementAvailableCopies(createRequest.getBookId(), 1) == 0) {
+          Book current = bookRepository.findById(createRequest.getBookId())
+                  .orElseThrow(() -> new EntityNotFoundException("Book", createRequest.getBookId()));
+          throw new BusinessRuleViolationException("Book '" + current.getTitle() + "' has no available copies.");
       }
+      responseCaches.invalidateBookAvailability(createRequest.getBookId());
+      availabilityIndex.adjust(createRequest.getBookId(), -1);
 
       Borrowing borrowing = mapperUtil.map(createRequest, Borrowing.class);
       borrowing.setBook(book);
@@ -84,13 +126,127 @@ public class BorrowingServiceImpl extends BaseServiceImpl<Borrowing, BorrowingRe
       borrowing.setStatus(BorrowingStatus.BORROWED);
 
       Borrowing savedBorrowing = borrowingRepository.save(borrowing);
-
-      // Decrement available copies of the book
-      book.setAvailableCopies(book.getAvailableCopies() - 1);
-      bookRepository.save(book);
+      adjustLoanCounters(createRequest.getBookId(), member.getId(), 1, 1, 0, savedBorrowing.getBorrowDate());
 
       logger.info("Successfully created borrowing record with ID: {}", savedBorrowing.getId());
-      return mapBorrowingToResponse(savedBorrowing);
+      BorrowingResponse response = mapBorrowingToResponse(savedBorrowing);
+      activeLoanIndex.put(response);
+      return response;
+  }
+
+  @Override
+  @Transactional
+  @OptimisticRetry("borrowing.checkout-batch")
+  public List<BatchItemResult<BorrowingResponse>> checkoutAll(List<CreateBorrowingRequest> createRequests) {
+      logger.info("Attempting to check out {} books as one batch", createRequests.size());
+      List<BatchItemResult<BorrowingResponse>> results = new ArrayList<>(Collections.nCopies(createRequests.size(), null));
+      Set<UUID> bookIds = new HashSet<>();
+      Set<UUID> memberIds = new HashSet<>();
+      for (int i = 0; i < createRequests.size(); i++) {
+          CreateBorrowingRequest createRequest = createRequests.get(i);
+          try {
+              validationService.validate(createRequest);
+              bookIds.add(createRequest.getBookId());
+              memberIds.add(createRequest.getMemberId());
+          } catch (RuntimeException e) {
+              results.set(i, BatchItemResult.failure(e));
+          }
+      }
+      List<UUID> lockKeys = new ArrayList<>(bookIds);
+      lockKeys.addAll(memberIds);
+      lockManager.lock(lockKeys.toArray(new UUID[0]));
+
+      Map<UUID, Member> members = new HashMap<>();
+      memberRepository.findAllById(memberIds, FetchPlan.NONE).forEach(member -> members.put(member.getId(), member));
+      Map<UUID, Integer> availableCopies = bookRepository.findAvailableCopies(bookIds);
+      Map<UUID, Set<UUID>> activeBorrowers = borrowingRepository.findActiveBorrowerIds(bookIds);
+
+      // Admit the requests in order against the availability left by the earlier ones
+      Map<UUID, List<Integer>> admitted = new LinkedHashMap<>();
+      for (int i = 0; i < createRequests.size(); i++) {
+          if (results.get(i) != null) {
+              continue;
+          }
+          CreateBorrowingRequest createRequest = createRequests.get(i);
+          UUID bookId = createRequest.getBookId();
+          UUID memberId = createRequest.getMemberId();
+          Member member = members.get(memberId);
+          Integer available = availableCopies.get(bookId);
+          if (member == null) {
+              results.set(i, BatchItemResult.failure(new EntityNotFoundException("Member", memberId)));
+          } else if (available == null) {
+              results.set(i, BatchItemResult.failure(new EntityNotFoundException("Book", bookId)));
+          } else if (activeBorrowers.getOrDefault(bookId, Collections.emptySet()).contains(memberId)) {
+              results.set(i, BatchItemResult.failure(new BusinessRuleViolationException("Member '" + member.getFirstName() + " " + member.getLastName() + "' already has an active borrowing for book ID " + bookId + ".")));
+          } else if (available <= 0) {
+              results.set(i, BatchItemResult.failure(new BusinessRuleViolationException("Book ID " + bookId + " has no available copies.")));
+          } else {
+              availableCopies.put(bookId, available - 1);
+              activeBorrowers.computeIfAbsent(bookId, id -> new HashSet<>()).add(memberId);
+              admitted.computeIfAbsent(bookId, id -> new ArrayList<>()).add(i);
+          }
+      }
+
+      // One conditional update per book; if a checkout outside the batch took copies meanwhile,
+      // only as many requests as there are copies left keep their place
+      for (Map.Entry<UUID, List<Integer>> entry : admitted.entrySet()) {
+          UUID bookId = entry.getKey();
+          List<Integer> indexes = entry.getValue();
+          if (bookRepository.decrementAvailableCopies(bookId, indexes.size()) == 0) {
+              int left = Math.max(0, bookRepository.findAvailableCopies(List.of(bookId)).getOrDefault(bookId, 0));
+              for (int index : indexes.subList(Math.min(left, indexes.size()), indexes.size())) {
+                  results.set(index, BatchItemResult.failure(new BusinessRuleViolationException("Book ID " + bookId + " has no available copies.")));
+              }
+              indexes.subList(Math.min(left, indexes.size()), indexes.size()).clear();
+              if (!indexes.isEmpty() && bookRepository.decrementAvailableCopies(bookId, indexes.size()) == 0) {
+                  throw new IllegalStateException("Available copies of book ID " + bookId + " changed during the batch checkout.");
+              }
+          }
+          if (!indexes.isEmpty()) {
+              availabilityIndex.adjust(bookId, -indexes.size());
+          }
+          responseCaches.invalidateBookAvailability(bookId);
+      }
+
+      // Books are read after the updates, so the responses show the copies left
+      Map<UUID, BookResponse> books = new HashMap<>();
+      Map<UUID, Book> bookEntities = new HashMap<>();
+      for (Book book : bookRepository.findAllById(admitted.keySet(), FetchPlan.BOOK_WITH_AUTHOR)) {
+          bookEntities.put(book.getId(), book);
+          books.put(book.getId(), mapBookToResponse(book));
+      }
+      List<Integer> order = new ArrayList<>();
+      List<Borrowing> borrowings = new ArrayList<>();
+      admitted.values().forEach(indexes -> indexes.forEach(index -> {
+          CreateBorrowingRequest createRequest = createRequests.get(index);
+          Borrowing borrowing = mapperUtil.map(createRequest, Borrowing.class);
+          borrowing.setBook(bookEntities.get(createRequest.getBookId()));
+          borrowing.setMember(members.get(createRequest.getMemberId()));
+          borrowing.setStatus(BorrowingStatus.BORROWED);
+          order.add(index);
+          borrowings.add(borrowing);
+      }));
+
+      List<Borrowing> saved = borrowingRepository.saveAll(borrowings);
+      // One counter update per book and per member, however many copies the batch took
+      Map<UUID, List<Borrowing>> byBook = new LinkedHashMap<>();
+      Map<UUID, List<Borrowing>> byMember = new LinkedHashMap<>();
+      for (Borrowing borrowing : saved) {
+          byBook.computeIfAbsent(borrowing.getBook().getId(), id -> new ArrayList<>()).add(borrowing);
+          byMember.computeIfAbsent(borrowing.getMember().getId(), id -> new ArrayList<>()).add(borrowing);
+      }
+      byBook.forEach((bookId, loans) -> bookRepository.adjustLoanCounters(bookId, loans.size(), loans.size(), 0, lastBorrowDate(loans)));
+      byMember.forEach((memberId, loans) -> memberRepository.adjustLoanCounters(memberId, loans.size(), loans.size(), 0, lastBorrowDate(loans)));
+      for (int i = 0; i < saved.size(); i++) {
+          Borrowing borrowing = saved.get(i);
+          BorrowingResponse response = mapperUtil.map(borrowing, BorrowingResponse.class);
+          response.setBook(books.get(borrowing.getBook().getId()));
+          response.setMember(mapperUtil.map(borrowing.getMember(), MemberResponse.class));
+          activeLoanIndex.put(response);
+          results.set(order.get(i), BatchItemResult.success(response));
+      }
+      logger.info("Checked out {} of {} books in one batch", saved.size(), createRequests.size());
+      return results;
   }
 
   @Override
@@ -104,6 +260,7 @@ public class BorrowingServiceImpl extends BaseServiceImpl<Borrowing, BorrowingRe
 
   @Override
   @Transactional
+  @OptimisticRetry("borrowing.update")
   public BorrowingResponse update(UpdateBorrowingRequest updateRequest) {
       logger.info("Attempting to update borrowing record with ID: {}", updateRequest.getId());
       validationService.validate(updateRequest);
@@ -116,14 +273,14 @@ public class BorrowingServiceImpl extends BaseServiceImpl<Borrowing, BorrowingRe
       Member member = memberRepository.findById(updateRequest.getMemberId())
               .orElseThrow(() -> new EntityNotFoundException("Member", updateRequest.getMemberId()));
 
-      // Handle status changes and update book copies accordingly
-      if (existingBorrowing.getStatus() == BorrowingStatus.BORROWED && updateRequest.getStatus() == BorrowingStatus.RETURNED) {
+      // Handle status changes and update book copies accordingly; an overdue loan is still out
+      boolean active = existingBorrowing.getStatus() == BorrowingStatus.BORROWED || existingBorrowing.getStatus() == BorrowingStatus.OVERDUE;
+      if (active && updateRequest.getStatus() == BorrowingStatus.RETURNED) {
           // Book is being returned
-          book.setAvailableCopies(book.getAvailableCopies() + 1);
-          bookRepository.save(book);
+          giveBackCopy(existingBorrowing.getBook().getId());
           updateRequest.setReturnDate(LocalDate.now()); // Set return date to now
-          logger.info("Book ID {} returned. Available copies incremented.", book.getId());
-      } else if (existingBorrowing.getStatus() == BorrowingStatus.BORROWED && updateRequest.getStatus() == BorrowingStatus.LOST) {
+          logger.info("Book ID {} returned. Available copies incremented.", existingBorrowing.getBook().getId());
+      } else if (active && updateRequest.getStatus() == BorrowingStatus.LOST) {
           // Book is being marked as lost
           // No increment to available copies as it's lost
           logger.warn("Book ID {} marked as lost. Available copies not incremented.", book.getId());
@@ -132,17 +289,25 @@ public class BorrowingServiceImpl extends BaseServiceImpl<Borrowing, BorrowingRe
           throw new BusinessRuleViolationException("Cannot change borrowing status back to BORROWED from RETURNED or LOST.");
       }
 
+      UUID previousBookId = existingBorrowing.getBook().getId();
+      UUID previousMemberId = existingBorrowing.getMember().getId();
       mapperUtil.map(updateRequest, existingBorrowing);
       existingBorrowing.setBook(book);
       existingBorrowing.setMember(member);
 
       Borrowing updatedBorrowing = borrowingRepository.save(existingBorrowing);
+      // Any field of the record may have changed, so the counters of both sides are recounted
+      bookRepository.recountLoanCounters(Set.of(previousBookId, book.getId()));
+      memberRepository.recountLoanCounters(Set.of(previousMemberId, member.getId()));
       logger.info("Successfully updated borrowing record with ID: {}", updatedBorrowing.getId());
-      return mapBorrowingToResponse(updatedBorrowing);
+      BorrowingResponse response = mapBorrowingToResponse(updatedBorrowing);
+      activeLoanIndex.put(response);
+      return response;
   }
 
   @Override
   @Transactional
+  @OptimisticRetry("borrowing.delete")
   public boolean delete(UUID id) {
       logger.info("Attempting to delete borrowing record with ID: {}", id);
       Borrowing existingBorrowing = borrowingRepository.findById(id)
@@ -150,14 +315,19 @@ public class BorrowingServiceImpl extends BaseServiceImpl<Borrowing, BorrowingRe
 
       // If the book was borrowed and not returned/lost, increment available copies before deleting
       if (existingBorrowing.getStatus() == BorrowingStatus.BORROWED || existingBorrowing.getStatus() == BorrowingStatus.OVERDUE) {
-          Book book = existingBorrowing.getBook();
-          book.setAvailableCopies(book.getAvailableCopies() + 1);
-          bookRepository.save(book);
-          logger.info("Book ID {} available copies incremented due to borrowing record deletion.", book.getId());
+          UUID bookId = existingBorrowing.getBook().getId();
+          giveBackCopy(bookId);
+          logger.info("Book ID {} available copies incremented due to borrowing record deletion.", bookId);
       }
 
+      UUID bookId = existingBorrowing.getBook().getId();
+      UUID memberId = existingBorrowing.getMember().getId();
       boolean deleted = borrowingRepository.deleteById(id);
       if (deleted) {
+          // Recounted rather than decremented, as the record may have been the last borrowing
+          bookRepository.recountLoanCounters(List.of(bookId));
+          memberRepository.recountLoanCounters(List.of(memberId));
+          activeLoanIndex.remove(id);
           logger.info("Successfully deleted borrowing record with ID: {}", id);
       } else {
           logger.warn("Failed to delete borrowing record: ID {} not found.", id);
@@ -167,10 +337,13 @@ public class BorrowingServiceImpl extends BaseServiceImpl<Borrowing, BorrowingRe
 
   @Override
   @Transactional
+  @OptimisticRetry("borrowing.return")
   public BorrowingResponse returnBook(UUID borrowingId) {
       logger.info("Attempting to return book for borrowing ID: {}", borrowingId);
       Borrowing borrowing = borrowingRepository.findById(borrowingId)
               .orElseThrow(() -> new EntityNotFoundException("Borrowing", borrowingId));
+      // A return that slipped in between the read and the lock is caught by the version check
+      lockManager.lock(borrowing.getBook().getId(), borrowing.getMember().getId());
 
       if (borrowing.getStatus() == BorrowingStatus.RETURNED) {
           throw new BusinessRuleViolationException("Book for borrowing ID " + borrowingId + " has already been returned.");
@@ -179,25 +352,28 @@ public class BorrowingServiceImpl extends BaseServiceImpl<Borrowing, BorrowingRe
           throw new BusinessRuleViolationException("Book for borrowing ID " + borrowingId + " was marked as lost and cannot be returned.");
       }
 
+      boolean overdue = borrowing.getStatus() == BorrowingStatus.OVERDUE;
       borrowing.setReturnDate(LocalDate.now());
       borrowing.setStatus(BorrowingStatus.RETURNED);
       Borrowing updatedBorrowing = borrowingRepository.save(borrowing);
+      adjustLoanCounters(updatedBorrowing.getBook().getId(), updatedBorrowing.getMember().getId(), 0, -1, overdue ? -1 : 0, null);
 
       // Increment available copies of the book
-      Book book = updatedBorrowing.getBook();
-      book.setAvailableCopies(book.getAvailableCopies() + 1);
-      bookRepository.save(book);
+      giveBackCopy(updatedBorrowing.getBook().getId());
 
+      activeLoanIndex.remove(borrowingId);
       logger.info("Book for borrowing ID {} successfully returned. Book available copies incremented.", borrowingId);
       return mapBorrowingToResponse(updatedBorrowing);
   }
 
   @Override
   @Transactional
+  @OptimisticRetry("borrowing.mark-lost")
   public BorrowingResponse markAsLost(UUID borrowingId) {
       logger.info("Attempting to mark borrowing ID {} as lost.", borrowingId);
       Borrowing borrowing = borrowingRepository.findById(borrowingId)
               .orElseThrow(() -> new EntityNotFoundException("Borrowing", borrowingId));
+      lockManager.lock(borrowing.getBook().getId(), borrowing.getMember().getId());
 
       if (borrowing.getStatus() == BorrowingStatus.RETURNED) {
           throw new BusinessRuleViolationException("Book for borrowing ID " + borrowingId + " has already been returned and cannot be marked as lost.");
@@ -206,10 +382,13 @@ public class BorrowingServiceImpl extends BaseServiceImpl<Borrowing, BorrowingRe
           throw new BusinessRuleViolationException("Book for borrowing ID " + borrowingId + " has already been marked as lost.");
       }
 
+      boolean overdue = borrowing.getStatus() == BorrowingStatus.OVERDUE;
       borrowing.setStatus(BorrowingStatus.LOST);
       Borrowing updatedBorrowing = borrowingRepository.save(borrowing);
+      adjustLoanCounters(updatedBorrowing.getBook().getId(), updatedBorrowing.getMember().getId(), 0, -1, overdue ? -1 : 0, null);
 
       // Do NOT increment available copies as the book is lost
+      activeLoanIndex.remove(borrowingId);
       logger.warn("Book for borrowing ID {} marked as lost. Available copies not incremented.", borrowingId);
       return mapBorrowingToResponse(updatedBorrowing);
   }
@@ -218,9 +397,7 @@ public class BorrowingServiceImpl extends BaseServiceImpl<Borrowing, BorrowingRe
   @Transactional(readOnly = true)
   public List<BorrowingResponse> getAll() {
       logger.debug("Retrieving all borrowing records.");
-      return borrowingRepository.findAll().stream()
-              .map(this::mapBorrowingToResponse)
-              .collect(Collectors.toList());
+      return borrowingRepository.findAll(ResponseProjections.BORROWING);
   }
 
   @Override
@@ -228,21 +405,68 @@ public class BorrowingServiceImpl extends BaseServiceImpl<Borrowing, BorrowingRe
   public Page<BorrowingResponse> search(BorrowingSearchCriteria criteria, PageRequest pageRequest) {
       logger.debug("Searching borrowing records with criteria: {} and page request: {}", criteria, pageRequest);
       validationService.validate(pageRequest);
-      Page<Borrowing> borrowingPage = borrowingRepository.searchBorrowings(criteria, pageRequest);
-      List<BorrowingResponse> content = borrowingPage.getContent().stream()
-              .map(this::mapBorrowingToResponse)
-              .collect(Collectors.toList());
-      return new Page<>(content, borrowingPage.getTotalElements(), borrowingPage.getCurrentPage(), borrowingPage.getPageSize());
+      return borrowingRepository.searchBorrowings(criteria, pageRequest, ResponseProjections.BORROWING);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public CursorPage<BorrowingResponse> search(BorrowingSearchCriteria criteria, CursorPageRequest pageRequest) {
+      logger.debug("Searching borrowing records with criteria: {} and cursor page request: {}", criteria, pageRequest);
+      validationService.validate(pageRequest);
+      return borrowingRepository.searchBorrowings(criteria, pageRequest, ResponseProjections.BORROWING);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Slice<BorrowingResponse> search(BorrowingSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy) {
+      logger.debug("Searching borrowing records with criteria: {}, page request: {} and total strategy {}", criteria, pageRequest, totalCountStrategy);
+      validationService.validate(pageRequest);
+      return borrowingRepository.searchBorrowings(criteria, pageRequest, totalCountStrategy, ResponseProjections.BORROWING);
+  }
+
+  private BookResponse mapBookToResponse(Book book) {
+      BookResponse bookResponse = mapperUtil.map(book, BookResponse.class);
+      if (book.getAuthor() != null) {
+          bookResponse.setAuthor(mapperUtil.map(book.getAuthor(), AuthorResponse.class));
+      }
+      return bookResponse;
+  }
+
+  /**
+   * Give a copy back to the book's inventory with one conditional UPDATE.
+   * A copy that would exceed the total copies is not counted, as the inventory is already complete.
+   */
+  private void giveBackCopy(UUID bookId) {
+      if (bookRepository.incrementAvailableCopies(bookId, 1) == 0) {
+          logger.warn("Available copies of book ID {} not incremented: already at total copies.", bookId);
+      } else {
+          responseCaches.invalidateBookAvailability(bookId);
+          availabilityIndex.adjust(bookId, 1);
+      }
+  }
+
+  /**
+   * Apply a state change to the loan counters of the book and the member, in the current transaction.
+   */
+  private void adjustLoanCounters(UUID bookId, UUID memberId, long borrows, long activeLoans, long overdueLoans, LocalDate borrowDate) {
+      bookRepository.adjustLoanCounters(bookId, borrows, activeLoans, overdueLoans, borrowDate);
+      memberRepository.adjustLoanCounters(memberId, borrows, activeLoans, overdueLoans, borrowDate);
+  }
+
+  private static LocalDate lastBorrowDate(List<Borrowing> borrowings) {
+      LocalDate last = null;
+      for (Borrowing borrowing : borrowings) {
+          if (borrowing.getBorrowDate() != null && (last == null || borrowing.getBorrowDate().isAfter(last))) {
+              last = borrowing.getBorrowDate();
+          }
+      }
+      return last;
   }
 
   private BorrowingResponse mapBorrowingToResponse(Borrowing borrowing) {
       BorrowingResponse response = mapperUtil.map(borrowing, BorrowingResponse.class);
       if (borrowing.getBook() != null) {
-          BookResponse bookResponse = mapperUtil.map(borrowing.getBook(), BookResponse.class);
-          if (borrowing.getBook().getAuthor() != null) {
-              bookResponse.setAuthor(mapperUtil.map(borrowing.getBook().getAuthor(), AuthorResponse.class));
-          }
-          response.setBook(bookResponse);
+          response.setBook(mapBookToResponse(borrowing.getBook()));
       }
       if (borrowing.getMember() != null) {
           response.setMember(mapperUtil.map(borrowing.getMember(), MemberResponse.class));
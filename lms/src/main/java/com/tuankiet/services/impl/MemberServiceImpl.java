@@ -1,7 +1,11 @@
 package com.tuankiet.services.impl;
 
+import com.tuankiet.dto.common.CursorPage;
+import com.tuankiet.dto.common.CursorPageRequest;
 import com.tuankiet.dto.common.Page;
 import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.dto.common.Slice;
+import com.tuankiet.dto.common.TotalCountStrategy;
 import com.tuankiet.dto.request.CreateMemberRequest;
 import com.tuankiet.dto.request.UpdateMemberRequest;
 import com.tuankiet.dto.response.MemberResponse;
@@ -12,7 +16,11 @@ import com.tuankiet.exceptions.DuplicateEntityException;
 import com.tuankiet.exceptions.EntityNotFoundException;
 import com.tuankiet.repositories.BorrowingRepository;
 import com.tuankiet.repositories.MemberRepository;
+import com.tuankiet.repositories.support.FetchPlan;
+import com.tuankiet.repositories.support.ResponseProjections;
 import com.tuankiet.services.MemberService;
+import com.tuankiet.services.cache.ResponseCaches;
+import com.tuankiet.services.retry.OptimisticRetry;
 import com.tuankiet.services.validation.ValidationService;
 import com.tuankiet.utils.MapperUtil;
 import org.slf4j.Logger;
@@ -21,7 +29,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -40,12 +53,14 @@ public class MemberServiceImpl extends BaseServiceImpl<Member, MemberResponse, C
 
   private final MemberRepository memberRepository;
   private final BorrowingRepository borrowingRepository; // To check for active borrowings before deletion
+  private final ResponseCaches responseCaches;
 
   @Autowired
-  public MemberServiceImpl(MemberRepository memberRepository, BorrowingRepository borrowingRepository, ValidationService validationService, MapperUtil mapperUtil) {
+  public MemberServiceImpl(MemberRepository memberRepository, BorrowingRepository borrowingRepository, ResponseCaches responseCaches, ValidationService validationService, MapperUtil mapperUtil) {
       super(memberRepository, validationService, mapperUtil);
       this.memberRepository = memberRepository;
       this.borrowingRepository = borrowingRepository;
+      this.responseCaches = responseCaches;
   }
 
   @Override
@@ -64,26 +79,57 @@ public class MemberServiceImpl extends BaseServiceImpl<Member, MemberResponse, C
       return mapperUtil.map(savedMember, MemberResponse.class);
   }
 
+  @Override
+  @Transactional
+  public List<MemberResponse> createAll(List<CreateMemberRequest> createRequests) {
+      logger.info("Attempting to create {} members in bulk", createRequests.size());
+      Set<String> emails = new HashSet<>();
+      List<Member> members = new ArrayList<>(createRequests.size());
+      for (CreateMemberRequest createRequest : createRequests) {
+          // Validation checks email uniqueness against the database; validate everything before persisting
+          validationService.validate(createRequest);
+          if (!emails.add(Member.canonicalEmail(createRequest.getEmail()))) {
+              throw new DuplicateEntityException("Member", "email", createRequest.getEmail());
+          }
+          members.add(mapperUtil.map(createRequest, Member.class));
+      }
+
+      List<Member> savedMembers = memberRepository.saveAll(members);
+      logger.info("Successfully created {} members", savedMembers.size());
+      return savedMembers.stream()
+              .map(member -> mapperUtil.map(member, MemberResponse.class))
+              .collect(Collectors.toList());
+  }
+
   @Override
   @Transactional(readOnly = true)
   public MemberResponse getById(UUID id) {
       logger.debug("Retrieving member with ID: {}", id);
-      Member member = memberRepository.findById(id)
-              .orElseThrow(() -> new EntityNotFoundException("Member", id));
-      return mapperUtil.map(member, MemberResponse.class);
+      return responseCaches.members().get(id, this::loadMemberResponse);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Map<UUID, MemberResponse> getAllById(Collection<UUID> ids) {
+      logger.debug("Retrieving {} members by ID", ids.size());
+      return responseCaches.members().getAll(ids, missed -> memberRepository.findAllById(missed, FetchPlan.NONE).stream()
+              .collect(Collectors.toMap(Member::getId, member -> mapperUtil.map(member, MemberResponse.class))));
   }
 
   @Override
   @Transactional(readOnly = true)
   public MemberResponse getByEmail(String email) {
       logger.debug("Retrieving member with email: {}", email);
-      Member member = memberRepository.findByEmail(email)
-              .orElseThrow(() -> new EntityNotFoundException("Member with email " + email + " not found."));
-      return mapperUtil.map(member, MemberResponse.class);
+      // On a miss the member is loaded into the session, so building its response below does not query again
+      UUID id = responseCaches.memberIdsByEmail().get(Member.canonicalEmail(email), key -> memberRepository.findByEmail(key)
+              .orElseThrow(() -> new EntityNotFoundException("Member with email " + email + " not found."))
+              .getId());
+      return responseCaches.members().get(id, this::loadMemberResponse);
   }
 
   @Override
   @Transactional
+  @OptimisticRetry("member.update")
   public MemberResponse update(UpdateMemberRequest updateRequest) {
       logger.info("Attempting to update member with ID: {}", updateRequest.getId());
       validationService.validate(updateRequest);
@@ -92,12 +138,13 @@ public class MemberServiceImpl extends BaseServiceImpl<Member, MemberResponse, C
               .orElseThrow(() -> new EntityNotFoundException("Member", updateRequest.getId()));
 
       // Check for email uniqueness if it's changed and not the current member's email
-      if (!existingMember.getEmail().equalsIgnoreCase(updateRequest.getEmail()) && memberRepository.existsByEmail(updateRequest.getEmail())) {
+      if (!existingMember.getEmail().equals(Member.canonicalEmail(updateRequest.getEmail())) && memberRepository.existsByEmail(updateRequest.getEmail())) {
           throw new DuplicateEntityException("Member", "email", updateRequest.getEmail());
       }
 
       mapperUtil.map(updateRequest, existingMember);
       Member updatedMember = memberRepository.save(existingMember);
+      responseCaches.invalidateMember(updatedMember.getId());
       logger.info("Successfully updated member with ID: {}", updatedMember.getId());
       return mapperUtil.map(updatedMember, MemberResponse.class);
   }
@@ -117,6 +164,7 @@ public class MemberServiceImpl extends BaseServiceImpl<Member, MemberResponse, C
 
       boolean deleted = memberRepository.deleteById(id);
       if (deleted) {
+          responseCaches.invalidateMember(id);
           logger.info("Successfully deleted member with ID: {}", id);
       } else {
           logger.warn("Failed to delete member: ID {} not found.", id);
@@ -128,9 +176,7 @@ public class MemberServiceImpl extends BaseServiceImpl<Member, MemberResponse, C
   @Transactional(readOnly = true)
   public List<MemberResponse> getAll() {
       logger.debug("Retrieving all members.");
-      return memberRepository.findAll().stream()
-              .map(member -> mapperUtil.map(member, MemberResponse.class))
-              .collect(Collectors.toList());
+      return memberRepository.findAll(ResponseProjections.MEMBER);
   }
 
   @Override
@@ -138,10 +184,28 @@ public class MemberServiceImpl extends BaseServiceImpl<Member, MemberResponse, C
   public Page<MemberResponse> search(MemberSearchCriteria criteria, PageRequest pageRequest) {
       logger.debug("Searching members with criteria: {} and page request: {}", criteria, pageRequest);
       validationService.validate(pageRequest);
-      Page<Member> memberPage = memberRepository.searchMembers(criteria, pageRequest);
-      List<MemberResponse> content = memberPage.getContent().stream()
-              .map(member -> mapperUtil.map(member, MemberResponse.class))
-              .collect(Collectors.toList());
-      return new Page<>(content, memberPage.getTotalElements(), memberPage.getCurrentPage(), memberPage.getPageSize());
+      return memberRepository.searchMembers(criteria, pageRequest, ResponseProjections.MEMBER);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public CursorPage<MemberResponse> search(MemberSearchCriteria criteria, CursorPageRequest pageRequest) {
+      logger.debug("Searching members with criteria: {} and cursor page request: {}", criteria, pageRequest);
+      validationService.validate(pageRequest);
+      return memberRepository.searchMembers(criteria, pageRequest, ResponseProjections.MEMBER);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Slice<MemberResponse> search(MemberSearchCriteria criteria, PageRequest pageRequest, TotalCountStrategy totalCountStrategy) {
+      logger.debug("Searching members with criteria: {}, page request: {} and total strategy {}", criteria, pageRequest, totalCountStrategy);
+      validationService.validate(pageRequest);
+      return memberRepository.searchMembers(criteria, pageRequest, totalCountStrategy, ResponseProjections.MEMBER);
+  }
+
+  private MemberResponse loadMemberResponse(UUID id) {
+      Member member = memberRepository.findById(id)
+              .orElseThrow(() -> new EntityNotFoundException("Member", id));
+      return mapperUtil.map(member, MemberResponse.class);
   }
 }
@@ -3,18 +3,20 @@ package com.tuankiet.services.impl;
 import com.tuankiet.dto.response.BookBorrowingStats;
 import com.tuankiet.dto.response.BookResponse;
 import com.tuankiet.dto.response.BorrowingResponse;
+import com.tuankiet.dto.response.DailyBorrowingSummary;
 import com.tuankiet.dto.response.MemberBorrowingStats;
 import com.tuankiet.dto.response.MemberResponse;
-import com.tuankiet.entities.Book;
-import com.tuankiet.entities.Borrowing;
-import com.tuankiet.entities.Member;
+import com.tuankiet.enums.BookCategory;
 import com.tuankiet.enums.BorrowingStatus;
 import com.tuankiet.exceptions.EntityNotFoundException;
 import com.tuankiet.repositories.BookRepository;
 import com.tuankiet.repositories.BorrowingRepository;
 import com.tuankiet.repositories.MemberRepository;
+import com.tuankiet.repositories.support.ResponseProjections;
+import com.tuankiet.services.BookService;
+import com.tuankiet.services.MemberService;
 import com.tuankiet.services.ReportService;
-import com.tuankiet.utils.MapperUtil;
+import com.tuankiet.services.loans.ActiveLoanIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,8 +25,15 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the ReportService interface.
@@ -39,166 +48,218 @@ public class ReportServiceImpl implements ReportService {
 
     private static final Logger logger = LoggerFactory.getLogger(ReportServiceImpl.class);
 
+    private static final int REPORT_FETCH_SIZE = 500;
+
     private final BookRepository bookRepository;
     private final MemberRepository memberRepository;
     private final BorrowingRepository borrowingRepository;
-    private final MapperUtil mapperUtil;
+    private final ActiveLoanIndex activeLoanIndex;
+    private final BookService bookService;
+    private final MemberService memberService;
 
     @Autowired
-    public ReportServiceImpl(BookRepository bookRepository, MemberRepository memberRepository, BorrowingRepository borrowingRepository, MapperUtil mapperUtil) {
+    public ReportServiceImpl(BookRepository bookRepository, MemberRepository memberRepository, BorrowingRepository borrowingRepository,
+                             ActiveLoanIndex activeLoanIndex, BookService bookService, MemberService memberService) {
         this.bookRepository = bookRepository;
         this.memberRepository = memberRepository;
         this.borrowingRepository = borrowingRepository;
-        this.mapperUtil = mapperUtil;
+        this.activeLoanIndex = activeLoanIndex;
+        this.bookService = bookService;
+        this.memberService = memberService;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<BorrowingResponse> getCurrentlyBorrowedBooks() {
-        logger.info("Generating report for currently borrowed books.");
-        List<Borrowing> borrowedBooks = borrowingRepository.findByStatus(BorrowingStatus.BORROWED);
         List<BorrowingResponse> responses = new ArrayList<>();
-        for (Borrowing borrowing : borrowedBooks) {
-            responses.add(mapBorrowingToResponse(borrowing));
-        }
+        streamCurrentlyBorrowedBooks(responses::add);
         return responses;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public long streamCurrentlyBorrowedBooks(Consumer<BorrowingResponse> consumer) {
+        logger.info("Generating report for currently borrowed books.");
+        if (activeLoanIndex.isSeeded()) {
+            return emitActiveLoans(activeLoanIndex.getCurrentlyBorrowed(), consumer);
+        }
+        return emit(borrowingRepository.streamByStatus(BorrowingStatus.BORROWED, ResponseProjections.BORROWING, REPORT_FETCH_SIZE), consumer);
+    }
     @Override
     @Transactional(readOnly = true)
     public List<BorrowingResponse> getOverdueBooks() {
+        List<BorrowingResponse> responses = new ArrayList<>();
+        streamOverdueBooks(responses::add);
+        return responses;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long streamOverdueBooks(Consumer<BorrowingResponse> consumer) {
         logger.info("Generating report for overdue books.");
-        List<Borrowing> overdueBooks = borrowingRepository.findByStatus(BorrowingStatus.OVERDUE);
-        // Additionally, check for BORROWED books whose due date has passed
-        List<Borrowing> currentlyBorrowed = borrowingRepository.findByStatus(BorrowingStatus.BORROWED);
-        for (Borrowing borrowing : currentlyBorrowed) {
-            if (borrowing.getDueDate().isBefore(LocalDate.now())) {
-                overdueBooks.add(borrowing);
-            }
+        // OVERDUE records plus BORROWED records whose due date has passed
+        if (activeLoanIndex.isSeeded()) {
+            return emitActiveLoans(activeLoanIndex.getOverdue(), consumer);
         }
-        
+        return emit(borrowingRepository.streamOverdue(LocalDate.now(), ResponseProjections.BORROWING, REPORT_FETCH_SIZE), consumer);
+    }
+    @Override
+    @Transactional(readOnly = true)
+    public List<BorrowingResponse> getMemberBorrowingHistory(UUID memberId) {
         List<BorrowingResponse> responses = new ArrayList<>();
-        for (Borrowing borrowing : overdueBooks) {
-            responses.add(mapBorrowingToResponse(borrowing));
-        }
+        streamMemberBorrowingHistory(memberId, responses::add);
         return responses;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BorrowingResponse> getMemberBorrowingHistory(UUID memberId) {
+    public long streamMemberBorrowingHistory(UUID memberId, Consumer<BorrowingResponse> consumer) {
         logger.info("Generating borrowing history for member ID: {}", memberId);
         if (!memberRepository.existsById(memberId)) {
             throw new EntityNotFoundException("Member", memberId);
         }
-        List<Borrowing> memberBorrowings = borrowingRepository.findByMemberId(memberId);
+        return emit(borrowingRepository.streamByMemberId(memberId, ResponseProjections.BORROWING, REPORT_FETCH_SIZE), consumer);
+    }
+    @Override
+    @Transactional(readOnly = true)
+    public List<BorrowingResponse> getBookBorrowingHistory(UUID bookId) {
         List<BorrowingResponse> responses = new ArrayList<>();
-        for (Borrowing borrowing : memberBorrowings) {
-            responses.add(mapBorrowingToResponse(borrowing));
-        }
+        streamBookBorrowingHistory(bookId, responses::add);
         return responses;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BorrowingResponse> getBookBorrowingHistory(UUID bookId) {
+    public long streamBookBorrowingHistory(UUID bookId, Consumer<BorrowingResponse> consumer) {
         logger.info("Generating borrowing history for book ID: {}", bookId);
         if (!bookRepository.existsById(bookId)) {
             throw new EntityNotFoundException("Book", bookId);
         }
-        List<Borrowing> bookBorrowings = borrowingRepository.findByBookId(bookId);
-        List<BorrowingResponse> responses = new ArrayList<>();
-        for (Borrowing borrowing : bookBorrowings) {
-            responses.add(mapBorrowingToResponse(borrowing));
-        }
-        return responses;
+        return emit(borrowingRepository.streamByBookId(bookId, ResponseProjections.BORROWING, REPORT_FETCH_SIZE), consumer);
     }
-
     @Override
     @Transactional(readOnly = true)
     public BookBorrowingStats getBookBorrowingStatistics(UUID bookId) {
         logger.info("Generating borrowing statistics for book ID: {}", bookId);
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("Book", bookId));
-
-        List<Borrowing> allBorrows = borrowingRepository.findByBookId(bookId);
-        long totalBorrows = allBorrows.size();
-        long currentBorrows = 0;
-        long overdueBorrows = 0;
-        
-        for (Borrowing borrowing : allBorrows) {
-            if (borrowing.getStatus() == BorrowingStatus.BORROWED) {
-                currentBorrows++;
-            }
-            if (borrowing.getStatus() == BorrowingStatus.OVERDUE || 
-                (borrowing.getStatus() == BorrowingStatus.BORROWED && borrowing.getDueDate().isBefore(LocalDate.now()))) {
-                overdueBorrows++;
-            }
+        BookBorrowingStats stats = bookRepository.findBorrowingStats(List.of(bookId)).get(bookId);
+        if (stats == null) {
+            throw new EntityNotFoundException("Book", bookId);
         }
-
-        return new BookBorrowingStats(book.getId(), book.getTitle(), book.getIsbn(), totalBorrows, currentBorrows, overdueBorrows);
+        return stats;
     }
 
     @Override
     @Transactional(readOnly = true)
     public MemberBorrowingStats getMemberBorrowingStatistics(UUID memberId) {
         logger.info("Generating borrowing statistics for member ID: {}", memberId);
-        Member member = memberRepository.findById(memberId)
-                .orElseThrow(() -> new EntityNotFoundException("Member", memberId));
-
-        List<Borrowing> allBorrows = borrowingRepository.findByMemberId(memberId);
-        long totalBorrows = allBorrows.size();
-        long currentBorrows = 0;
-        long overdueBorrows = 0;
-        
-        for (Borrowing borrowing : allBorrows) {
-            if (borrowing.getStatus() == BorrowingStatus.BORROWED) {
-                currentBorrows++;
-            }
-            if (borrowing.getStatus() == BorrowingStatus.OVERDUE || 
-                (borrowing.getStatus() == BorrowingStatus.BORROWED && borrowing.getDueDate().isBefore(LocalDate.now()))) {
-                overdueBorrows++;
-            }
+        MemberBorrowingStats stats = memberRepository.findBorrowingStats(List.of(memberId)).get(memberId);
+        if (stats == null) {
+            throw new EntityNotFoundException("Member", memberId);
         }
+        return stats;
+    }
 
-        return new MemberBorrowingStats(member.getId(), member.getFirstName() + " " + member.getLastName(), member.getEmail(), totalBorrows, currentBorrows, overdueBorrows);
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookBorrowingStats> getBookBorrowingStatistics(Collection<UUID> bookIds) {
+        logger.info("Generating borrowing statistics for {} books", bookIds.size());
+        return inIdOrder(bookIds, bookRepository.findBorrowingStats(bookIds));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MemberBorrowingStats> getMemberBorrowingStatistics(Collection<UUID> memberIds) {
+        logger.info("Generating borrowing statistics for {} members", memberIds.size());
+        return inIdOrder(memberIds, memberRepository.findBorrowingStats(memberIds));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<BorrowingResponse> getBooksBorrowedInDateRange(LocalDate startDate, LocalDate endDate) {
-        logger.info("Generating report for books borrowed between {} and {}.", startDate, endDate);
+        List<BorrowingResponse> responses = new ArrayList<>();
+        streamBooksBorrowedInDateRange(startDate, endDate, responses::add);
+        return responses;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long streamBooksBorrowedInDateRange(LocalDate startDate, LocalDate endDate, Consumer<BorrowingResponse> consumer) {
+        return streamBooksBorrowedInDateRange(startDate, endDate, null, null, consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long streamBooksBorrowedInDateRange(LocalDate startDate, LocalDate endDate, BorrowingStatus status, BookCategory category,
+                                               Consumer<BorrowingResponse> consumer) {
+        logger.info("Generating report for books borrowed between {} and {} (status: {}, category: {}).", startDate, endDate, status, category);
+        validateDateRange(startDate, endDate);
+        return emit(borrowingRepository.streamByBorrowDateBetween(startDate, endDate, status, category, ResponseProjections.BORROWING, REPORT_FETCH_SIZE), consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailyBorrowingSummary> getDailyBorrowingSummary(LocalDate startDate, LocalDate endDate, BorrowingStatus status, BookCategory category) {
+        logger.info("Generating daily borrowing summary between {} and {} (status: {}, category: {}).", startDate, endDate, status, category);
+        validateDateRange(startDate, endDate);
+        return borrowingRepository.summarizeByBorrowDate(startDate, endDate, status, category);
+    }
+
+    private void validateDateRange(LocalDate startDate, LocalDate endDate) {
         if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
             throw new IllegalArgumentException("Invalid date range provided.");
         }
+    }
 
-        List<Borrowing> allBorrowings = borrowingRepository.findAll();
-        List<Borrowing> filteredBorrowings = new ArrayList<>();
-        
-        for (Borrowing borrowing : allBorrowings) {
-            if (!borrowing.getBorrowDate().isBefore(startDate) && !borrowing.getBorrowDate().isAfter(endDate)) {
-                filteredBorrowings.add(borrowing);
+    private static <S> List<S> inIdOrder(Collection<UUID> ids, Map<UUID, S> statsById) {
+        List<S> ordered = new ArrayList<>(statsById.size());
+        for (UUID id : ids) {
+            S stats = statsById.get(id);
+            if (stats != null) {
+                ordered.add(stats);
             }
         }
+        return ordered;
+    }
 
-        List<BorrowingResponse> responses = new ArrayList<>();
-        for (Borrowing borrowing : filteredBorrowings) {
-            responses.add(mapBorrowingToResponse(borrowing));
+    /**
+     * Hands over the loans of the active loan index. The index holds each loan as it was written, so
+     * its book and member are read from the service response caches to show their current state, with
+     * one query for the books and one for the members that are not cached. A book or member that no
+     * longer exists keeps the state the index holds.
+     */
+    private long emitActiveLoans(List<BorrowingResponse> loans, Consumer<BorrowingResponse> consumer) {
+        Set<UUID> bookIds = new HashSet<>();
+        Set<UUID> memberIds = new HashSet<>();
+        for (BorrowingResponse loan : loans) {
+            bookIds.add(loan.getBook().getId());
+            memberIds.add(loan.getMember().getId());
         }
-        return responses;
+        Map<UUID, BookResponse> books = bookService.getAllById(bookIds);
+        Map<UUID, MemberResponse> members = memberService.getAllById(memberIds);
+        for (BorrowingResponse loan : loans) {
+            consumer.accept(new BorrowingResponse(loan.getId(),
+                    books.getOrDefault(loan.getBook().getId(), loan.getBook()),
+                    members.getOrDefault(loan.getMember().getId(), loan.getMember()),
+                    loan.getBorrowDate(), loan.getReturnDate(), loan.getDueDate(), loan.getStatus(),
+                    loan.getCreatedAt(), loan.getUpdatedAt()));
+        }
+        logger.debug("Emitted {} active loans from the index.", loans.size());
+        return loans.size();
     }
 
-    private BorrowingResponse mapBorrowingToResponse(Borrowing borrowing) {
-        BorrowingResponse response = mapperUtil.map(borrowing, BorrowingResponse.class);
-        if (borrowing.getBook() != null) {
-            response.setBook(mapperUtil.map(borrowing.getBook(), BookResponse.class));
-            if (borrowing.getBook().getAuthor() != null) {
-                response.getBook().setAuthor(mapperUtil.map(borrowing.getBook().getAuthor(), com.tuankiet.dto.response.AuthorResponse.class));
+    /**
+     * Hands over one projected borrowing at a time, so no list of entities or DTOs is ever built.
+     */
+    private long emit(Stream<BorrowingResponse> borrowings, Consumer<BorrowingResponse> consumer) {
+        long emitted = 0;
+        try (borrowings) {
+            Iterator<BorrowingResponse> iterator = borrowings.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                emitted++;
             }
         }
-        if (borrowing.getMember() != null) {
-            response.setMember(mapperUtil.map(borrowing.getMember(), MemberResponse.class));
-        }
-        return response;
+        logger.debug("Emitted {} borrowing records.", emitted);
+        return emitted;
     }
 }
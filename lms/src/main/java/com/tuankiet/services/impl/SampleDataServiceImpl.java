@@ -6,14 +6,19 @@ import com.tuankiet.dto.request.CreateBorrowingRequest;
 import com.tuankiet.dto.request.CreateMemberRequest;
 import com.tuankiet.dto.response.AuthorResponse;
 import com.tuankiet.dto.response.BookResponse;
-import com.tuankiet.dto.response.BorrowingResponse;
 import com.tuankiet.dto.response.MemberResponse;
 import com.tuankiet.enums.BookCategory;
+import com.tuankiet.repositories.AuthorRepository;
+import com.tuankiet.repositories.BookRepository;
+import com.tuankiet.repositories.BorrowingRepository;
+import com.tuankiet.repositories.MemberRepository;
 import com.tuankiet.services.AuthorService;
 import com.tuankiet.services.BookService;
 import com.tuankiet.services.BorrowingService;
 import com.tuankiet.services.MemberService;
 import com.tuankiet.services.SampleDataService;
+import com.tuankiet.services.cache.ResponseCaches;
+import com.tuankiet.services.loans.ActiveLoanIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -40,13 +45,28 @@ public class SampleDataServiceImpl implements SampleDataService {
     private final AuthorService authorService;
     private final MemberService memberService;
     private final BorrowingService borrowingService;
+    private final BorrowingRepository borrowingRepository;
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final AuthorRepository authorRepository;
+    private final ActiveLoanIndex activeLoanIndex;
+    private final ResponseCaches responseCaches;
 
     @Autowired
-    public SampleDataServiceImpl(BookService bookService, AuthorService authorService, MemberService memberService, BorrowingService borrowingService) {
+    public SampleDataServiceImpl(BookService bookService, AuthorService authorService, MemberService memberService, BorrowingService borrowingService,
+                                 BorrowingRepository borrowingRepository, BookRepository bookRepository,
+                                 MemberRepository memberRepository, AuthorRepository authorRepository, ActiveLoanIndex activeLoanIndex,
+                                 ResponseCaches responseCaches) {
         this.bookService = bookService;
         this.authorService = authorService;
         this.memberService = memberService;
         this.borrowingService = borrowingService;
+        this.borrowingRepository = borrowingRepository;
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.authorRepository = authorRepository;
+        this.activeLoanIndex = activeLoanIndex;
+        this.responseCaches = responseCaches;
     }
 
     @Override
@@ -64,20 +84,35 @@ public class SampleDataServiceImpl implements SampleDataService {
         AuthorResponse author4 = authorService.create(new CreateAuthorRequest("Agatha", "Christie", "English writer known for her 66 detective novels and 14 short story collections."));
         AuthorResponse author5 = authorService.create(new CreateAuthorRequest("Isaac", "Asimov", "American writer and professor of biochemistry, known for his works of science fiction and popular science."));
 
-        // 2. Create Books
-        BookResponse book1 = bookService.create(new CreateBookRequest("It", "978-0-451-16951-8", 1986, BookCategory.HORROR, 3, author1.getId()));
-        BookResponse book2 = bookService.create(new CreateBookRequest("Harry Potter and the Sorcerer's Stone", "978-0-7475-3274-3", 1997, BookCategory.FANTASY, 5, author2.getId()));
-        BookResponse book3 = bookService.create(new CreateBookRequest("1984", "978-0-452-28423-4", 1949, BookCategory.FICTION, 2, author3.getId()));
-        BookResponse book4 = bookService.create(new CreateBookRequest("And Then There Were None", "978-0-06-207348-8", 1939, BookCategory.MYSTERY, 4, author4.getId()));
-        BookResponse book5 = bookService.create(new CreateBookRequest("I, Robot", "978-0-553-38256-3", 1950, BookCategory.SCIENCE, 3, author5.getId()));
-        BookResponse book6 = bookService.create(new CreateBookRequest("The Shining", "978-0-385-12167-5", 1977, BookCategory.HORROR, 2, author1.getId()));
-        BookResponse book7 = bookService.create(new CreateBookRequest("Animal Farm", "978-0-451-52634-2", 1945, BookCategory.FICTION, 3, author3.getId()));
-
-        // 3. Create Members
-        MemberResponse member1 = memberService.create(new CreateMemberRequest("Alice", "Smith", "alice.smith@example.com", "111-222-3333", "123 Main St"));
-        MemberResponse member2 = memberService.create(new CreateMemberRequest("Bob", "Johnson", "bob.j@example.com", "444-555-6666", "456 Oak Ave"));
-        MemberResponse member3 = memberService.create(new CreateMemberRequest("Charlie", "Brown", "charlie.b@example.com", "777-888-9999", "789 Pine Ln"));
-        MemberResponse member4 = memberService.create(new CreateMemberRequest("Diana", "Prince", "diana.p@example.com", "101-202-3030", "101 Amazon Way"));
+        // 2. Create Books (batched inserts)
+        List<BookResponse> books = bookService.createAll(List.of(
+                new CreateBookRequest("It", "978-0-451-16951-8", 1986, BookCategory.HORROR, 3, author1.getId()),
+                new CreateBookRequest("Harry Potter and the Sorcerer's Stone", "978-0-7475-3274-3", 1997, BookCategory.FANTASY, 5, author2.getId()),
+                new CreateBookRequest("1984", "978-0-452-28423-4", 1949, BookCategory.FICTION, 2, author3.getId()),
+                new CreateBookRequest("And Then There Were None", "978-0-06-207348-8", 1939, BookCategory.MYSTERY, 4, author4.getId()),
+                new CreateBookRequest("I, Robot", "978-0-553-38256-3", 1950, BookCategory.SCIENCE, 3, author5.getId()),
+                new CreateBookRequest("The Shining", "978-0-385-12167-5", 1977, BookCategory.HORROR, 2, author1.getId()),
+                new CreateBookRequest("Animal Farm", "978-0-451-52634-2", 1945, BookCategory.FICTION, 3, author3.getId())
+        ));
+        BookResponse book1 = books.get(0);
+        BookResponse book2 = books.get(1);
+        BookResponse book3 = books.get(2);
+        BookResponse book4 = books.get(3);
+        BookResponse book5 = books.get(4);
+        BookResponse book6 = books.get(5);
+        BookResponse book7 = books.get(6);
+
+        // 3. Create Members (batched inserts)
+        List<MemberResponse> members = memberService.createAll(List.of(
+                new CreateMemberRequest("Alice", "Smith", "alice.smith@example.com", "111-222-3333", "123 Main St"),
+                new CreateMemberRequest("Bob", "Johnson", "bob.j@example.com", "444-555-6666", "456 Oak Ave"),
+                new CreateMemberRequest("Charlie", "Brown", "charlie.b@example.com", "777-888-9999", "789 Pine Ln"),
+                new CreateMemberRequest("Diana", "Prince", "diana.p@example.com", "101-202-3030", "101 Amazon Way")
+        ));
+        MemberResponse member1 = members.get(0);
+        MemberResponse member2 = members.get(1);
+        MemberResponse member3 = members.get(2);
+        MemberResponse member4 = members.get(3);
 
         // 4. Create Borrowing Records
         // Alice borrows "It"
@@ -98,33 +133,20 @@ public class SampleDataServiceImpl implements SampleDataService {
     @Transactional
     public void clearAllData() {
         logger.info("Clearing all existing data...");
-        // Delete borrowings first due to foreign key constraints
-        List<BorrowingResponse> allBorrowings = borrowingService.getAll();
-        for (BorrowingResponse borrowing : allBorrowings) {
-            borrowingService.delete(borrowing.getId());
-        }
-        logger.debug("Deleted all borrowing records.");
-
-        // Then delete books
-        List<BookResponse> allBooks = bookService.getAll();
-        for (BookResponse book : allBooks) {
-            bookService.delete(book.getId());
-        }
-        logger.debug("Deleted all book records.");
-
-        // Then delete members
-        List<MemberResponse> allMembers = memberService.getAll();
-        for (MemberResponse member : allMembers) {
-            memberService.delete(member.getId());
-        }
-        logger.debug("Deleted all member records.");
-
-        // Finally delete authors
-        List<AuthorResponse> allAuthors = authorService.getAll();
-        for (AuthorResponse author : allAuthors) {
-            authorService.delete(author.getId());
-        }
-        logger.debug("Deleted all author records.");
+        // Set-based deletes in foreign key order: borrowings reference books and members, books reference authors
+        long borrowings = borrowingRepository.deleteAll();
+        logger.debug("Deleted {} borrowing records.", borrowings);
+        activeLoanIndex.clear();
+
+        long books = bookRepository.deleteAll();
+        logger.debug("Deleted {} book records.", books);
+
+        long members = memberRepository.deleteAll();
+        logger.debug("Deleted {} member records.", members);
+
+        long authors = authorRepository.deleteAll();
+        logger.debug("Deleted {} author records.", authors);
+        responseCaches.invalidateAll();
 
         logger.info("All existing data cleared.");
     }
@@ -0,0 +1,446 @@
+package com.tuankiet.services.loans;
+
+import com.tuankiet.dto.response.BorrowingResponse;
+import com.tuankiet.enums.BorrowingStatus;
+import com.tuankiet.repositories.BorrowingRepository;
+import com.tuankiet.repositories.support.ResponseProjections;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * In-process index of the active loans, i.e. the borrowings with status BORROWED or OVERDUE, by member,
+ * by book and by due date. The currently-borrowed and overdue reports are answered from it in time
+ * proportional to their result, without scanning the Borrowings table.
+ * <p>
+ * Loans that are not yet due wait in a calendar queue: one bucket per due date, ordered by date. Each
+ * tick moves the buckets whose date has passed into the overdue set, so a loan becomes overdue on the
+ * first tick after its due date, at a cost proportional to the loans moved. Reads tick first when the
+ * date changed since the last tick, so they never miss a loan that became overdue at midnight.
+ * <p>
+ * The index is rebuilt from the database when the application starts and every
+ * {@code loans.index.rebuild-interval-ms}, to pick up changes made outside this process. A rebuild reads
+ * the primary, in a read-write transaction, since a replica may lag behind loans the index already holds
+ * and would replace them with older rows until the next rebuild. In between, the borrowing service
+ * updates the index when its transactions commit. A loan written while a rebuild reads the database
+ * keeps the state of that write rather than the state the rebuild read.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class ActiveLoanIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveLoanIndex.class);
+
+    private static final int REBUILD_FETCH_SIZE = 500;
+
+    private final BorrowingRepository borrowingRepository;
+    private final TransactionTemplate primaryTransaction;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder movedToOverdue = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    // Guarded by lock
+    private State state = new State();
+    private LocalDate today = LocalDate.now();
+    private Set<UUID> writtenDuringRebuild;
+    private boolean seeded;
+
+    public ActiveLoanIndex(BorrowingRepository borrowingRepository, PlatformTransactionManager transactionManager) {
+        this.borrowingRepository = borrowingRepository;
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Seed the index once the application context is ready. A failure is logged and left to the
+     * next scheduled rebuild; until then the reports read the database.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void seed() {
+        if (!isSeeded()) {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                logger.warn("Could not seed the active loan index, reports read the database until the next rebuild: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Replace the index with the active loans in the database.
+     */
+    @Scheduled(fixedDelayString = "${loans.index.rebuild-interval-ms:3600000}",
+               initialDelayString = "${loans.index.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        State rebuilt = new State();
+        LocalDate date = LocalDate.now();
+        try {
+            primaryTransaction.executeWithoutResult(status -> {
+                load(rebuilt, date, BorrowingStatus.BORROWED);
+                load(rebuilt, date, BorrowingStatus.OVERDUE);
+            });
+            lock.writeLock().lock();
+            try {
+                // Loans written meanwhile keep their current state, which is newer than what was read
+                for (UUID borrowingId : writtenDuringRebuild) {
+                    rebuilt.remove(borrowingId);
+                    BorrowingResponse current = state.loans.get(borrowingId);
+                    if (current != null) {
+                        rebuilt.add(current, date);
+                    }
+                }
+                state = rebuilt;
+                advanceTo(date);
+                seeded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                writtenDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        rebuilds.increment();
+        logger.info("Active loan index rebuilt: {} active loans", rebuilt.loans.size());
+    }
+
+    /**
+     * Move the loans whose due date has passed into the overdue set.
+     */
+    @Scheduled(fixedDelayString = "${loans.index.tick-interval-ms:60000}",
+               initialDelayString = "${loans.index.tick-interval-ms:60000}")
+    public void tick() {
+        LocalDate date = LocalDate.now();
+        lock.writeLock().lock();
+        try {
+            advanceTo(date);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Record the state of a borrowing once the current transaction commits: an active loan is
+     * added or re-indexed, any other status removes it from the index.
+     *
+     * @param borrowing the borrowing as written
+     */
+    public void put(BorrowingResponse borrowing) {
+        afterCommit(() -> write(borrowing.getId(), loans -> {
+            loans.remove(borrowing.getId());
+            if (isActive(borrowing.getStatus())) {
+                loans.add(borrowing, today);
+            }
+        }));
+    }
+
+    /**
+     * Record that borrowings were marked OVERDUE by a set-based update, once the current transaction
+     * commits. Loans that are no longer BORROWED and past due in the index, because a later write
+     * already reached it, are left as they are.
+     *
+     * @param borrowingIds the IDs of the borrowings the update considered
+     * @param date the date the update compared the due dates with
+     */
+    public void markOverdue(Collection<UUID> borrowingIds, LocalDate date) {
+        List<UUID> ids = List.copyOf(borrowingIds);
+        afterCommit(() -> {
+            for (UUID id : ids) {
+                write(id, loans -> {
+                    BorrowingResponse loan = loans.loans.get(id);
+                    if (loan != null && loan.getStatus() == BorrowingStatus.BORROWED && loan.getDueDate().isBefore(date)) {
+                        loans.remove(id);
+                        loans.add(new BorrowingResponse(loan.getId(), loan.getBook(), loan.getMember(), loan.getBorrowDate(),
+                                loan.getReturnDate(), loan.getDueDate(), BorrowingStatus.OVERDUE, loan.getCreatedAt(), loan.getUpdatedAt()), today);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Drop a borrowing from the index once the current transaction commits, e.g. after it was deleted.
+     *
+     * @param borrowingId the borrowing ID
+     */
+    public void remove(UUID borrowingId) {
+        afterCommit(() -> write(borrowingId, loans -> loans.remove(borrowingId)));
+    }
+
+    /**
+     * Empty the index once the current transaction commits, after all borrowings were deleted.
+     */
+    public void clear() {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                if (writtenDuringRebuild != null) {
+                    writtenDuringRebuild.addAll(state.loans.keySet());
+                }
+                state = new State();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Check whether the index was loaded, i.e. whether it can answer instead of the database.
+     *
+     * @return true once the first rebuild succeeded
+     */
+    public boolean isSeeded() {
+        lock.readLock().lock();
+        try {
+            return seeded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the loans with status BORROWED, including those past their due date.
+     *
+     * @return the loans, in no particular order
+     */
+    public List<BorrowingResponse> getCurrentlyBorrowed() {
+        return read(loans -> loans.select(loans.borrowed));
+    }
+
+    /**
+     * Get the overdue loans: status OVERDUE, or status BORROWED with a due date before today.
+     *
+     * @return the loans, in no particular order
+     */
+    public List<BorrowingResponse> getOverdue() {
+        return read(loans -> loans.select(loans.overdue));
+    }
+
+    /**
+     * Get the active loans of a member.
+     *
+     * @param memberId the member ID
+     * @return the loans, in no particular order
+     */
+    public List<BorrowingResponse> getActiveByMember(UUID memberId) {
+        return read(loans -> loans.select(loans.byMember.getOrDefault(memberId, Collections.emptySet())));
+    }
+
+    /**
+     * Get the active loans of a book.
+     *
+     * @param bookId the book ID
+     * @return the loans, in no particular order
+     */
+    public List<BorrowingResponse> getActiveByBook(UUID bookId) {
+        return read(loans -> loans.select(loans.byBook.getOrDefault(bookId, Collections.emptySet())));
+    }
+
+    public int getActiveCount() {
+        return read(loans -> loans.loans.size());
+    }
+
+    public int getOverdueCount() {
+        return read(loans -> loans.overdue.size());
+    }
+
+    public long getTickCount() {
+        return ticks.sum();
+    }
+
+    /**
+     * Get the number of loans that ticks moved into the overdue set.
+     *
+     * @return the moved loan count
+     */
+    public long getMovedToOverdueCount() {
+        return movedToOverdue.sum();
+    }
+
+    public long getRebuildCount() {
+        return rebuilds.sum();
+    }
+
+    private void load(State rebuilt, LocalDate date, BorrowingStatus status) {
+        try (Stream<BorrowingResponse> borrowings = borrowingRepository.streamByStatus(status, ResponseProjections.BORROWING, REBUILD_FETCH_SIZE)) {
+            borrowings.forEach(borrowing -> rebuilt.add(borrowing, date));
+        }
+    }
+
+    private <T> T read(Function<State, T> reader) {
+        LocalDate date = LocalDate.now();
+        lock.readLock().lock();
+        try {
+            if (!date.isAfter(today)) {
+                return reader.apply(state);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // The date changed since the last tick: tick before reading
+        lock.writeLock().lock();
+        try {
+            advanceTo(date);
+            return reader.apply(state);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void write(UUID borrowingId, Consumer<State> writer) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringRebuild != null) {
+                writtenDuringRebuild.add(borrowingId);
+            }
+            writer.accept(state);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void advanceTo(LocalDate date) {
+        ticks.increment();
+        if (date.isAfter(today)) {
+            today = date;
+        }
+        movedToOverdue.add(state.moveDueBefore(today));
+    }
+
+    private static boolean isActive(BorrowingStatus status) {
+        return status == BorrowingStatus.BORROWED || status == BorrowingStatus.OVERDUE;
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ActiveLoanIndex{" +
+                "seeded=" + isSeeded() +
+                ", active=" + getActiveCount() +
+                ", overdue=" + getOverdueCount() +
+                ", ticks=" + getTickCount() +
+                ", movedToOverdue=" + getMovedToOverdueCount() +
+                ", rebuilds=" + getRebuildCount() +
+                '}';
+    }
+
+    /**
+     * The indexed loans. Not thread-safe; guarded by the index's lock.
+     */
+    private static final class State {
+
+        private final Map<UUID, BorrowingResponse> loans = new HashMap<>();
+        private final Map<UUID, Set<UUID>> byMember = new HashMap<>();
+        private final Map<UUID, Set<UUID>> byBook = new HashMap<>();
+        private final Set<UUID> borrowed = new HashSet<>();
+        private final Set<UUID> overdue = new LinkedHashSet<>();
+        /** Loans that are not yet overdue, bucketed by due date. */
+        private final NavigableMap<LocalDate, Set<UUID>> dueBuckets = new TreeMap<>();
+
+        private void add(BorrowingResponse borrowing, LocalDate today) {
+            UUID id = borrowing.getId();
+            loans.put(id, borrowing);
+            byMember.computeIfAbsent(borrowing.getMember().getId(), memberId -> new HashSet<>()).add(id);
+            byBook.computeIfAbsent(borrowing.getBook().getId(), bookId -> new HashSet<>()).add(id);
+            if (borrowing.getStatus() == BorrowingStatus.BORROWED) {
+                borrowed.add(id);
+            }
+            if (borrowing.getStatus() == BorrowingStatus.OVERDUE || borrowing.getDueDate().isBefore(today)) {
+                overdue.add(id);
+            } else {
+                dueBuckets.computeIfAbsent(borrowing.getDueDate(), dueDate -> new HashSet<>()).add(id);
+            }
+        }
+
+        private void remove(UUID id) {
+            BorrowingResponse borrowing = loans.remove(id);
+            if (borrowing == null) {
+                return;
+            }
+            removeFrom(byMember, borrowing.getMember().getId(), id);
+            removeFrom(byBook, borrowing.getBook().getId(), id);
+            removeFrom(dueBuckets, borrowing.getDueDate(), id);
+            borrowed.remove(id);
+            overdue.remove(id);
+        }
+
+        private int moveDueBefore(LocalDate today) {
+            int moved = 0;
+            Iterator<Set<UUID>> due = dueBuckets.headMap(today, false).values().iterator();
+            while (due.hasNext()) {
+                Set<UUID> bucket = due.next();
+                overdue.addAll(bucket);
+                moved += bucket.size();
+                due.remove();
+            }
+            return moved;
+        }
+
+        private List<BorrowingResponse> select(Collection<UUID> ids) {
+            List<BorrowingResponse> selected = new ArrayList<>(ids.size());
+            for (UUID id : ids) {
+                selected.add(loans.get(id));
+            }
+            return selected;
+        }
+
+        private static <K> void removeFrom(Map<K, Set<UUID>> index, K key, UUID id) {
+            Set<UUID> ids = index.get(key);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
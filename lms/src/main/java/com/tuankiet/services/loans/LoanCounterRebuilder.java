@@ -0,0 +1,243 @@
+package com.tuankiet.services.loans;
+
+import com.tuankiet.repositories.BookRepository;
+import com.tuankiet.repositories.MemberRepository;
+import com.tuankiet.repositories.support.DeadlockPriority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Job recomputing the loan counters of every book and member from the Borrowings table, correcting any
+ * drift from changes made outside the borrowing service. The IDs are split into chunks of
+ * {@code loan-counters.rebuild.chunk-size}, and {@code loan-counters.rebuild.parallelism} chunks are
+ * recounted at a time, each with one set-based UPDATE in its own transaction, so that no transaction
+ * locks more than a chunk of rows. Chunks run at low deadlock priority, so that a chunk deadlocking with
+ * a user's request is the one rolled back. A failed chunk is logged and left to the next run.
+ * <p>
+ * The job runs on {@code loan-counters.rebuild.cron}, and once at startup if
+ * {@code loan-counters.rebuild.on-startup} is set. That is off by default, as it recounts every row on
+ * each start: the counters of an existing database are backfilled once, from the reports menu or by
+ * starting once with the flag set.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class LoanCounterRebuilder implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoanCounterRebuilder.class);
+
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final DeadlockPriority deadlockPriority;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate chunkTransaction;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int parallelism;
+    private final boolean onStartup;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile LocalDateTime lastRunStartedAt;
+    private volatile long lastRunMillis;
+    private volatile int lastRunBooks;
+    private volatile int lastRunMembers;
+    private volatile boolean lastRunComplete;
+
+    public LoanCounterRebuilder(BookRepository bookRepository, MemberRepository memberRepository,
+                                DeadlockPriority deadlockPriority, PlatformTransactionManager transactionManager,
+                                @Value("${loan-counters.rebuild.chunk-size:1000}") int chunkSize,
+                                @Value("${loan-counters.rebuild.parallelism:4}") int parallelism,
+                                @Value("${loan-counters.rebuild.on-startup:false}") boolean onStartup) {
+        if (chunkSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Chunk size and parallelism must not be less than one!");
+        }
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.deadlockPriority = deadlockPriority;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.onStartup = onStartup;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "loan-counter-rebuild-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Rebuild the counters once the application context is ready, if enabled. A failure is logged and
+     * left to the next scheduled run, so that the application starts anyway.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void rebuildOnStartup() {
+        if (onStartup && runs.sum() == 0) {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                logger.warn("Could not rebuild the loan counters at startup: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Recompute the loan counters of all books and members. A run that is already in progress is not
+     * started twice.
+     *
+     * @return true if every chunk was recounted; false if a chunk failed or another run was in progress
+     */
+    @Scheduled(cron = "${loan-counters.rebuild.cron:0 30 3 * * *}")
+    public boolean rebuild() {
+        if (!running.compareAndSet(false, true)) {
+            logger.debug("Loan counter rebuild already running, skipped.");
+            return false;
+        }
+        long start = System.nanoTime();
+        lastRunStartedAt = LocalDateTime.now();
+        boolean complete = false;
+        try {
+            List<UUID> bookIds = readOnlyTransaction.execute(status -> bookRepository.findAllIds());
+            List<UUID> memberIds = readOnlyTransaction.execute(status -> memberRepository.findAllIds());
+            List<Future<Integer>> pending = new ArrayList<>();
+            submitChunks(bookIds, bookRepository::recountLoanCounters, pending);
+            submitChunks(memberIds, memberRepository::recountLoanCounters, pending);
+            complete = awaitChunks(pending);
+            lastRunBooks = bookIds.size();
+            lastRunMembers = memberIds.size();
+        } finally {
+            runs.increment();
+            lastRunMillis = (System.nanoTime() - start) / 1_000_000;
+            lastRunComplete = complete;
+            running.set(false);
+        }
+        logger.info("Loan counters of {} books and {} members rebuilt in {} ms{}", lastRunBooks, lastRunMembers, lastRunMillis,
+                complete ? "" : ", some chunks failed");
+        return complete;
+    }
+
+    private void submitChunks(List<UUID> ids, Function<Collection<UUID>, Integer> recount, List<Future<Integer>> pending) {
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            pending.add(executor.submit(() -> chunkTransaction.execute(status -> deadlockPriority.runLow(() -> recount.apply(chunk)))));
+        }
+    }
+
+    private boolean awaitChunks(List<Future<Integer>> pending) {
+        boolean complete = true;
+        for (Future<Integer> chunk : pending) {
+            try {
+                chunk.get();
+                chunks.increment();
+            } catch (ExecutionException e) {
+                complete = false;
+                failures.increment();
+                logger.error("Loan counter rebuild chunk failed: {}", e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.forEach(remaining -> remaining.cancel(true));
+                return false;
+            }
+        }
+        return complete;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getRunCount() {
+        return runs.sum();
+    }
+
+    /**
+     * Get the number of chunks recounted since startup.
+     *
+     * @return the recounted chunk count
+     */
+    public long getChunkCount() {
+        return chunks.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    public LocalDateTime getLastRunStartedAt() {
+        return lastRunStartedAt;
+    }
+
+    public long getLastRunMillis() {
+        return lastRunMillis;
+    }
+
+    public int getLastRunBooks() {
+        return lastRunBooks;
+    }
+
+    public int getLastRunMembers() {
+        return lastRunMembers;
+    }
+
+    public boolean isLastRunComplete() {
+        return lastRunComplete;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "LoanCounterRebuilder{" +
+                "running=" + isRunning() +
+                ", chunkSize=" + chunkSize +
+                ", parallelism=" + parallelism +
+                ", runs=" + getRunCount() +
+                ", chunks=" + getChunkCount() +
+                ", failures=" + getFailureCount() +
+                ", lastRunStartedAt=" + lastRunStartedAt +
+                ", lastRunMillis=" + lastRunMillis +
+                ", lastRunBooks=" + lastRunBooks +
+                ", lastRunMembers=" + lastRunMembers +
+                ", lastRunComplete=" + lastRunComplete +
+                '}';
+    }
+}
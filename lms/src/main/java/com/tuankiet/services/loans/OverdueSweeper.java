@@ -0,0 +1,193 @@
+package com.tuankiet.services.loans;
+
+import com.tuankiet.repositories.BookRepository;
+import com.tuankiet.repositories.BorrowingRepository;
+import com.tuankiet.repositories.MemberRepository;
+import com.tuankiet.repositories.support.DeadlockPriority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scheduled job moving the BORROWED loans past their due date to OVERDUE, so that overdue loans can be
+ * found by their status. Each batch finds at most {@code overdue.sweeper.batch-size} loans on the
+ * (status, due date) index and marks them with one set-based UPDATE in its own transaction, which keeps
+ * locks and the transaction log small however many loans fell due. A run stops when a batch comes back
+ * short, or after {@code overdue.sweeper.max-batches} batches, leaving the rest to the next run. The loan
+ * counters of the books and members concerned are recounted in the same transaction as their batch.
+ * Batches run at low deadlock priority: a batch that deadlocks with a user's checkout or return is
+ * rolled back instead of the user's transaction, and is retried by the next run.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class OverdueSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(OverdueSweeper.class);
+
+    private final BorrowingRepository borrowingRepository;
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final ActiveLoanIndex activeLoanIndex;
+    private final DeadlockPriority deadlockPriority;
+    private final TransactionTemplate batchTransaction;
+    private final int batchSize;
+    private final int maxBatches;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder marked = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile LocalDateTime lastRunStartedAt;
+    private volatile long lastRunMillis;
+    private volatile long lastRunMarked;
+    private volatile boolean lastRunComplete;
+
+    public OverdueSweeper(BorrowingRepository borrowingRepository, BookRepository bookRepository,
+                          MemberRepository memberRepository, ActiveLoanIndex activeLoanIndex,
+                          DeadlockPriority deadlockPriority, PlatformTransactionManager transactionManager,
+                          @Value("${overdue.sweeper.batch-size:500}") int batchSize,
+                          @Value("${overdue.sweeper.max-batches:100}") int maxBatches) {
+        if (batchSize < 1 || maxBatches < 1) {
+            throw new IllegalArgumentException("Batch size and max batches must not be less than one!");
+        }
+        this.borrowingRepository = borrowingRepository;
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.activeLoanIndex = activeLoanIndex;
+        this.deadlockPriority = deadlockPriority;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    /**
+     * Mark the loans that fell due before today as overdue, batch by batch. A run that is already in
+     * progress is not started twice; a failed batch ends the run and is retried by the next one.
+     *
+     * @return the number of loans marked overdue by this run, or 0 if another run was in progress
+     */
+    @Scheduled(fixedDelayString = "${overdue.sweeper.interval-ms:300000}",
+               initialDelayString = "${overdue.sweeper.initial-delay-ms:10000}")
+    public int sweep() {
+        if (!running.compareAndSet(false, true)) {
+            logger.debug("Overdue sweep already running, skipped.");
+            return 0;
+        }
+        long start = System.nanoTime();
+        lastRunStartedAt = LocalDateTime.now();
+        LocalDate today = LocalDate.now();
+        int runMarked = 0;
+        boolean complete = false;
+        try {
+            for (int batch = 0; batch < maxBatches && !complete; batch++) {
+                int[] result = batchTransaction.execute(status -> deadlockPriority.runLow(() -> {
+                    List<UUID> ids = borrowingRepository.findOverdueCandidateIds(today, batchSize);
+                    int updated = borrowingRepository.markOverdue(ids, today);
+                    if (updated > 0) {
+                        bookRepository.recountLoanCountersOfBorrowings(ids);
+                        memberRepository.recountLoanCountersOfBorrowings(ids);
+                    }
+                    activeLoanIndex.markOverdue(ids, today);
+                    return new int[] {ids.size(), updated};
+                }));
+                batches.increment();
+                marked.add(result[1]);
+                runMarked += result[1];
+                complete = result[0] < batchSize;
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            logger.error("Overdue sweep failed after marking {} loans: {}", runMarked, e.getMessage(), e);
+        } finally {
+            runs.increment();
+            lastRunMillis = (System.nanoTime() - start) / 1_000_000;
+            lastRunMarked = runMarked;
+            lastRunComplete = complete;
+            running.set(false);
+        }
+        if (runMarked > 0 || !complete) {
+            logger.info("Overdue sweep marked {} loans overdue in {} ms{}", runMarked, lastRunMillis,
+                    complete ? "" : ", more left for the next run");
+        }
+        return runMarked;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getRunCount() {
+        return runs.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * Get the number of loans marked overdue since startup.
+     *
+     * @return the marked loan count
+     */
+    public long getMarkedCount() {
+        return marked.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    public LocalDateTime getLastRunStartedAt() {
+        return lastRunStartedAt;
+    }
+
+    public long getLastRunMillis() {
+        return lastRunMillis;
+    }
+
+    public long getLastRunMarked() {
+        return lastRunMarked;
+    }
+
+    /**
+     * Check whether the last run reached the end of the loans to mark, rather than its batch limit or a failure.
+     *
+     * @return true if no overdue loan was left BORROWED by the last run
+     */
+    public boolean isLastRunComplete() {
+        return lastRunComplete;
+    }
+
+    @Override
+    public String toString() {
+        return "OverdueSweeper{" +
+                "running=" + isRunning() +
+                ", runs=" + getRunCount() +
+                ", batches=" + getBatchCount() +
+                ", marked=" + getMarkedCount() +
+                ", failures=" + getFailureCount() +
+                ", lastRunStartedAt=" + lastRunStartedAt +
+                ", lastRunMillis=" + lastRunMillis +
+                ", lastRunMarked=" + lastRunMarked +
+                ", lastRunComplete=" + lastRunComplete +
+                '}';
+    }
+}
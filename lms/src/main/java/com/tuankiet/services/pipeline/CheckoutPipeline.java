@@ -0,0 +1,255 @@
+package com.tuankiet.services.pipeline;
+
+import com.tuankiet.dto.common.BatchItemResult;
+import com.tuankiet.dto.request.CreateBorrowingRequest;
+import com.tuankiet.dto.response.BorrowingResponse;
+import com.tuankiet.exceptions.BusinessRuleViolationException;
+import com.tuankiet.services.BorrowingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional group-commit mode for checkouts under heavy concurrency.
+ * Callers put their request in a bounded queue and get a future; a single committer thread drains
+ * up to {@code checkout.pipeline.max-batch} requests, waiting at most {@code checkout.pipeline.max-wait-micros}
+ * after the first one, and checks them out in one transaction with {@link BorrowingService#checkoutAll}.
+ * If that transaction fails as a whole, the batch's requests are checked out one by one instead,
+ * so that one failure cannot reject the other callers.
+ * <p>
+ * When the pipeline is disabled ({@code checkout.pipeline.enabled=false}, the default) or not running,
+ * {@link #submit} checks out synchronously on the caller's thread.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class CheckoutPipeline implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutPipeline.class);
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final BorrowingService borrowingService;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final BlockingQueue<PendingCheckout> queue;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedCheckouts = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    private volatile boolean running;
+    private Thread committer;
+
+    public CheckoutPipeline(BorrowingService borrowingService,
+                            @Value("${checkout.pipeline.enabled:false}") boolean enabled,
+                            @Value("${checkout.pipeline.queue-capacity:1024}") int queueCapacity,
+                            @Value("${checkout.pipeline.max-batch:64}") int maxBatch,
+                            @Value("${checkout.pipeline.max-wait-micros:2000}") long maxWaitMicros) {
+        this.borrowingService = borrowingService;
+        this.enabled = enabled;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, maxWaitMicros));
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    /**
+     * Submit a checkout.
+     *
+     * @param createRequest the checkout request
+     * @return the future completed with the created borrowing, or exceptionally with the rejection;
+     *         a full queue rejects with a {@link BusinessRuleViolationException}
+     */
+    public CompletableFuture<BorrowingResponse> submit(CreateBorrowingRequest createRequest) {
+        if (!running) {
+            return checkOutDirectly(createRequest);
+        }
+        PendingCheckout pending = new PendingCheckout(createRequest);
+        if (!queue.offer(pending)) {
+            logger.warn("Checkout queue is full ({} requests), rejecting checkout of book ID {}", queue.size(), createRequest.getBookId());
+            return CompletableFuture.failedFuture(new BusinessRuleViolationException("Too many checkouts in progress, please try again."));
+        }
+        return pending.future;
+    }
+
+    /**
+     * Check out and wait for the result, through the pipeline when it is running.
+     *
+     * @param createRequest the checkout request
+     * @return the created borrowing
+     * @throws RuntimeException the rejection of the checkout, as {@link BorrowingService#create} throws it
+     */
+    public BorrowingResponse checkout(CreateBorrowingRequest createRequest) {
+        try {
+            return submit(createRequest).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        committer = new Thread(this::run, "checkout-committer");
+        committer.setDaemon(true);
+        committer.start();
+        logger.info("Checkout pipeline started: batches of up to {} requests, max wait {} us",
+                maxBatch, TimeUnit.NANOSECONDS.toMicros(maxWaitNanos));
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Requests that raced with the shutdown are still answered
+        List<PendingCheckout> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(pending -> checkOutDirectly(pending.request).whenComplete((response, error) -> pending.complete(response, error)));
+        logger.info("Checkout pipeline stopped: {}", this);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getBatchedCheckoutCount() {
+        return batchedCheckouts.sum();
+    }
+
+    /**
+     * Get the number of batches whose transaction failed and were checked out one by one.
+     *
+     * @return the fallback count
+     */
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    private void run() {
+        List<PendingCheckout> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingCheckout first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingCheckout next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                commit(batch);
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in checkout committer: {}", e.getMessage(), e);
+                batch.forEach(pending -> pending.complete(null, e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingCheckout> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<CreateBorrowingRequest> requests = new ArrayList<>(batch.size());
+        batch.forEach(pending -> requests.add(pending.request));
+        try {
+            List<BatchItemResult<BorrowingResponse>> results = borrowingService.checkoutAll(requests);
+            batches.increment();
+            batchedCheckouts.add(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                BatchItemResult<BorrowingResponse> result = results.get(i);
+                batch.get(i).complete(result.getValue(), result.getError());
+            }
+        } catch (RuntimeException e) {
+            fallbacks.increment();
+            logger.warn("Batch checkout of {} requests failed, checking them out one by one: {}", batch.size(), e.getMessage());
+            for (PendingCheckout pending : batch) {
+                checkOutDirectly(pending.request).whenComplete((response, error) -> pending.complete(response, error));
+            }
+        }
+    }
+
+    private CompletableFuture<BorrowingResponse> checkOutDirectly(CreateBorrowingRequest createRequest) {
+        try {
+            return CompletableFuture.completedFuture(borrowingService.create(createRequest));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CheckoutPipeline{" +
+                "running=" + running +
+                ", queued=" + queue.size() +
+                ", batches=" + getBatchCount() +
+                ", batchedCheckouts=" + getBatchedCheckoutCount() +
+                ", fallbacks=" + getFallbackCount() +
+                '}';
+    }
+
+    private static final class PendingCheckout {
+
+        private final CreateBorrowingRequest request;
+        private final CompletableFuture<BorrowingResponse> future = new CompletableFuture<>();
+
+        private PendingCheckout(CreateBorrowingRequest request) {
+            this.request = request;
+        }
+
+        private void complete(BorrowingResponse response, Throwable error) {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(response);
+            }
+        }
+    }
+}
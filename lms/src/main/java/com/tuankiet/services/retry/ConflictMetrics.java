@@ -0,0 +1,109 @@
+package com.tuankiet.services.retry;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optimistic lock conflict counters per retried operation, to size contention on hot rows
+ * (e.g. popular titles). An operation's conflict rate is the share of its attempts that hit a conflict.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class ConflictMetrics {
+
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    void recordAttempt(String operation) {
+        stats(operation).attempts.increment();
+    }
+
+    void recordConflict(String operation) {
+        stats(operation).conflicts.increment();
+    }
+
+    void recordExhausted(String operation) {
+        stats(operation).exhausted.increment();
+    }
+
+    /**
+     * Get the counters of one operation.
+     *
+     * @param operation the operation name
+     * @return the counters, all zero if the operation has not run yet
+     */
+    public OperationStats getStats(String operation) {
+        return stats(operation);
+    }
+
+    /**
+     * Get the counters of all operations that have run, by operation name.
+     *
+     * @return a sorted, read-only view of the counters
+     */
+    public Map<String, OperationStats> getAllStats() {
+        return Collections.unmodifiableMap(new TreeMap<>(operations));
+    }
+
+    private OperationStats stats(String operation) {
+        return operations.computeIfAbsent(operation, key -> new OperationStats());
+    }
+
+    @Override
+    public String toString() {
+        return "ConflictMetrics" + getAllStats();
+    }
+
+    /**
+     * Counters of one operation.
+     */
+    public static final class OperationStats {
+
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder exhausted = new LongAdder();
+
+        public long getAttempts() {
+            return attempts.sum();
+        }
+
+        public long getConflicts() {
+            return conflicts.sum();
+        }
+
+        /**
+         * Get the number of invocations that still conflicted on their last attempt.
+         *
+         * @return the number of failed invocations
+         */
+        public long getExhausted() {
+            return exhausted.sum();
+        }
+
+        /**
+         * Get the share of attempts that ended in a conflict.
+         *
+         * @return the conflict rate between 0 and 1, or 0 before the first attempt
+         */
+        public double getConflictRate() {
+            long attemptCount = attempts.sum();
+            return attemptCount == 0 ? 0 : (double) conflicts.sum() / attemptCount;
+        }
+
+        @Override
+        public String toString() {
+            return "{attempts=" + getAttempts() +
+                    ", conflicts=" + getConflicts() +
+                    ", exhausted=" + getExhausted() +
+                    ", conflictRate=" + String.format("%.3f", getConflictRate()) +
+                    '}';
+        }
+    }
+}
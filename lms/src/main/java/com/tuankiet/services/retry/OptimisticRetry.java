@@ -0,0 +1,48 @@
+package com.tuankiet.services.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service operation to be re-run in a new transaction when it fails on an optimistic lock conflict
+ * or is rolled back as a deadlock victim.
+ * Only put it on operations that are safe to repeat: each attempt re-reads the current state.
+ * The retry runs outside the transaction, so the annotated method must start its own {@code @Transactional}
+ * boundary; when called inside an existing transaction the conflict is passed on to the caller instead.
+ * <p>
+ * Attempts and backoff can be overridden per operation with the properties
+ * {@code retry.optimistic.<operation>.max-attempts}, {@code .initial-backoff-ms} and {@code .max-backoff-ms}.
+ * Attributes left at -1 fall back to the {@code retry.optimistic.*} defaults.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface OptimisticRetry {
+
+    /**
+     * The operation name, used for property overrides and conflict metrics (e.g. {@code borrowing.return}).
+     */
+    String value();
+
+    /**
+     * The maximum number of attempts, including the first one.
+     */
+    int maxAttempts() default -1;
+
+    /**
+     * The upper bound of the backoff before the first retry, doubled on each further retry.
+     */
+    long initialBackoffMillis() default -1;
+
+    /**
+     * The cap of the backoff bound.
+     */
+    long maxBackoffMillis() default -1;
+}
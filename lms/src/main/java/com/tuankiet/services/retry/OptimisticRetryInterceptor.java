@@ -0,0 +1,148 @@
+package com.tuankiet.services.retry;
+
+import jakarta.persistence.OptimisticLockException;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.LockAcquisitionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Re-runs {@link OptimisticRetry} operations that fail on an optimistic lock conflict, or that were
+ * chosen as the victim of a deadlock, e.g. with a loan counter recount.
+ * Ordered before the transaction interceptor, so every attempt runs in a fresh transaction and session.
+ * Between attempts it sleeps a random time up to an exponentially growing bound ("full jitter"),
+ * so that callers that conflicted on the same row do not retry in lockstep.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class OptimisticRetryInterceptor implements MethodInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetryInterceptor.class);
+
+    private static final String PREFIX = "retry.optimistic.";
+
+    /** SQL Server error raised in the transaction rolled back to resolve a deadlock. */
+    private static final int SQL_SERVER_DEADLOCK_VICTIM = 1205;
+
+    private final Environment environment;
+    private final ConflictMetrics conflictMetrics;
+    private final Map<Method, Policy> policies = new ConcurrentHashMap<>();
+
+    public OptimisticRetryInterceptor(Environment environment, ConflictMetrics conflictMetrics) {
+        this.environment = environment;
+        this.conflictMetrics = conflictMetrics;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // The caller's transaction is rolled back by a conflict anyway; only its owner can retry
+            return invocation.proceed();
+        }
+        Policy policy = policies.computeIfAbsent(invocation.getMethod(), method -> policy(method, invocation.getThis()));
+
+        for (int attempt = 1; ; attempt++) {
+            conflictMetrics.recordAttempt(policy.operation);
+            try {
+                return ((ProxyMethodInvocation) invocation).invocableClone().proceed();
+            } catch (RuntimeException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                conflictMetrics.recordConflict(policy.operation);
+                if (attempt >= policy.maxAttempts) {
+                    conflictMetrics.recordExhausted(policy.operation);
+                    logger.warn("Operation {} still conflicted after {} attempts: {}", policy.operation, attempt, e.getMessage());
+                    throw e;
+                }
+                long bound = Math.min(policy.maxBackoffMillis, policy.initialBackoffMillis << Math.min(attempt - 1, 20));
+                long backoff = bound > 0 ? ThreadLocalRandom.current().nextLong(bound + 1) : 0;
+                logger.debug("Conflict in {} (attempt {} of {}), retrying in {} ms",
+                        policy.operation, attempt, policy.maxAttempts, backoff);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Repositories wrap persistence errors in plain runtime exceptions, so the whole cause chain is checked.
+     */
+    private static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException
+                    || cause instanceof OptimisticLockException
+                    || cause instanceof StaleStateException
+                    || cause instanceof PessimisticLockingFailureException
+                    || cause instanceof LockAcquisitionException
+                    || cause instanceof SQLException && ((SQLException) cause).getErrorCode() == SQL_SERVER_DEADLOCK_VICTIM) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Policy policy(Method method, Object target) {
+        Method targetMethod = target != null ? AopUtils.getMostSpecificMethod(method, target.getClass()) : method;
+        OptimisticRetry retry = AnnotatedElementUtils.findMergedAnnotation(targetMethod, OptimisticRetry.class);
+        if (retry == null) {
+            retry = AnnotatedElementUtils.findMergedAnnotation(method, OptimisticRetry.class);
+        }
+        String operation = retry.value();
+        int maxAttempts = setting(operation, "max-attempts", retry.maxAttempts(), 3, Integer.class);
+        long initialBackoffMillis = setting(operation, "initial-backoff-ms", retry.initialBackoffMillis(), 20L, Long.class);
+        long maxBackoffMillis = setting(operation, "max-backoff-ms", retry.maxBackoffMillis(), 500L, Long.class);
+        logger.debug("Retry policy for {}: {} attempts, backoff {}-{} ms", operation, maxAttempts, initialBackoffMillis, maxBackoffMillis);
+        return new Policy(operation, Math.max(1, maxAttempts), Math.max(0, initialBackoffMillis), Math.max(0, maxBackoffMillis));
+    }
+
+    /**
+     * Resolve a setting: the per-operation property, else the annotation attribute, else the global property.
+     */
+    private <N extends Number> N setting(String operation, String name, N annotated, N fallback, Class<N> type) {
+        N value = environment.getProperty(PREFIX + operation + "." + name, type);
+        if (value != null) {
+            return value;
+        }
+        if (annotated.longValue() >= 0) {
+            return annotated;
+        }
+        return environment.getProperty(PREFIX + name, type, fallback);
+    }
+
+    private static final class Policy {
+
+        private final String operation;
+        private final int maxAttempts;
+        private final long initialBackoffMillis;
+        private final long maxBackoffMillis;
+
+        private Policy(String operation, int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+            this.operation = operation;
+            this.maxAttempts = maxAttempts;
+            this.initialBackoffMillis = initialBackoffMillis;
+            this.maxBackoffMillis = maxBackoffMillis;
+        }
+    }
+}
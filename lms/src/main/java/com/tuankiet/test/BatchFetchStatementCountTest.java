@@ -0,0 +1,77 @@
+package com.tuankiet.test;
+
+import com.tuankiet.config.ApplicationConfig;
+import com.tuankiet.dto.common.Page;
+import com.tuankiet.dto.common.PageRequest;
+import com.tuankiet.entities.Borrowing;
+import com.tuankiet.repositories.BorrowingRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checks that rendering a page of borrowings without a fetch plan stays within a bounded
+ * number of statements thanks to batch fetching of the lazy book, author and member proxies.
+ * Uses the existing data; run the sample data generator first for a full 100-row page.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class BatchFetchStatementCountTest {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int ENTITY_BATCH_SIZE = 50;
+
+    public static void main(String[] args) {
+        System.out.println("=== Batch Fetch Statement Count Test ===");
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(ApplicationConfig.class)) {
+            TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            transaction.setReadOnly(true);
+            BorrowingRepository borrowingRepository = context.getBean(BorrowingRepository.class);
+            Statistics statistics = context.getBean(SessionFactory.class).getStatistics();
+            statistics.setStatisticsEnabled(true);
+            statistics.clear();
+
+            int rows = transaction.execute(status -> {
+                Page<Borrowing> page = borrowingRepository.findAll(new PageRequest(0, PAGE_SIZE));
+                for (Borrowing borrowing : page.getContent()) {
+                    render(borrowing);
+                }
+                return page.getContent().size();
+            });
+
+            long statements = statistics.getPrepareStatementCount();
+            // Page query and count, then at most one IN-batch per started batch of books, authors and members
+            long batches = (rows + ENTITY_BATCH_SIZE - 1) / ENTITY_BATCH_SIZE;
+            long bound = 2 + 3 * batches;
+
+            System.out.println("   Rows rendered: " + rows);
+            System.out.println("   Statements:    " + statements + " (bound " + bound + ")");
+            if (statements > bound) {
+                System.out.println("❌ Too many statements, lazy associations are loaded one by one");
+                System.exit(1);
+            }
+            System.out.println("✅ Statement count is bounded");
+        } catch (Exception e) {
+            System.out.println("❌ Test failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Touches the same associations the borrowing listing prints.
+     */
+    private static void render(Borrowing borrowing) {
+        String book = borrowing.getBook().getTitle();
+        String author = borrowing.getBook().getAuthor() != null
+                ? borrowing.getBook().getAuthor().getFirstName() + " " + borrowing.getBook().getAuthor().getLastName()
+                : "Unknown";
+        String member = borrowing.getMember().getFirstName() + " " + borrowing.getMember().getLastName();
+        System.out.printf("%-36s %-25s %-20s %-20s%n", borrowing.getId(), book, author, member);
+    }
+}
@@ -0,0 +1,128 @@
+package com.tuankiet.test;
+
+import com.tuankiet.config.ApplicationConfig;
+import com.tuankiet.dto.response.AuthorResponse;
+import com.tuankiet.dto.response.BookResponse;
+import com.tuankiet.dto.response.BorrowingResponse;
+import com.tuankiet.dto.response.MemberResponse;
+import com.tuankiet.entities.Author;
+import com.tuankiet.entities.Book;
+import com.tuankiet.entities.Borrowing;
+import com.tuankiet.entities.Member;
+import com.tuankiet.enums.BookCategory;
+import com.tuankiet.enums.BorrowingStatus;
+import com.tuankiet.repositories.AuthorRepository;
+import com.tuankiet.repositories.BookRepository;
+import com.tuankiet.repositories.BorrowingRepository;
+import com.tuankiet.repositories.MemberRepository;
+import com.tuankiet.services.AuthorService;
+import com.tuankiet.services.BookService;
+import com.tuankiet.services.BorrowingService;
+import com.tuankiet.services.MemberService;
+import com.tuankiet.services.SampleDataService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmark comparing the row-by-row reset through the services with the set-based
+ * {@link SampleDataService#clearAllData()}. Seeds the given number of borrowings
+ * (default 2000, first argument) with stateless batched inserts before each run.
+ *
+ * WARNING: deletes all data in the configured database.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class BulkDeleteBenchmark {
+
+    private static final int BOOKS = 100;
+    private static final int MEMBERS = 100;
+    private static final int BATCH_SIZE = 500;
+
+    public static void main(String[] args) {
+        int borrowings = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        System.out.println("=== Bulk Delete Benchmark (" + borrowings + " borrowings) ===");
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(ApplicationConfig.class)) {
+            TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            SampleDataService sampleDataService = context.getBean(SampleDataService.class);
+
+            transaction.executeWithoutResult(status -> sampleDataService.clearAllData());
+
+            long rows = seed(context, transaction, borrowings);
+            long start = System.nanoTime();
+            clearRowByRow(context);
+            report("Row-by-row via services", rows, System.nanoTime() - start);
+
+            rows = seed(context, transaction, borrowings);
+            start = System.nanoTime();
+            sampleDataService.clearAllData();
+            report("Set-based clearAllData", rows, System.nanoTime() - start);
+        } catch (Exception e) {
+            System.out.println("❌ Benchmark failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static long seed(AnnotationConfigApplicationContext context, TransactionTemplate transaction, int borrowings) {
+        AuthorRepository authorRepository = context.getBean(AuthorRepository.class);
+        BookRepository bookRepository = context.getBean(BookRepository.class);
+        MemberRepository memberRepository = context.getBean(MemberRepository.class);
+        BorrowingRepository borrowingRepository = context.getBean(BorrowingRepository.class);
+
+        return transaction.execute(status -> {
+            Author author = authorRepository.save(new Author("Bench", "Author", "Benchmark data"));
+            List<Book> books = new ArrayList<>(BOOKS);
+            for (int i = 0; i < BOOKS; i++) {
+                books.add(new Book("Benchmark Book " + i, String.format("979%010d", i), 2000, BookCategory.FICTION, borrowings, author));
+            }
+            List<Member> members = new ArrayList<>(MEMBERS);
+            for (int i = 0; i < MEMBERS; i++) {
+                members.add(new Member("Bench", "Member " + i, "bench" + i + "@example.com", "000-000-0000", "Benchmark St"));
+            }
+            long rows = 1;
+            rows += bookRepository.persistAll(books.iterator(), BATCH_SIZE, true);
+            rows += memberRepository.persistAll(members.iterator(), BATCH_SIZE, true);
+            rows += borrowingRepository.persistAll(IntStream.range(0, borrowings)
+                    .mapToObj(i -> new Borrowing(books.get(i % BOOKS), members.get(i % MEMBERS),
+                            LocalDate.now().minusDays(30), LocalDate.now().minusDays(16), BorrowingStatus.RETURNED))
+                    .iterator(), BATCH_SIZE, true);
+            return rows;
+        });
+    }
+
+    /**
+     * The reset as it used to be done: load every record as a DTO and delete it through its service.
+     */
+    private static void clearRowByRow(AnnotationConfigApplicationContext context) {
+        BorrowingService borrowingService = context.getBean(BorrowingService.class);
+        BookService bookService = context.getBean(BookService.class);
+        MemberService memberService = context.getBean(MemberService.class);
+        AuthorService authorService = context.getBean(AuthorService.class);
+
+        for (BorrowingResponse borrowing : borrowingService.getAll()) {
+            borrowingService.delete(borrowing.getId());
+        }
+        for (BookResponse book : bookService.getAll()) {
+            bookService.delete(book.getId());
+        }
+        for (MemberResponse member : memberService.getAll()) {
+            memberService.delete(member.getId());
+        }
+        for (AuthorResponse author : authorService.getAll()) {
+            authorService.delete(author.getId());
+        }
+    }
+
+    private static void report(String label, long rows, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("%-26s %,10d rows in %8.2f s = %,12.0f rows/s%n", label, rows, seconds, rows / seconds);
+    }
+}
@@ -0,0 +1,116 @@
+package com.tuankiet.test;
+
+import com.tuankiet.config.ReadWriteRoutingDataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks the read/write routing without a database server: two in-memory stand-in databases act as
+ * replicas of a third one, and each connection reports which database it came from.
+ * Read-only transactions must alternate between the replicas, read-write ones must use the primary,
+ * and reads must fall back to the remaining replica, then to the primary, when replicas go down.
+ *
+ * @author tuankiet
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class ReadWriteRoutingTest {
+
+    private static int failures;
+
+    public static void main(String[] args) {
+        System.out.println("=== Read/Write Routing Test ===");
+
+        StubDatabase primary = new StubDatabase("primary");
+        StubDatabase replica1 = new StubDatabase("replica-1");
+        StubDatabase replica2 = new StubDatabase("replica-2");
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, List.of(replica1, replica2),
+                ReadWriteRoutingDataSource.Selection.ROUND_ROBIN, 60000);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+        List<String> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(run(transactionManager, dataSource, true));
+        }
+        check("Read-only transactions alternate between replicas",
+                List.of("replica-1", "replica-2", "replica-1", "replica-2"), reads);
+        check("Read-write transaction uses the primary", "primary", run(transactionManager, dataSource, false));
+
+        replica1.down = true;
+        check("Read falls back to the other replica", "replica-2", run(transactionManager, dataSource, true));
+        check("Failed replica is skipped afterwards", "replica-2", run(transactionManager, dataSource, true));
+
+        replica2.down = true;
+        check("Read falls back to the primary", "primary", run(transactionManager, dataSource, true));
+
+        System.out.println("   " + routing);
+        System.out.println(failures == 0 ? "🎉 All checks passed!" : "❌ " + failures + " check(s) failed");
+    }
+
+    private static String run(DataSourceTransactionManager transactionManager, DataSource dataSource, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> {
+            try {
+                // Any statement-level call makes the lazy proxy fetch the real connection
+                return DataSourceUtils.getConnection(dataSource).getCatalog();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static void check(String description, Object expected, Object actual) {
+        boolean passed = expected.equals(actual);
+        if (!passed) {
+            failures++;
+        }
+        System.out.println((passed ? "✅ " : "❌ ") + description + ": expected " + expected + ", got " + actual);
+    }
+
+    /**
+     * Stand-in database whose connections answer {@link Connection#getCatalog()} with its name.
+     */
+    private static final class StubDatabase extends AbstractDataSource {
+
+        private final String name;
+        private volatile boolean down;
+
+        private StubDatabase(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("Connection refused: " + name);
+            }
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, methodArgs) -> switch (method.getName()) {
+                        case "getCatalog", "toString" -> name;
+                        case "getAutoCommit", "isValid" -> true;
+                        case "getTransactionIsolation" -> Connection.TRANSACTION_READ_COMMITTED;
+                        case "isClosed", "isReadOnly", "isWrapperFor" -> false;
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == methodArgs[0];
+                        default -> null;
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}